@@ -21,28 +21,65 @@
 
 package net.imagej.server;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+
 import io.dropwizard.Application;
+import io.dropwizard.jetty.ConnectorFactory;
+import io.dropwizard.lifecycle.Managed;
+import io.dropwizard.server.DefaultServerFactory;
 import io.dropwizard.setup.Bootstrap;
 import io.dropwizard.setup.Environment;
 
+import java.util.ArrayList;
 import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import javax.servlet.DispatcherType;
 import javax.servlet.FilterRegistration;
 
+import net.imagej.DatasetService;
+import net.imagej.server.compression.CompressionInterceptor;
+import net.imagej.server.config.EvictionConfiguration;
+import net.imagej.server.config.UploadConfiguration;
 import net.imagej.server.health.ImageJServerHealthCheck;
+import net.imagej.server.jetty.UnixSocketConnectorFactory;
 import net.imagej.server.resources.AdminResource;
+import net.imagej.server.resources.JobsResource;
 import net.imagej.server.resources.ModulesResource;
 import net.imagej.server.resources.ObjectsResource;
+import net.imagej.server.services.ArtifactCache;
+import net.imagej.server.services.DefaultArtifactCache;
+import net.imagej.server.services.DefaultEvictionPolicy;
+import net.imagej.server.services.DefaultExportService;
+import net.imagej.server.services.DefaultIngestService;
+import net.imagej.server.services.DefaultJobService;
+import net.imagej.server.services.DefaultPyramidService;
 import net.imagej.server.services.DefaultJsonService;
+import net.imagej.server.services.DefaultLocalFileService;
+import net.imagej.server.services.DefaultModuleScheduler;
 import net.imagej.server.services.DefaultObjectService;
+import net.imagej.server.services.DefaultSharedMemoryService;
+import net.imagej.server.services.DefaultSpillService;
+import net.imagej.server.services.DefaultSpoolService;
+import net.imagej.server.services.ExportService;
+import net.imagej.server.services.IngestService;
+import net.imagej.server.services.JobService;
 import net.imagej.server.services.JsonService;
+import net.imagej.server.services.LocalFileService;
+import net.imagej.server.services.ModuleScheduler;
 import net.imagej.server.services.ObjectService;
+import net.imagej.server.services.PyramidService;
+import net.imagej.server.services.SharedMemoryService;
+import net.imagej.server.services.SpillService;
+import net.imagej.server.services.SpoolService;
 
 import org.eclipse.jetty.servlets.CrossOriginFilter;
 import org.glassfish.hk2.utilities.binding.AbstractBinder;
 import org.glassfish.jersey.media.multipart.MultiPartFeature;
 import org.scijava.Context;
+import org.scijava.log.LogService;
 
 /**
  * Entry point to imagej-server.
@@ -57,6 +94,28 @@ public class ImageJServer extends Application<ImageJServerConfiguration> {
 
 	private final JsonService jsonService;
 
+	private UploadConfiguration upload;
+
+	private SpoolService spoolService;
+
+	private ArtifactCache artifactCache;
+
+	private PyramidService pyramidService;
+
+	private IngestService ingestService;
+
+	private LocalFileService localFileService;
+
+	private ExportService exportService;
+
+	private SharedMemoryService sharedMemoryService;
+
+	private SpillService spillService;
+
+	private JobService jobService;
+
+	private ModuleScheduler moduleScheduler;
+
 	private Environment env;
 
 	public ImageJServer(final Context ctx) {
@@ -100,12 +159,75 @@ public class ImageJServer extends Application<ImageJServerConfiguration> {
 
 		env = environment;
 
+		if (configuration.getUnixSocket().getPath() != null) {
+			addUnixSocketConnector(configuration);
+		}
+
+		upload = configuration.getUpload();
+		spoolService = new DefaultSpoolService(configuration.getSpool());
+		artifactCache = new DefaultArtifactCache(configuration.getArtifactCache());
+		pyramidService = new DefaultPyramidService(configuration.getTiles());
+		ingestService = new DefaultIngestService(configuration.getIngest(),
+			objectService);
+		localFileService = new DefaultLocalFileService(configuration
+			.getLocalFiles());
+		exportService = new DefaultExportService(configuration.getLocalFiles());
+		sharedMemoryService = new DefaultSharedMemoryService(configuration
+			.getSharedMemory());
+		spillService = new DefaultSpillService(configuration.getSpill(), ctx
+			.getService(DatasetService.class));
+		jobService = new DefaultJobService(configuration.getJobs());
+		moduleScheduler = new DefaultModuleScheduler(configuration.getScheduler(),
+			environment.metrics());
+		jsonService.setPendingTimeout(configuration.getIngest().getPendingTimeout()
+			.toMilliseconds());
+		objectService.addRemovalListener(info -> {
+			artifactCache.invalidate(info.getId());
+			pyramidService.invalidate(info.getId());
+			ingestService.forget(info.getId());
+			sharedMemoryService.release(info.getId());
+		});
+		objectService.addModificationListener(info -> {
+			artifactCache.invalidate(info.getId());
+			pyramidService.invalidate(info.getId());
+		});
+		objectService.setSpillService(spillService);
+		// NB: pyramids refer to the pixels of the spilled image.
+		objectService.addSpillListener(info -> pyramidService.invalidate(info
+			.getId()));
+		enableEviction(configuration.getEviction(), environment);
+		environment.lifecycle().manage(new Managed() {
+
+			@Override
+			public void start() {
+				// NB: spool files are created on demand.
+			}
+
+			@Override
+			public void stop() {
+				jobService.dispose();
+				moduleScheduler.dispose();
+				ingestService.dispose();
+				exportService.dispose();
+				sharedMemoryService.dispose();
+				spillService.dispose();
+				artifactCache.clear();
+				pyramidService.clear();
+				spoolService.dispose();
+			}
+		});
+
 		// NB: not implemented yet
 		final ImageJServerHealthCheck healthCheck = new ImageJServerHealthCheck();
 		environment.healthChecks().register("imagej-server", healthCheck);
 
 		environment.jersey().register(MultiPartFeature.class);
 
+		environment.jersey().register(jsonService.getReaderInterceptor());
+
+		environment.jersey().register(new CompressionInterceptor(configuration
+			.getCompression(), environment.metrics()));
+
 		// -- resources --
 
 		environment.jersey().register(AdminResource.class);
@@ -114,6 +236,8 @@ public class ImageJServer extends Application<ImageJServerConfiguration> {
 
 		environment.jersey().register(ObjectsResource.class);
 
+		environment.jersey().register(JobsResource.class);
+
 		// -- context dependencies injection --
 
 		environment.jersey().register(new AbstractBinder() {
@@ -122,8 +246,18 @@ public class ImageJServer extends Application<ImageJServerConfiguration> {
 			protected void configure() {
 				bind(ctx).to(Context.class);
 				bind(env).to(Environment.class);
+				bind(upload).to(UploadConfiguration.class);
 				bind(objectService).to(ObjectService.class);
 				bind(jsonService).to(JsonService.class);
+				bind(spoolService).to(SpoolService.class);
+				bind(artifactCache).to(ArtifactCache.class);
+				bind(pyramidService).to(PyramidService.class);
+				bind(ingestService).to(IngestService.class);
+				bind(localFileService).to(LocalFileService.class);
+				bind(exportService).to(ExportService.class);
+				bind(sharedMemoryService).to(SharedMemoryService.class);
+				bind(jobService).to(JobService.class);
+				bind(moduleScheduler).to(ModuleScheduler.class);
 			}
 
 		});
@@ -138,4 +272,63 @@ public class ImageJServer extends Application<ImageJServerConfiguration> {
 		if (env == null) return;
 		env.getApplicationContext().getServer().join();
 	}
+
+	// -- Helper methods --
+
+	/**
+	 * Sets the eviction policy of the object service, sweeps for expired and
+	 * idle objects and for expired cached downloads periodically, and reports
+	 * the objects, evictions and spills as metrics.
+	 */
+	private void enableEviction(final EvictionConfiguration config,
+		final Environment environment)
+	{
+		objectService.setEvictionPolicy(new DefaultEvictionPolicy(config));
+		final long interval = config.getInterval().toMilliseconds();
+		if (interval > 0) {
+			final LogService log = ctx.getService(LogService.class);
+			environment.lifecycle().scheduledExecutorService(
+				"imagej-server-eviction").build().scheduleWithFixedDelay(() -> {
+					try {
+						artifactCache.expire();
+						objectService.evict();
+					}
+					catch (final RuntimeException exc) {
+						// NB: keep sweeping; a failed removal is retried next time.
+						if (log != null) log.warn(exc);
+					}
+				}, interval, interval, TimeUnit.MILLISECONDS);
+		}
+
+		final MetricRegistry metrics = environment.metrics();
+		metrics.register(MetricRegistry.name(ObjectService.class, "count"),
+			(Gauge<Integer>) () -> objectService.getIds().size());
+		metrics.register(MetricRegistry.name(ObjectService.class, "size"),
+			(Gauge<Long>) objectService::getTotalSize);
+		objectService.addEvictionListener((info, reason) -> metrics.meter(
+			MetricRegistry.name(ObjectService.class, "evictions", reason)).mark());
+		objectService.addSpillListener(info -> metrics.meter(MetricRegistry.name(
+			ObjectService.class, "spills")).mark());
+	}
+
+	/**
+	 * Adds a Unix domain socket connector to the application connectors. The
+	 * server is only built after {@link #run}, so the connector is opened along
+	 * with the configured ones.
+	 */
+	static void addUnixSocketConnector(
+		final ImageJServerConfiguration configuration)
+	{
+		if (!(configuration.getServerFactory() instanceof DefaultServerFactory)) {
+			throw new IllegalStateException(
+				"A Unix domain socket needs the default server type");
+		}
+		final DefaultServerFactory serverFactory =
+			(DefaultServerFactory) configuration.getServerFactory();
+		final List<ConnectorFactory> connectors = new ArrayList<>(serverFactory
+			.getApplicationConnectors());
+		connectors.add(new UnixSocketConnectorFactory(configuration
+			.getUnixSocket().getPath()));
+		serverFactory.setApplicationConnectors(connectors);
+	}
 }
@@ -21,8 +21,27 @@
 
 package net.imagej.server;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
+
 import io.dropwizard.Configuration;
 
+import javax.validation.Valid;
+import javax.validation.constraints.NotNull;
+
+import net.imagej.server.config.ArtifactCacheConfiguration;
+import net.imagej.server.config.CompressionConfiguration;
+import net.imagej.server.config.EvictionConfiguration;
+import net.imagej.server.config.IngestConfiguration;
+import net.imagej.server.config.JobConfiguration;
+import net.imagej.server.config.LocalFilesConfiguration;
+import net.imagej.server.config.SchedulerConfiguration;
+import net.imagej.server.config.SharedMemoryConfiguration;
+import net.imagej.server.config.SpillConfiguration;
+import net.imagej.server.config.SpoolConfiguration;
+import net.imagej.server.config.TileConfiguration;
+import net.imagej.server.config.UnixSocketConfiguration;
+import net.imagej.server.config.UploadConfiguration;
+
 /**
  * Configuration instance for imagej-server by parsing imagej-server.yml
  *
@@ -30,5 +49,190 @@ import io.dropwizard.Configuration;
  */
 public class ImageJServerConfiguration extends Configuration {
 
-	// NB: No implementation is needed yet
+	@Valid
+	@NotNull
+	private UnixSocketConfiguration unixSocket = new UnixSocketConfiguration();
+
+	@Valid
+	@NotNull
+	private EvictionConfiguration eviction = new EvictionConfiguration();
+
+	@Valid
+	@NotNull
+	private SpillConfiguration spill = new SpillConfiguration();
+
+	@Valid
+	@NotNull
+	private JobConfiguration jobs = new JobConfiguration();
+
+	@Valid
+	@NotNull
+	private SchedulerConfiguration scheduler = new SchedulerConfiguration();
+
+	@Valid
+	@NotNull
+	private UploadConfiguration upload = new UploadConfiguration();
+
+	@Valid
+	@NotNull
+	private IngestConfiguration ingest = new IngestConfiguration();
+
+	@Valid
+	@NotNull
+	private LocalFilesConfiguration localFiles = new LocalFilesConfiguration();
+
+	@Valid
+	@NotNull
+	private SharedMemoryConfiguration sharedMemory =
+		new SharedMemoryConfiguration();
+
+	@Valid
+	@NotNull
+	private CompressionConfiguration compression =
+		new CompressionConfiguration();
+
+	@Valid
+	@NotNull
+	private SpoolConfiguration spool = new SpoolConfiguration();
+
+	@Valid
+	@NotNull
+	private ArtifactCacheConfiguration artifactCache =
+		new ArtifactCacheConfiguration();
+
+	@Valid
+	@NotNull
+	private TileConfiguration tiles = new TileConfiguration();
+
+	@JsonProperty
+	public UnixSocketConfiguration getUnixSocket() {
+		return unixSocket;
+	}
+
+	@JsonProperty
+	public void setUnixSocket(final UnixSocketConfiguration unixSocket) {
+		this.unixSocket = unixSocket;
+	}
+
+	@JsonProperty
+	public EvictionConfiguration getEviction() {
+		return eviction;
+	}
+
+	@JsonProperty
+	public void setEviction(final EvictionConfiguration eviction) {
+		this.eviction = eviction;
+	}
+
+	@JsonProperty
+	public SpillConfiguration getSpill() {
+		return spill;
+	}
+
+	@JsonProperty
+	public void setSpill(final SpillConfiguration spill) {
+		this.spill = spill;
+	}
+
+	@JsonProperty
+	public JobConfiguration getJobs() {
+		return jobs;
+	}
+
+	@JsonProperty
+	public void setJobs(final JobConfiguration jobs) {
+		this.jobs = jobs;
+	}
+
+	@JsonProperty
+	public SchedulerConfiguration getScheduler() {
+		return scheduler;
+	}
+
+	@JsonProperty
+	public void setScheduler(final SchedulerConfiguration scheduler) {
+		this.scheduler = scheduler;
+	}
+
+	@JsonProperty
+	public UploadConfiguration getUpload() {
+		return upload;
+	}
+
+	@JsonProperty
+	public void setUpload(final UploadConfiguration upload) {
+		this.upload = upload;
+	}
+
+	@JsonProperty
+	public IngestConfiguration getIngest() {
+		return ingest;
+	}
+
+	@JsonProperty
+	public void setIngest(final IngestConfiguration ingest) {
+		this.ingest = ingest;
+	}
+
+	@JsonProperty
+	public LocalFilesConfiguration getLocalFiles() {
+		return localFiles;
+	}
+
+	@JsonProperty
+	public void setLocalFiles(final LocalFilesConfiguration localFiles) {
+		this.localFiles = localFiles;
+	}
+
+	@JsonProperty
+	public SharedMemoryConfiguration getSharedMemory() {
+		return sharedMemory;
+	}
+
+	@JsonProperty
+	public void setSharedMemory(final SharedMemoryConfiguration sharedMemory) {
+		this.sharedMemory = sharedMemory;
+	}
+
+	@JsonProperty
+	public CompressionConfiguration getCompression() {
+		return compression;
+	}
+
+	@JsonProperty
+	public void setCompression(final CompressionConfiguration compression) {
+		this.compression = compression;
+	}
+
+	@JsonProperty
+	public SpoolConfiguration getSpool() {
+		return spool;
+	}
+
+	@JsonProperty
+	public void setSpool(final SpoolConfiguration spool) {
+		this.spool = spool;
+	}
+
+	@JsonProperty
+	public ArtifactCacheConfiguration getArtifactCache() {
+		return artifactCache;
+	}
+
+	@JsonProperty
+	public void setArtifactCache(
+		final ArtifactCacheConfiguration artifactCache)
+	{
+		this.artifactCache = artifactCache;
+	}
+
+	@JsonProperty
+	public TileConfiguration getTiles() {
+		return tiles;
+	}
+
+	@JsonProperty
+	public void setTiles(final TileConfiguration tiles) {
+		this.tiles = tiles;
+	}
 }
@@ -0,0 +1,357 @@
+/*
+ * #%L
+ * ImageJ server for RESTful access to ImageJ.
+ * %%
+ * Copyright (C) 2013 - 2026 Board of Regents of the University of
+ * Wisconsin-Madison.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package net.imagej.server.compression;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+
+import net.imagej.server.config.CompressionConfiguration;
+
+/**
+ * Compresses response entities with a content coding negotiated from the
+ * request's {@code Accept-Encoding} header.
+ * <p>
+ * Only entities of the configured media types are compressed. Entities of
+ * unknown length are buffered up to the minimum size before deciding, so
+ * that small responses are sent as they are. Compressed responses carry a
+ * weak version of the entity tag, since their bytes differ from the identity
+ * encoding. The compression ratio, the bytes saved and the CPU time spent
+ * compressing are reported as metrics.
+ * </p>
+ */
+public class CompressionInterceptor implements WriterInterceptor {
+
+	private static final String CONTENT_RANGE = "Content-Range";
+
+	private static final ThreadMXBean THREADS = ManagementFactory
+		.getThreadMXBean();
+
+	private final CompressionConfiguration config;
+
+	private final List<MediaType> mediaTypes;
+
+	private final Histogram ratio;
+
+	private final Counter bytesIn;
+
+	private final Counter bytesOut;
+
+	private final Timer cpuTime;
+
+	@Context
+	private HttpHeaders requestHeaders;
+
+	public CompressionInterceptor(final CompressionConfiguration config,
+		final MetricRegistry metrics)
+	{
+		this.config = config;
+		mediaTypes = new ArrayList<>();
+		for (final String type : config.getMediaTypes()) {
+			mediaTypes.add(MediaType.valueOf(type));
+		}
+		final String prefix = MetricRegistry.name(CompressionInterceptor.class);
+		ratio = metrics.histogram(MetricRegistry.name(prefix, "ratio-percent"));
+		bytesIn = metrics.counter(MetricRegistry.name(prefix, "bytes-in"));
+		bytesOut = metrics.counter(MetricRegistry.name(prefix, "bytes-out"));
+		cpuTime = metrics.timer(MetricRegistry.name(prefix, "cpu-time"));
+	}
+
+	@Override
+	public void aroundWriteTo(final WriterInterceptorContext context)
+		throws IOException
+	{
+		final MultivaluedMap<String, Object> headers = context.getHeaders();
+		if (!config.isEnabled() || !compressible(context.getMediaType()) ||
+			headers.containsKey(HttpHeaders.CONTENT_ENCODING) || headers.containsKey(
+				CONTENT_RANGE))
+		{
+			context.proceed();
+			return;
+		}
+		headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+		final String encoding = negotiate(requestHeaders.getHeaderString(
+			HttpHeaders.ACCEPT_ENCODING));
+		final long minimum = config.getMinimumSize().toBytes();
+		final Object length = headers.getFirst(HttpHeaders.CONTENT_LENGTH);
+		if (encoding == null || length != null && Long.parseLong(length
+			.toString()) < minimum)
+		{
+			context.proceed();
+			return;
+		}
+
+		final DeferredStream out = new DeferredStream(context.getOutputStream(),
+			headers, encoding, minimum);
+		context.setOutputStream(out);
+		try {
+			context.proceed();
+			out.finish();
+		}
+		finally {
+			// NB: a failed entity is not finished, so it does not look complete.
+			out.end();
+		}
+	}
+
+	// -- Helper methods --
+
+	private boolean compressible(final MediaType type) {
+		if (type == null) return false;
+		for (final MediaType allowed : mediaTypes) {
+			if (allowed.isCompatible(type)) return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Picks the supported content coding with the highest quality value, the
+	 * configured order breaking ties.
+	 *
+	 * @return the coding, or null if none is acceptable
+	 */
+	private String negotiate(final String acceptEncoding) {
+		if (acceptEncoding == null) return null;
+		String best = null;
+		double bestQ = 0;
+		for (final String encoding : config.getEncodings()) {
+			final double q = quality(acceptEncoding, encoding);
+			if (q > bestQ) {
+				best = encoding;
+				bestQ = q;
+			}
+		}
+		return best;
+	}
+
+	/** Gets the quality value of a coding in an {@code Accept-Encoding}. */
+	private static double quality(final String acceptEncoding,
+		final String encoding)
+	{
+		double wildcard = 0;
+		for (final String element : acceptEncoding.split(",")) {
+			final String[] params = element.split(";");
+			final String coding = params[0].trim().toLowerCase(Locale.ROOT);
+			double q = 1;
+			for (int i = 1; i < params.length; i++) {
+				final String param = params[i].trim();
+				if (param.startsWith("q=")) {
+					try {
+						q = Double.parseDouble(param.substring(2));
+					}
+					catch (final NumberFormatException exc) {
+						q = 0;
+					}
+				}
+			}
+			if (coding.equals(encoding)) return q;
+			if (coding.equals("*")) wildcard = q;
+		}
+		return wildcard;
+	}
+
+	// -- Helper classes --
+
+	/**
+	 * Buffers the start of an entity until it reaches the minimum size, then
+	 * switches to compressing; shorter entities are written as they are.
+	 */
+	private class DeferredStream extends FilterOutputStream {
+
+		private final MultivaluedMap<String, Object> headers;
+
+		private final String encoding;
+
+		private final long minimum;
+
+		private ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+		private CountingStream counter;
+
+		private DeflaterOutputStream compressor;
+
+		/** Native state of the compressor, released by {@link #end()}. */
+		private Deflater deflater;
+
+		private long uncompressed;
+
+		private long cpuNanos;
+
+		private DeferredStream(final OutputStream out,
+			final MultivaluedMap<String, Object> headers, final String encoding,
+			final long minimum)
+		{
+			super(out);
+			this.headers = headers;
+			this.encoding = encoding;
+			this.minimum = minimum;
+		}
+
+		@Override
+		public void write(final int b) throws IOException {
+			write(new byte[] { (byte) b }, 0, 1);
+		}
+
+		@Override
+		public void write(final byte[] b, final int off, final int len)
+			throws IOException
+		{
+			if (buffer != null) {
+				buffer.write(b, off, len);
+				if (buffer.size() >= minimum) startCompressing();
+				return;
+			}
+			uncompressed += len;
+			final long start = THREADS.getCurrentThreadCpuTime();
+			compressor.write(b, off, len);
+			cpuNanos += THREADS.getCurrentThreadCpuTime() - start;
+		}
+
+		@Override
+		public void flush() throws IOException {
+			// NB: flushing the compressor early would hurt the ratio.
+			if (buffer == null) out.flush();
+		}
+
+		@Override
+		public void close() throws IOException {
+			finish();
+			out.close();
+		}
+
+		/** Writes whatever is pending; called once the entity is complete. */
+		private void finish() throws IOException {
+			if (buffer != null) {
+				// NB: too short to be worth compressing.
+				buffer.writeTo(out);
+				buffer = null;
+				return;
+			}
+			if (compressor == null) return;
+			final long start = THREADS.getCurrentThreadCpuTime();
+			compressor.finish();
+			cpuNanos += THREADS.getCurrentThreadCpuTime() - start;
+			compressor = null;
+			bytesIn.inc(uncompressed);
+			bytesOut.inc(counter.count);
+			if (uncompressed > 0) ratio.update(100 * counter.count / uncompressed);
+			cpuTime.update(cpuNanos, TimeUnit.NANOSECONDS);
+		}
+
+		/**
+		 * Releases the native memory of the compressor, which closing the stream
+		 * would do as well, but the entity stream must stay open.
+		 */
+		private void end() {
+			if (deflater == null) return;
+			deflater.end();
+			deflater = null;
+			compressor = null;
+		}
+
+		private void startCompressing() throws IOException {
+			headers.putSingle(HttpHeaders.CONTENT_ENCODING, encoding);
+			headers.remove(HttpHeaders.CONTENT_LENGTH);
+			final Object etag = headers.getFirst(HttpHeaders.ETAG);
+			if (etag instanceof EntityTag && !((EntityTag) etag).isWeak()) {
+				headers.putSingle(HttpHeaders.ETAG, new EntityTag(((EntityTag) etag)
+					.getValue(), true));
+			}
+			counter = new CountingStream(out);
+			if (encoding.equals("gzip")) {
+				final LeveledGzipStream gzip = new LeveledGzipStream(counter, config
+					.getLevel());
+				deflater = gzip.getDeflater();
+				compressor = gzip;
+			}
+			else {
+				deflater = new Deflater(config.getLevel());
+				compressor = new DeflaterOutputStream(counter, deflater, 8192);
+			}
+			final byte[] buffered = buffer.toByteArray();
+			buffer = null;
+			write(buffered, 0, buffered.length);
+		}
+	}
+
+	/** Counts the bytes written to a stream. */
+	private static class CountingStream extends FilterOutputStream {
+
+		private long count;
+
+		private CountingStream(final OutputStream out) {
+			super(out);
+		}
+
+		@Override
+		public void write(final int b) throws IOException {
+			out.write(b);
+			count++;
+		}
+
+		@Override
+		public void write(final byte[] b, final int off, final int len)
+			throws IOException
+		{
+			out.write(b, off, len);
+			count += len;
+		}
+	}
+
+	/** A {@link GZIPOutputStream} with a configurable level. */
+	private static class LeveledGzipStream extends GZIPOutputStream {
+
+		private LeveledGzipStream(final OutputStream out, final int level)
+			throws IOException
+		{
+			super(out, 8192);
+			def.setLevel(level);
+		}
+
+		private Deflater getDeflater() {
+			return def;
+		}
+	}
+}
@@ -0,0 +1,69 @@
+/*
+ * #%L
+ * ImageJ server for RESTful access to ImageJ.
+ * %%
+ * Copyright (C) 2013 - 2026 Board of Regents of the University of
+ * Wisconsin-Madison.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package net.imagej.server.config;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import io.dropwizard.util.DataSize;
+import io.dropwizard.util.Duration;
+
+/**
+ * Configuration of the cache of encoded object downloads.
+ * <p>
+ * Cached artifacts live in spool files, so they also count against the
+ * {@link SpoolConfiguration#getMaxTotalSize() spool budget}. A maximum size of
+ * zero disables the cache.
+ * </p>
+ */
+public class ArtifactCacheConfiguration {
+
+	private DataSize maxSize = DataSize.megabytes(512);
+
+	private Duration expireAfter = Duration.minutes(30);
+
+	/** Gets the maximum total size of cached artifacts. */
+	@JsonProperty
+	public DataSize getMaxSize() {
+		return maxSize;
+	}
+
+	@JsonProperty
+	public void setMaxSize(final DataSize maxSize) {
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * Gets how long an artifact may be served from the cache. Objects can be
+	 * modified in place by modules, so cached encodings should not live forever.
+	 * Expired artifacts free their spool files when the next artifact is added,
+	 * or at the next {@link EvictionConfiguration#getInterval() eviction sweep}.
+	 */
+	@JsonProperty
+	public Duration getExpireAfter() {
+		return expireAfter;
+	}
+
+	@JsonProperty
+	public void setExpireAfter(final Duration expireAfter) {
+		this.expireAfter = expireAfter;
+	}
+}
@@ -0,0 +1,120 @@
+/*
+ * #%L
+ * ImageJ server for RESTful access to ImageJ.
+ * %%
+ * Copyright (C) 2013 - 2026 Board of Regents of the University of
+ * Wisconsin-Madison.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package net.imagej.server.config;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import io.dropwizard.util.DataSize;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+
+/**
+ * Configuration of response compression negotiated with
+ * {@code Accept-Encoding}.
+ * <p>
+ * Only responses of the listed media types are compressed, so that formats
+ * that are compressed already, such as PNG or JPEG, are sent as they are.
+ * </p>
+ */
+public class CompressionConfiguration {
+
+	private boolean enabled = true;
+
+	@NotNull
+	private DataSize minimumSize = DataSize.kilobytes(1);
+
+	@NotNull
+	private List<String> mediaTypes = new ArrayList<>(Arrays.asList(
+		"application/json", "text/csv", "text/plain", "text/tab-separated-values",
+		"text/html", "application/xml", "text/xml"));
+
+	@NotNull
+	private List<String> encodings = new ArrayList<>(Arrays.asList("gzip",
+		"deflate"));
+
+	@Min(-1)
+	@Max(9)
+	private int level = -1;
+
+	@JsonProperty
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	@JsonProperty
+	public void setEnabled(final boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	/** Gets the size below which responses are not worth compressing. */
+	@JsonProperty
+	public DataSize getMinimumSize() {
+		return minimumSize;
+	}
+
+	@JsonProperty
+	public void setMinimumSize(final DataSize minimumSize) {
+		this.minimumSize = minimumSize;
+	}
+
+	/** Gets the media types of responses that are compressed. */
+	@JsonProperty
+	public List<String> getMediaTypes() {
+		return mediaTypes;
+	}
+
+	@JsonProperty
+	public void setMediaTypes(final List<String> mediaTypes) {
+		this.mediaTypes = mediaTypes;
+	}
+
+	/**
+	 * Gets the supported content codings ({@code gzip} and {@code deflate}),
+	 * most preferred first.
+	 */
+	@JsonProperty
+	public List<String> getEncodings() {
+		return encodings;
+	}
+
+	@JsonProperty
+	public void setEncodings(final List<String> encodings) {
+		this.encodings = encodings;
+	}
+
+	/** Gets the deflate level, from 1 (fastest) to 9, or -1 for the default. */
+	@JsonProperty
+	public int getLevel() {
+		return level;
+	}
+
+	@JsonProperty
+	public void setLevel(final int level) {
+		this.level = level;
+	}
+}
@@ -0,0 +1,137 @@
+/*
+ * #%L
+ * ImageJ server for RESTful access to ImageJ.
+ * %%
+ * Copyright (C) 2013 - 2026 Board of Regents of the University of
+ * Wisconsin-Madison.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package net.imagej.server.config;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import io.dropwizard.util.DataSize;
+import io.dropwizard.util.Duration;
+
+import javax.validation.constraints.DecimalMax;
+import javax.validation.constraints.DecimalMin;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+
+/**
+ * Configuration of the eviction of registered objects.
+ * <p>
+ * When a limit is exceeded, objects that are neither pinned nor pending are
+ * removed, least recently used first. A limit of zero is no limit. The size of
+ * the objects is an estimate of their memory footprint, and is bounded both by
+ * {@link #getMaxSize()} and by a {@link #getMaxHeapFraction() fraction} of the
+ * maximum heap size.
+ * </p>
+ */
+public class EvictionConfiguration {
+
+	@Min(0)
+	private int maxCount = 0;
+
+	@NotNull
+	private DataSize maxSize = DataSize.bytes(0);
+
+	@DecimalMin("0")
+	@DecimalMax("1")
+	private double maxHeapFraction = 0;
+
+	@NotNull
+	private Duration maxAge = Duration.seconds(0);
+
+	@NotNull
+	private Duration maxIdle = Duration.seconds(0);
+
+	@NotNull
+	private Duration interval = Duration.minutes(1);
+
+	/** Gets the maximum number of objects. */
+	@JsonProperty
+	public int getMaxCount() {
+		return maxCount;
+	}
+
+	@JsonProperty
+	public void setMaxCount(final int maxCount) {
+		this.maxCount = maxCount;
+	}
+
+	/** Gets the maximum estimated size of all objects. */
+	@JsonProperty
+	public DataSize getMaxSize() {
+		return maxSize;
+	}
+
+	@JsonProperty
+	public void setMaxSize(final DataSize maxSize) {
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * Gets the maximum estimated size of all objects, as a fraction of the
+	 * maximum heap size.
+	 */
+	@JsonProperty
+	public double getMaxHeapFraction() {
+		return maxHeapFraction;
+	}
+
+	@JsonProperty
+	public void setMaxHeapFraction(final double maxHeapFraction) {
+		this.maxHeapFraction = maxHeapFraction;
+	}
+
+	/** Gets how long objects may live after they are created. */
+	@JsonProperty
+	public Duration getMaxAge() {
+		return maxAge;
+	}
+
+	@JsonProperty
+	public void setMaxAge(final Duration maxAge) {
+		this.maxAge = maxAge;
+	}
+
+	/** Gets how long objects may live without being looked up or used. */
+	@JsonProperty
+	public Duration getMaxIdle() {
+		return maxIdle;
+	}
+
+	@JsonProperty
+	public void setMaxIdle(final Duration maxIdle) {
+		this.maxIdle = maxIdle;
+	}
+
+	/**
+	 * Gets the time between checks for objects exceeding {@link #getMaxAge()}
+	 * or {@link #getMaxIdle()}, and for cached downloads past
+	 * {@link ArtifactCacheConfiguration#getExpireAfter()}.
+	 */
+	@JsonProperty
+	public Duration getInterval() {
+		return interval;
+	}
+
+	@JsonProperty
+	public void setInterval(final Duration interval) {
+		this.interval = interval;
+	}
+}
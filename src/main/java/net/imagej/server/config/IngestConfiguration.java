@@ -0,0 +1,83 @@
+/*
+ * #%L
+ * ImageJ server for RESTful access to ImageJ.
+ * %%
+ * Copyright (C) 2013 - 2026 Board of Regents of the University of
+ * Wisconsin-Madison.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package net.imagej.server.config;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import io.dropwizard.util.Duration;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+
+/**
+ * Configuration of asynchronous upload decoding.
+ */
+public class IngestConfiguration {
+
+	@Min(1)
+	private int threads = Runtime.getRuntime().availableProcessors();
+
+	@Min(0)
+	private int queueSize = 64;
+
+	@NotNull
+	private Duration pendingTimeout = Duration.minutes(5);
+
+	/** Gets the number of threads decoding uploads. */
+	@JsonProperty
+	public int getThreads() {
+		return threads;
+	}
+
+	@JsonProperty
+	public void setThreads(final int threads) {
+		this.threads = threads;
+	}
+
+	/**
+	 * Gets the number of uploads that may wait for a decoding thread. Further
+	 * asynchronous uploads are rejected until the queue drains.
+	 */
+	@JsonProperty
+	public int getQueueSize() {
+		return queueSize;
+	}
+
+	@JsonProperty
+	public void setQueueSize(final int queueSize) {
+		this.queueSize = queueSize;
+	}
+
+	/**
+	 * Gets how long module executions wait for inputs that are still being
+	 * decoded. Zero makes them fail right away.
+	 */
+	@JsonProperty
+	public Duration getPendingTimeout() {
+		return pendingTimeout;
+	}
+
+	@JsonProperty
+	public void setPendingTimeout(final Duration pendingTimeout) {
+		this.pendingTimeout = pendingTimeout;
+	}
+}
@@ -0,0 +1,68 @@
+/*
+ * #%L
+ * ImageJ server for RESTful access to ImageJ.
+ * %%
+ * Copyright (C) 2013 - 2026 Board of Regents of the University of
+ * Wisconsin-Madison.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package net.imagej.server.config;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import io.dropwizard.util.Duration;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+
+/**
+ * Configuration of module executions run as background jobs.
+ * <p>
+ * The records of finished jobs are kept for {@link #getTtl()}. At most
+ * {@link #getMaxJobs()} records are kept; the oldest finished ones are dropped
+ * first, and new jobs are rejected while that many are unfinished.
+ * </p>
+ */
+public class JobConfiguration {
+
+	@Min(1)
+	private int maxJobs = 1024;
+
+	@NotNull
+	private Duration ttl = Duration.hours(1);
+
+	/** Gets the maximum number of job records. */
+	@JsonProperty
+	public int getMaxJobs() {
+		return maxJobs;
+	}
+
+	@JsonProperty
+	public void setMaxJobs(final int maxJobs) {
+		this.maxJobs = maxJobs;
+	}
+
+	/** Gets how long finished jobs are kept; zero keeps them until dropped. */
+	@JsonProperty
+	public Duration getTtl() {
+		return ttl;
+	}
+
+	@JsonProperty
+	public void setTtl(final Duration ttl) {
+		this.ttl = ttl;
+	}
+}
@@ -0,0 +1,84 @@
+/*
+ * #%L
+ * ImageJ server for RESTful access to ImageJ.
+ * %%
+ * Copyright (C) 2013 - 2026 Board of Regents of the University of
+ * Wisconsin-Madison.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package net.imagej.server.config;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+
+/**
+ * Configuration of direct access to files on the server's file system.
+ * <p>
+ * Only files below one of the {@link #getReadRoots() read roots} may be
+ * opened by path, and objects may only be exported below one of the
+ * {@link #getWriteRoots() write roots}. By default there are none, which
+ * disables these features.
+ * </p>
+ */
+public class LocalFilesConfiguration {
+
+	@NotNull
+	private List<String> readRoots = new ArrayList<>();
+
+	@NotNull
+	private List<String> writeRoots = new ArrayList<>();
+
+	@Min(1)
+	private int exportThreads = 2;
+
+	/** Gets the directories below which files may be opened. */
+	@JsonProperty
+	public List<String> getReadRoots() {
+		return readRoots;
+	}
+
+	@JsonProperty
+	public void setReadRoots(final List<String> readRoots) {
+		this.readRoots = readRoots;
+	}
+
+	/** Gets the directories below which objects may be exported. */
+	@JsonProperty
+	public List<String> getWriteRoots() {
+		return writeRoots;
+	}
+
+	@JsonProperty
+	public void setWriteRoots(final List<String> writeRoots) {
+		this.writeRoots = writeRoots;
+	}
+
+	/** Gets the number of exports that may run at the same time. */
+	@JsonProperty
+	public int getExportThreads() {
+		return exportThreads;
+	}
+
+	@JsonProperty
+	public void setExportThreads(final int exportThreads) {
+		this.exportThreads = exportThreads;
+	}
+}
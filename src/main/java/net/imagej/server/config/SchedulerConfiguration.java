@@ -0,0 +1,132 @@
+/*
+ * #%L
+ * ImageJ server for RESTful access to ImageJ.
+ * %%
+ * Copyright (C) 2013 - 2026 Board of Regents of the University of
+ * Wisconsin-Madison.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package net.imagej.server.config;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import io.dropwizard.util.Duration;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+
+/**
+ * Configuration of the admission of module executions.
+ * <p>
+ * At most {@link #getMaxRunning()} modules run at a time, and at most
+ * {@link #getMaxRunningPerModule()} executions of the same module. Further
+ * executions wait for up to {@link #getQueueTimeout()}, but only
+ * {@link #getMaxQueued()} of them; others are rejected with
+ * {@code 429 Too Many Requests}. Jobs wait for as long as it takes instead.
+ * Zero limits mean no limit. By default, one module runs per processor, so
+ * that overload is turned away rather than slowing down every execution.
+ * </p>
+ * <p>
+ * All batches share {@link #getBatchParallelism()} threads for their
+ * executions; zero means one per processor.
+ * </p>
+ */
+public class SchedulerConfiguration {
+
+	@Min(0)
+	private int maxRunning = Runtime.getRuntime().availableProcessors();
+
+	@Min(0)
+	private int maxRunningPerModule = 0;
+
+	@Min(0)
+	private int maxQueued = 64;
+
+	@Min(0)
+	private int batchParallelism = 0;
+
+	@NotNull
+	private Duration queueTimeout = Duration.seconds(30);
+
+	@NotNull
+	private Duration retryAfter = Duration.seconds(5);
+
+	/** Gets the maximum number of modules running at a time. */
+	@JsonProperty
+	public int getMaxRunning() {
+		return maxRunning;
+	}
+
+	@JsonProperty
+	public void setMaxRunning(final int maxRunning) {
+		this.maxRunning = maxRunning;
+	}
+
+	/** Gets the maximum number of executions of one module at a time. */
+	@JsonProperty
+	public int getMaxRunningPerModule() {
+		return maxRunningPerModule;
+	}
+
+	@JsonProperty
+	public void setMaxRunningPerModule(final int maxRunningPerModule) {
+		this.maxRunningPerModule = maxRunningPerModule;
+	}
+
+	/** Gets the maximum number of executions waiting to run. */
+	@JsonProperty
+	public int getMaxQueued() {
+		return maxQueued;
+	}
+
+	@JsonProperty
+	public void setMaxQueued(final int maxQueued) {
+		this.maxQueued = maxQueued;
+	}
+
+	/** Gets the maximum number of executions of one batch at a time. */
+	@JsonProperty
+	public int getBatchParallelism() {
+		return batchParallelism;
+	}
+
+	@JsonProperty
+	public void setBatchParallelism(final int batchParallelism) {
+		this.batchParallelism = batchParallelism;
+	}
+
+	/** Gets how long an execution may wait to run before it is rejected. */
+	@JsonProperty
+	public Duration getQueueTimeout() {
+		return queueTimeout;
+	}
+
+	@JsonProperty
+	public void setQueueTimeout(final Duration queueTimeout) {
+		this.queueTimeout = queueTimeout;
+	}
+
+	/** Gets the delay suggested to rejected clients before they retry. */
+	@JsonProperty
+	public Duration getRetryAfter() {
+		return retryAfter;
+	}
+
+	@JsonProperty
+	public void setRetryAfter(final Duration retryAfter) {
+		this.retryAfter = retryAfter;
+	}
+}
@@ -0,0 +1,49 @@
+/*
+ * #%L
+ * ImageJ server for RESTful access to ImageJ.
+ * %%
+ * Copyright (C) 2013 - 2026 Board of Regents of the University of
+ * Wisconsin-Madison.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package net.imagej.server.config;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Configuration of the exchange of images through memory-mapped files with
+ * clients on the same host.
+ * <p>
+ * Images are shared as files in {@link #getDirectory()}, ideally on a memory
+ * file system such as {@code /dev/shm}. If no directory is set, which is the
+ * default, sharing is disabled.
+ * </p>
+ */
+public class SharedMemoryConfiguration {
+
+	private String directory;
+
+	/** Gets the directory of shared image files; sharing is off if null. */
+	@JsonProperty
+	public String getDirectory() {
+		return directory;
+	}
+
+	@JsonProperty
+	public void setDirectory(final String directory) {
+		this.directory = directory;
+	}
+}
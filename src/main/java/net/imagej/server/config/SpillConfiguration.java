@@ -0,0 +1,87 @@
+/*
+ * #%L
+ * ImageJ server for RESTful access to ImageJ.
+ * %%
+ * Copyright (C) 2013 - 2026 Board of Regents of the University of
+ * Wisconsin-Madison.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package net.imagej.server.config;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import io.dropwizard.util.DataSize;
+import io.dropwizard.util.Duration;
+
+import javax.validation.constraints.NotNull;
+
+/**
+ * Configuration of spilling cold images from memory to disk.
+ * <p>
+ * Instead of keeping large images in memory while they are not used, they are
+ * written to files in {@link #getDirectory()} and mapped back into memory when
+ * they are next used. If no directory is set, which is the default, images are
+ * never spilled.
+ * </p>
+ */
+public class SpillConfiguration {
+
+	private String directory;
+
+	@NotNull
+	private DataSize minSize = DataSize.megabytes(64);
+
+	@NotNull
+	private Duration idleTime = Duration.minutes(10);
+
+	/** Gets the directory of spilled image files; spilling is off if null. */
+	@JsonProperty
+	public String getDirectory() {
+		return directory;
+	}
+
+	@JsonProperty
+	public void setDirectory(final String directory) {
+		this.directory = directory;
+	}
+
+	/** Gets the estimated size below which images are never spilled. */
+	@JsonProperty
+	public DataSize getMinSize() {
+		return minSize;
+	}
+
+	@JsonProperty
+	public void setMinSize(final DataSize minSize) {
+		this.minSize = minSize;
+	}
+
+	/**
+	 * Gets how long an image may stay in memory without being looked up or
+	 * used. Images are also spilled, least recently used first, instead of
+	 * being evicted for their size. Zero means to spill only instead of
+	 * evicting.
+	 */
+	@JsonProperty
+	public Duration getIdleTime() {
+		return idleTime;
+	}
+
+	@JsonProperty
+	public void setIdleTime(final Duration idleTime) {
+		this.idleTime = idleTime;
+	}
+}
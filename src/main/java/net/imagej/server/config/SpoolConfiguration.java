@@ -0,0 +1,88 @@
+/*
+ * #%L
+ * ImageJ server for RESTful access to ImageJ.
+ * %%
+ * Copyright (C) 2013 - 2026 Board of Regents of the University of
+ * Wisconsin-Madison.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package net.imagej.server.config;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import io.dropwizard.util.DataSize;
+
+/**
+ * Configuration of the temporary storage used for uploaded and encoded data.
+ * <p>
+ * Payloads smaller than {@link #getThreshold()} are kept in memory; larger
+ * ones are spooled to files in {@link #getDirectory()} as they arrive.
+ * </p>
+ */
+public class SpoolConfiguration {
+
+	/** Directory for spool files; a fresh temporary directory if null. */
+	private String directory;
+
+	private DataSize threshold = DataSize.megabytes(16);
+
+	private DataSize maxRequestSize = DataSize.gigabytes(8);
+
+	private DataSize maxTotalSize = DataSize.gigabytes(32);
+
+	@JsonProperty
+	public String getDirectory() {
+		return directory;
+	}
+
+	@JsonProperty
+	public void setDirectory(final String directory) {
+		this.directory = directory;
+	}
+
+	/** Gets the size above which a payload is spooled to disk. */
+	@JsonProperty
+	public DataSize getThreshold() {
+		return threshold;
+	}
+
+	@JsonProperty
+	public void setThreshold(final DataSize threshold) {
+		this.threshold = threshold;
+	}
+
+	/** Gets the maximum size of a single spooled payload. */
+	@JsonProperty
+	public DataSize getMaxRequestSize() {
+		return maxRequestSize;
+	}
+
+	@JsonProperty
+	public void setMaxRequestSize(final DataSize maxRequestSize) {
+		this.maxRequestSize = maxRequestSize;
+	}
+
+	/** Gets the maximum size of all spooled payloads at any time. */
+	@JsonProperty
+	public DataSize getMaxTotalSize() {
+		return maxTotalSize;
+	}
+
+	@JsonProperty
+	public void setMaxTotalSize(final DataSize maxTotalSize) {
+		this.maxTotalSize = maxTotalSize;
+	}
+}
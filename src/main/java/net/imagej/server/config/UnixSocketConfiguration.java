@@ -0,0 +1,50 @@
+/*
+ * #%L
+ * ImageJ server for RESTful access to ImageJ.
+ * %%
+ * Copyright (C) 2013 - 2026 Board of Regents of the University of
+ * Wisconsin-Madison.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package net.imagej.server.config;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Configuration of an additional connector listening on a Unix domain socket,
+ * for clients on the same host that want to avoid the overhead of TCP.
+ * <p>
+ * The connector serves the same application as the HTTP connectors. Access to
+ * the socket is governed by the file system permissions of its directory. If
+ * no {@link #getPath() path} is set, which is the default, there is no such
+ * connector.
+ * </p>
+ */
+public class UnixSocketConfiguration {
+
+	private String path;
+
+	/** Gets the path of the socket file; no socket is opened if null. */
+	@JsonProperty
+	public String getPath() {
+		return path;
+	}
+
+	@JsonProperty
+	public void setPath(final String path) {
+		this.path = path;
+	}
+}
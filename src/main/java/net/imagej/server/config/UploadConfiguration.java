@@ -0,0 +1,52 @@
+/*
+ * #%L
+ * ImageJ server for RESTful access to ImageJ.
+ * %%
+ * Copyright (C) 2013 - 2026 Board of Regents of the University of
+ * Wisconsin-Madison.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package net.imagej.server.config;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import io.scif.config.SCIFIOConfig.ImgMode;
+
+import javax.validation.constraints.NotNull;
+
+/**
+ * Configuration of how uploaded files are opened.
+ */
+public class UploadConfiguration {
+
+	@NotNull
+	private ImgMode imgMode = ImgMode.AUTO;
+
+	/**
+	 * Gets the default image mode of uploaded images. {@link ImgMode#CELL}
+	 * keeps the uploaded file and loads planes from it on demand; the other
+	 * modes read all pixels into memory.
+	 */
+	@JsonProperty
+	public ImgMode getImgMode() {
+		return imgMode;
+	}
+
+	@JsonProperty
+	public void setImgMode(final ImgMode imgMode) {
+		this.imgMode = imgMode;
+	}
+}
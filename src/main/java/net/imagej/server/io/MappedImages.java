@@ -0,0 +1,290 @@
+/*
+ * #%L
+ * ImageJ server for RESTful access to ImageJ.
+ * %%
+ * Copyright (C) 2013 - 2026 Board of Regents of the University of
+ * Wisconsin-Madison.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package net.imagej.server.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+
+import net.imagej.ImgPlus;
+import net.imagej.axis.Axes;
+import net.imagej.axis.AxisType;
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.basictypeaccess.ByteAccess;
+import net.imglib2.img.basictypeaccess.DoubleAccess;
+import net.imglib2.img.basictypeaccess.FloatAccess;
+import net.imglib2.img.basictypeaccess.IntAccess;
+import net.imglib2.img.basictypeaccess.LongAccess;
+import net.imglib2.img.basictypeaccess.ShortAccess;
+import net.imglib2.type.numeric.integer.ByteType;
+import net.imglib2.type.numeric.integer.IntType;
+import net.imglib2.type.numeric.integer.LongType;
+import net.imglib2.type.numeric.integer.ShortType;
+import net.imglib2.type.numeric.integer.UnsignedByteType;
+import net.imglib2.type.numeric.integer.UnsignedIntType;
+import net.imglib2.type.numeric.integer.UnsignedShortType;
+import net.imglib2.type.numeric.real.DoubleType;
+import net.imglib2.type.numeric.real.FloatType;
+import net.imglib2.util.Fraction;
+
+/**
+ * Wraps memory-mapped files as images without copying their pixels.
+ * <p>
+ * The pixels are accessed through an {@link ArrayImg} whose accesses read and
+ * write the mapped buffers directly, so changes made by the server and by
+ * other processes mapping the same file are visible to each other. Files are
+ * mapped in chunks of 1 GB, since a single mapping cannot exceed 2 GB.
+ * </p>
+ */
+public final class MappedImages {
+
+	private static final int CHUNK_BITS = 30;
+
+	private static final long CHUNK_MASK = (1L << CHUNK_BITS) - 1;
+
+	private MappedImages() {
+		// NB: prevent instantiation of utility class.
+	}
+
+	/**
+	 * Maps the pixel data described by a header.
+	 * 
+	 * @param channel file to map, opened for reading and writing
+	 * @param header header describing the data
+	 * @param offset position of the first pixel in the file
+	 * @return the image, with the axes and name of the header
+	 * @throws IOException if the file is too short or the image too large
+	 */
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	public static ImgPlus<?> map(final FileChannel channel,
+		final RawImageHeader header, final long offset) throws IOException
+	{
+		final long n = header.numElements();
+		if (n > Integer.MAX_VALUE - 8) {
+			throw new IOException("Mapped image is too large for a single array: " +
+				n + " pixels");
+		}
+		final long length = header.dataLength();
+		if (offset < 0 || channel.size() < offset + length) {
+			throw new IOException("File is too short for the described image");
+		}
+		final ByteBuffer[] chunks = new ByteBuffer[(int) ((length +
+			CHUNK_MASK) >>> CHUNK_BITS)];
+		for (int i = 0; i < chunks.length; i++) {
+			final long start = (long) i << CHUNK_BITS;
+			chunks[i] = channel.map(MapMode.READ_WRITE, offset + start, Math.min(
+				length - start, 1L << CHUNK_BITS)).order(header.byteOrder());
+		}
+
+		final long[] dims = header.getDims();
+		final Fraction one = new Fraction();
+		final ArrayImg img;
+		switch (header.pixelType()) {
+			case UINT8:
+				img = new ArrayImg(new Bytes(chunks), dims, one);
+				img.setLinkedType(new UnsignedByteType(img));
+				break;
+			case INT8:
+				img = new ArrayImg(new Bytes(chunks), dims, one);
+				img.setLinkedType(new ByteType(img));
+				break;
+			case UINT16:
+				img = new ArrayImg(new Shorts(chunks), dims, one);
+				img.setLinkedType(new UnsignedShortType(img));
+				break;
+			case INT16:
+				img = new ArrayImg(new Shorts(chunks), dims, one);
+				img.setLinkedType(new ShortType(img));
+				break;
+			case UINT32:
+				img = new ArrayImg(new Ints(chunks), dims, one);
+				img.setLinkedType(new UnsignedIntType(img));
+				break;
+			case INT32:
+				img = new ArrayImg(new Ints(chunks), dims, one);
+				img.setLinkedType(new IntType(img));
+				break;
+			case INT64:
+				img = new ArrayImg(new Longs(chunks), dims, one);
+				img.setLinkedType(new LongType(img));
+				break;
+			case FLOAT32:
+				img = new ArrayImg(new Floats(chunks), dims, one);
+				img.setLinkedType(new FloatType(img));
+				break;
+			case FLOAT64:
+				img = new ArrayImg(new Doubles(chunks), dims, one);
+				img.setLinkedType(new DoubleType(img));
+				break;
+			default:
+				throw new IOException("Unsupported dtype: " + header.getDtype());
+		}
+
+		final String name = header.getName() == null ? "mapped" : header
+			.getName();
+		if (header.getAxes() == null) return new ImgPlus(img, name);
+		final AxisType[] axes = new AxisType[header.getAxes().length];
+		for (int d = 0; d < axes.length; d++) {
+			axes[d] = Axes.get(header.getAxes()[d]);
+		}
+		return new ImgPlus(img, name, axes);
+	}
+
+	// -- Helper classes --
+
+	/**
+	 * Base of the accesses, locating elements of a given size in the chunks.
+	 * Chunks hold a whole number of elements, so no element spans two chunks.
+	 */
+	private abstract static class MappedAccess {
+
+		private final ByteBuffer[] chunks;
+
+		private final int shift;
+
+		MappedAccess(final ByteBuffer[] chunks, final int shift) {
+			this.chunks = chunks;
+			this.shift = shift;
+		}
+
+		ByteBuffer chunk(final int index) {
+			return chunks[(int) (((long) index << shift) >>> CHUNK_BITS)];
+		}
+
+		int position(final int index) {
+			return (int) (((long) index << shift) & CHUNK_MASK);
+		}
+	}
+
+	private static final class Bytes extends MappedAccess implements
+		ByteAccess
+	{
+
+		Bytes(final ByteBuffer[] chunks) {
+			super(chunks, 0);
+		}
+
+		@Override
+		public byte getValue(final int index) {
+			return chunk(index).get(position(index));
+		}
+
+		@Override
+		public void setValue(final int index, final byte value) {
+			chunk(index).put(position(index), value);
+		}
+	}
+
+	private static final class Shorts extends MappedAccess implements
+		ShortAccess
+	{
+
+		Shorts(final ByteBuffer[] chunks) {
+			super(chunks, 1);
+		}
+
+		@Override
+		public short getValue(final int index) {
+			return chunk(index).getShort(position(index));
+		}
+
+		@Override
+		public void setValue(final int index, final short value) {
+			chunk(index).putShort(position(index), value);
+		}
+	}
+
+	private static final class Ints extends MappedAccess implements IntAccess {
+
+		Ints(final ByteBuffer[] chunks) {
+			super(chunks, 2);
+		}
+
+		@Override
+		public int getValue(final int index) {
+			return chunk(index).getInt(position(index));
+		}
+
+		@Override
+		public void setValue(final int index, final int value) {
+			chunk(index).putInt(position(index), value);
+		}
+	}
+
+	private static final class Longs extends MappedAccess implements
+		LongAccess
+	{
+
+		Longs(final ByteBuffer[] chunks) {
+			super(chunks, 3);
+		}
+
+		@Override
+		public long getValue(final int index) {
+			return chunk(index).getLong(position(index));
+		}
+
+		@Override
+		public void setValue(final int index, final long value) {
+			chunk(index).putLong(position(index), value);
+		}
+	}
+
+	private static final class Floats extends MappedAccess implements
+		FloatAccess
+	{
+
+		Floats(final ByteBuffer[] chunks) {
+			super(chunks, 2);
+		}
+
+		@Override
+		public float getValue(final int index) {
+			return chunk(index).getFloat(position(index));
+		}
+
+		@Override
+		public void setValue(final int index, final float value) {
+			chunk(index).putFloat(position(index), value);
+		}
+	}
+
+	private static final class Doubles extends MappedAccess implements
+		DoubleAccess
+	{
+
+		Doubles(final ByteBuffer[] chunks) {
+			super(chunks, 3);
+		}
+
+		@Override
+		public double getValue(final int index) {
+			return chunk(index).getDouble(position(index));
+		}
+
+		@Override
+		public void setValue(final int index, final double value) {
+			chunk(index).putDouble(position(index), value);
+		}
+	}
+}
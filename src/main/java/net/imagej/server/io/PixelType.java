@@ -0,0 +1,99 @@
+/*
+ * #%L
+ * ImageJ server for RESTful access to ImageJ.
+ * %%
+ * Copyright (C) 2013 - 2026 Board of Regents of the University of
+ * Wisconsin-Madison.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package net.imagej.server.io;
+
+import net.imglib2.type.numeric.integer.ByteType;
+import net.imglib2.type.numeric.integer.IntType;
+import net.imglib2.type.numeric.integer.LongType;
+import net.imglib2.type.numeric.integer.ShortType;
+import net.imglib2.type.numeric.integer.UnsignedByteType;
+import net.imglib2.type.numeric.integer.UnsignedIntType;
+import net.imglib2.type.numeric.integer.UnsignedShortType;
+import net.imglib2.type.numeric.real.DoubleType;
+import net.imglib2.type.numeric.real.FloatType;
+
+/**
+ * Pixel types that can be exchanged as raw primitive data, named after their
+ * NumPy dtypes.
+ */
+public enum PixelType {
+
+	UINT8("uint8", 1, UnsignedByteType.class), //
+	INT8("int8", 1, ByteType.class), //
+	UINT16("uint16", 2, UnsignedShortType.class), //
+	INT16("int16", 2, ShortType.class), //
+	UINT32("uint32", 4, UnsignedIntType.class), //
+	INT32("int32", 4, IntType.class), //
+	INT64("int64", 8, LongType.class), //
+	FLOAT32("float32", 4, FloatType.class), //
+	FLOAT64("float64", 8, DoubleType.class);
+
+	private final String dtype;
+
+	private final int bytes;
+
+	private final Class<?> typeClass;
+
+	private PixelType(final String dtype, final int bytes,
+		final Class<?> typeClass)
+	{
+		this.dtype = dtype;
+		this.bytes = bytes;
+		this.typeClass = typeClass;
+	}
+
+	/** Gets the NumPy name of this type. */
+	public String getDtype() {
+		return dtype;
+	}
+
+	/** Gets the number of bytes per pixel. */
+	public int getBytes() {
+		return bytes;
+	}
+
+	/**
+	 * Gets the pixel type of the given ImgLib2 type instance.
+	 * 
+	 * @param type a pixel of an image
+	 * @return the matching pixel type, or null if it is not supported
+	 */
+	public static PixelType of(final Object type) {
+		for (final PixelType pt : values()) {
+			if (pt.typeClass == type.getClass()) return pt;
+		}
+		return null;
+	}
+
+	/**
+	 * Gets the pixel type with the given NumPy name.
+	 * 
+	 * @param dtype NumPy name, e.g. {@code uint16}
+	 * @return the matching pixel type, or null if it is not supported
+	 */
+	public static PixelType fromDtype(final String dtype) {
+		for (final PixelType pt : values()) {
+			if (pt.dtype.equals(dtype)) return pt;
+		}
+		return null;
+	}
+}
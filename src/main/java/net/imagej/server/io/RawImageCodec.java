@@ -0,0 +1,458 @@
+/*
+ * #%L
+ * ImageJ server for RESTful access to ImageJ.
+ * %%
+ * Copyright (C) 2013 - 2026 Board of Regents of the University of
+ * Wisconsin-Madison.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package net.imagej.server.io;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+import net.imagej.ImgPlus;
+import net.imagej.axis.Axes;
+import net.imagej.axis.AxisType;
+import net.imglib2.Cursor;
+import net.imglib2.img.Img;
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.img.basictypeaccess.array.ArrayDataAccess;
+import net.imglib2.img.planar.PlanarImg;
+import net.imglib2.type.numeric.IntegerType;
+import net.imglib2.type.numeric.RealType;
+import net.imglib2.view.Views;
+
+/**
+ * Reads and writes images as a JSON {@link RawImageHeader} line followed by the
+ * raw primitive pixel data.
+ * <p>
+ * Images backed by {@link ArrayImg} or {@link PlanarImg} are written straight
+ * from their storage arrays; other images fall back to a cursor. Reading always
+ * produces an {@link ArrayImg}.
+ * </p>
+ */
+public final class RawImageCodec {
+
+	private static final ObjectMapper mapper = new ObjectMapper();
+
+	private static final int CHUNK_SIZE = 64 * 1024;
+
+	private static final int MAX_HEADER_SIZE = 64 * 1024;
+
+	/** Maximum number of pixels of a single array. */
+	private static final long MAX_ELEMENTS = Integer.MAX_VALUE - 8;
+
+	private RawImageCodec() {
+		// NB: prevent instantiation of utility class.
+	}
+
+	/**
+	 * Describes the given image.
+	 * 
+	 * @param imgPlus image to describe
+	 * @param byteOrder byte order of the data to be written
+	 * @return header of the image
+	 * @throws IllegalArgumentException if the pixel type is not supported
+	 */
+	public static RawImageHeader header(final ImgPlus<?> imgPlus,
+		final ByteOrder byteOrder)
+	{
+		final PixelType pixelType = PixelType.of(imgPlus.firstElement());
+		if (pixelType == null) {
+			throw new IllegalArgumentException("Unsupported pixel type: " + imgPlus
+				.firstElement().getClass().getName());
+		}
+		final int n = imgPlus.numDimensions();
+		final long[] dims = new long[n];
+		final String[] axes = new String[n];
+		for (int d = 0; d < n; d++) {
+			dims[d] = imgPlus.dimension(d);
+			axes[d] = imgPlus.axis(d).type().getLabel();
+		}
+		final RawImageHeader header = new RawImageHeader();
+		header.setName(imgPlus.getName());
+		header.setDims(dims);
+		header.setAxes(axes);
+		header.setDtype(pixelType.getDtype());
+		header.setByteOrder(byteOrder == ByteOrder.BIG_ENDIAN
+			? RawImageHeader.BIG_ENDIAN : RawImageHeader.LITTLE_ENDIAN);
+		return header;
+	}
+
+	/**
+	 * Serializes a header as a single line of JSON.
+	 * 
+	 * @param header header to serialize
+	 * @return UTF-8 bytes of the header, terminated by a newline
+	 * @throws IOException if serialization fails
+	 */
+	public static byte[] headerBytes(final RawImageHeader header)
+		throws IOException
+	{
+		return (mapper.writeValueAsString(header) + "\n").getBytes(
+			StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Writes the pixel data of an image.
+	 * 
+	 * @param imgPlus image to write
+	 * @param header header describing the image
+	 * @param out stream to write to
+	 * @throws IOException if writing fails
+	 */
+	public static void writeData(final ImgPlus<?> imgPlus,
+		final RawImageHeader header, final OutputStream out) throws IOException
+	{
+		final PixelType pixelType = header.pixelType();
+		final ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE).order(header
+			.byteOrder());
+		final Img<?> img = unwrap(imgPlus);
+		final long n = header.numElements();
+
+		if (img instanceof ArrayImg) {
+			final Object access = ((ArrayImg<?, ?>) img).update(null);
+			if (access instanceof ArrayDataAccess) {
+				writeArray(((ArrayDataAccess<?>) access).getCurrentStorageArray(),
+					(int) n, out, buffer);
+				return;
+			}
+		}
+		if (img instanceof PlanarImg) {
+			final PlanarImg<?, ?> planar = (PlanarImg<?, ?>) img;
+			final int planeSize = (int) (n / planar.numSlices());
+			if (planar.getPlane(0) instanceof ArrayDataAccess) {
+				for (int i = 0; i < planar.numSlices(); i++) {
+					writeArray(((ArrayDataAccess<?>) planar.getPlane(i))
+						.getCurrentStorageArray(), planeSize, out, buffer);
+				}
+				return;
+			}
+		}
+
+		// NB: fall back to copying pixel by pixel.
+		final Cursor<?> cursor = Views.flatIterable(img).cursor();
+		while (cursor.hasNext()) {
+			if (buffer.remaining() < 8) flush(buffer, out);
+			put(buffer, pixelType, cursor.next());
+		}
+		flush(buffer, out);
+	}
+
+	/**
+	 * Reads a header line.
+	 * 
+	 * @param in stream positioned at the start of the header
+	 * @return the parsed header, which describes at most as many pixels as fit
+	 *         in a single array
+	 * @throws IOException if the header is missing, too long or invalid
+	 */
+	public static RawImageHeader readHeader(final InputStream in)
+		throws IOException
+	{
+		final ByteArrayOutputStream line = new ByteArrayOutputStream();
+		int b;
+		while ((b = in.read()) != '\n') {
+			if (b < 0) throw new IOException("Unexpected end of raw image header");
+			if (line.size() >= MAX_HEADER_SIZE) {
+				throw new IOException("Raw image header is too long");
+			}
+			line.write(b);
+		}
+		final RawImageHeader header = mapper.readValue(line.toByteArray(),
+			RawImageHeader.class);
+		try {
+			header.validate();
+		}
+		catch (final IllegalArgumentException exc) {
+			throw new IOException("Invalid raw image header: " + exc.getMessage());
+		}
+		if (header.numElements() > MAX_ELEMENTS) {
+			throw new IOException("Raw image is too large for a single array: " +
+				header.numElements() + " pixels");
+		}
+		return header;
+	}
+
+	/**
+	 * Reads the pixel data described by a header into a new image. The whole
+	 * array is allocated up front, so the caller must make sure that the header
+	 * describes no more data than the request can hold.
+	 * 
+	 * @param header header describing the data, as validated by
+	 *          {@link #readHeader}
+	 * @param in stream positioned at the start of the data
+	 * @return the image, with the axes and name of the header
+	 * @throws IOException if the data is truncated or too large
+	 */
+	public static ImgPlus<?> readData(final RawImageHeader header,
+		final InputStream in) throws IOException
+	{
+		final long n = header.numElements();
+		if (n > MAX_ELEMENTS) {
+			throw new IOException("Raw image is too large for a single array: " +
+				n + " pixels");
+		}
+		final long[] dims = header.getDims();
+		final Img<?> img;
+		switch (header.pixelType()) {
+			case UINT8:
+				img = ArrayImgs.unsignedBytes(readBytes(in, (int) n), dims);
+				break;
+			case INT8:
+				img = ArrayImgs.bytes(readBytes(in, (int) n), dims);
+				break;
+			case UINT16:
+				img = ArrayImgs.unsignedShorts(readShorts(in, (int) n, header), dims);
+				break;
+			case INT16:
+				img = ArrayImgs.shorts(readShorts(in, (int) n, header), dims);
+				break;
+			case UINT32:
+				img = ArrayImgs.unsignedInts(readInts(in, (int) n, header), dims);
+				break;
+			case INT32:
+				img = ArrayImgs.ints(readInts(in, (int) n, header), dims);
+				break;
+			case INT64:
+				img = ArrayImgs.longs(readLongs(in, (int) n, header), dims);
+				break;
+			case FLOAT32:
+				img = ArrayImgs.floats(readFloats(in, (int) n, header), dims);
+				break;
+			case FLOAT64:
+				img = ArrayImgs.doubles(readDoubles(in, (int) n, header), dims);
+				break;
+			default:
+				throw new IOException("Unsupported dtype: " + header.getDtype());
+		}
+		return wrap(img, header);
+	}
+
+	// -- Helper methods --
+
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	private static ImgPlus<?> wrap(final Img<?> img,
+		final RawImageHeader header)
+	{
+		final String name = header.getName() == null ? "raw" : header.getName();
+		if (header.getAxes() == null) return new ImgPlus(img, name);
+		final AxisType[] axes = new AxisType[header.getAxes().length];
+		for (int d = 0; d < axes.length; d++) {
+			axes[d] = Axes.get(header.getAxes()[d]);
+		}
+		return new ImgPlus(img, name, axes);
+	}
+
+	private static Img<?> unwrap(final ImgPlus<?> imgPlus) {
+		Img<?> img = imgPlus.getImg();
+		while (img instanceof ImgPlus) {
+			img = ((ImgPlus<?>) img).getImg();
+		}
+		return img;
+	}
+
+	private static void put(final ByteBuffer buffer, final PixelType pixelType,
+		final Object pixel)
+	{
+		switch (pixelType) {
+			case FLOAT32:
+				buffer.putFloat(((RealType<?>) pixel).getRealFloat());
+				break;
+			case FLOAT64:
+				buffer.putDouble(((RealType<?>) pixel).getRealDouble());
+				break;
+			default:
+				final long value = ((IntegerType<?>) pixel).getIntegerLong();
+				switch (pixelType.getBytes()) {
+					case 1:
+						buffer.put((byte) value);
+						break;
+					case 2:
+						buffer.putShort((short) value);
+						break;
+					case 4:
+						buffer.putInt((int) value);
+						break;
+					default:
+						buffer.putLong(value);
+				}
+		}
+	}
+
+	private static void flush(final ByteBuffer buffer, final OutputStream out)
+		throws IOException
+	{
+		out.write(buffer.array(), 0, buffer.position());
+		buffer.clear();
+	}
+
+	/**
+	 * Writes the first {@code count} elements of a primitive array, converting
+	 * them to bytes one chunk at a time.
+	 */
+	private static void writeArray(final Object array, final int count,
+		final OutputStream out, final ByteBuffer buffer) throws IOException
+	{
+		if (array instanceof byte[]) {
+			out.write((byte[]) array, 0, count);
+			return;
+		}
+		int pos = 0;
+		while (pos < count) {
+			buffer.clear();
+			final int n;
+			if (array instanceof short[]) {
+				n = Math.min(count - pos, buffer.capacity() / 2);
+				buffer.asShortBuffer().put((short[]) array, pos, n);
+				out.write(buffer.array(), 0, n * 2);
+			}
+			else if (array instanceof int[]) {
+				n = Math.min(count - pos, buffer.capacity() / 4);
+				buffer.asIntBuffer().put((int[]) array, pos, n);
+				out.write(buffer.array(), 0, n * 4);
+			}
+			else if (array instanceof long[]) {
+				n = Math.min(count - pos, buffer.capacity() / 8);
+				buffer.asLongBuffer().put((long[]) array, pos, n);
+				out.write(buffer.array(), 0, n * 8);
+			}
+			else if (array instanceof float[]) {
+				n = Math.min(count - pos, buffer.capacity() / 4);
+				buffer.asFloatBuffer().put((float[]) array, pos, n);
+				out.write(buffer.array(), 0, n * 4);
+			}
+			else if (array instanceof double[]) {
+				n = Math.min(count - pos, buffer.capacity() / 8);
+				buffer.asDoubleBuffer().put((double[]) array, pos, n);
+				out.write(buffer.array(), 0, n * 8);
+			}
+			else {
+				throw new IOException("Unsupported storage array: " + array.getClass()
+					.getName());
+			}
+			pos += n;
+		}
+		buffer.clear();
+	}
+
+	private static byte[] readBytes(final InputStream in, final int n)
+		throws IOException
+	{
+		final byte[] array = new byte[n];
+		new DataInputStream(in).readFully(array);
+		return array;
+	}
+
+	/**
+	 * Reads the next chunk of at most {@code remaining} elements of the given
+	 * size into the buffer, and returns the number of elements read.
+	 */
+	private static int readChunk(final DataInputStream in,
+		final ByteBuffer buffer, final int remaining, final int bytes)
+		throws IOException
+	{
+		final int n = Math.min(remaining, buffer.capacity() / bytes);
+		in.readFully(buffer.array(), 0, n * bytes);
+		buffer.clear();
+		return n;
+	}
+
+	private static short[] readShorts(final InputStream in, final int count,
+		final RawImageHeader header) throws IOException
+	{
+		final short[] array = new short[count];
+		final DataInputStream din = new DataInputStream(in);
+		final ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE).order(header
+			.byteOrder());
+		for (int pos = 0; pos < count;) {
+			final int n = readChunk(din, buffer, count - pos, 2);
+			buffer.asShortBuffer().get(array, pos, n);
+			pos += n;
+		}
+		return array;
+	}
+
+	private static int[] readInts(final InputStream in, final int count,
+		final RawImageHeader header) throws IOException
+	{
+		final int[] array = new int[count];
+		final DataInputStream din = new DataInputStream(in);
+		final ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE).order(header
+			.byteOrder());
+		for (int pos = 0; pos < count;) {
+			final int n = readChunk(din, buffer, count - pos, 4);
+			buffer.asIntBuffer().get(array, pos, n);
+			pos += n;
+		}
+		return array;
+	}
+
+	private static long[] readLongs(final InputStream in, final int count,
+		final RawImageHeader header) throws IOException
+	{
+		final long[] array = new long[count];
+		final DataInputStream din = new DataInputStream(in);
+		final ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE).order(header
+			.byteOrder());
+		for (int pos = 0; pos < count;) {
+			final int n = readChunk(din, buffer, count - pos, 8);
+			buffer.asLongBuffer().get(array, pos, n);
+			pos += n;
+		}
+		return array;
+	}
+
+	private static float[] readFloats(final InputStream in, final int count,
+		final RawImageHeader header) throws IOException
+	{
+		final float[] array = new float[count];
+		final DataInputStream din = new DataInputStream(in);
+		final ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE).order(header
+			.byteOrder());
+		for (int pos = 0; pos < count;) {
+			final int n = readChunk(din, buffer, count - pos, 4);
+			buffer.asFloatBuffer().get(array, pos, n);
+			pos += n;
+		}
+		return array;
+	}
+
+	private static double[] readDoubles(final InputStream in, final int count,
+		final RawImageHeader header) throws IOException
+	{
+		final double[] array = new double[count];
+		final DataInputStream din = new DataInputStream(in);
+		final ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE).order(header
+			.byteOrder());
+		for (int pos = 0; pos < count;) {
+			final int n = readChunk(din, buffer, count - pos, 8);
+			buffer.asDoubleBuffer().get(array, pos, n);
+			pos += n;
+		}
+		return array;
+	}
+}
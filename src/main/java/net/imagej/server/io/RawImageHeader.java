@@ -0,0 +1,185 @@
+/*
+ * #%L
+ * ImageJ server for RESTful access to ImageJ.
+ * %%
+ * Copyright (C) 2013 - 2026 Board of Regents of the University of
+ * Wisconsin-Madison.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package net.imagej.server.io;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.nio.ByteOrder;
+
+/**
+ * Description of raw pixel data: dimensions, axis types, pixel type and byte
+ * order. Pixels are stored with the first dimension varying fastest, i.e. in
+ * Fortran order with respect to {@link #getDims()}.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class RawImageHeader {
+
+	public static final String LITTLE_ENDIAN = "little";
+
+	public static final String BIG_ENDIAN = "big";
+
+	private String name;
+
+	private long[] dims;
+
+	private String[] axes;
+
+	private String dtype;
+
+	private String byteOrder = LITTLE_ENDIAN;
+
+	@JsonProperty
+	public String getName() {
+		return name;
+	}
+
+	@JsonProperty
+	public void setName(final String name) {
+		this.name = name;
+	}
+
+	@JsonProperty
+	public long[] getDims() {
+		return dims;
+	}
+
+	@JsonProperty
+	public void setDims(final long[] dims) {
+		this.dims = dims;
+	}
+
+	/** Gets the axis type labels, e.g. {@code X}, {@code Y}, {@code Channel}. */
+	@JsonProperty
+	public String[] getAxes() {
+		return axes;
+	}
+
+	@JsonProperty
+	public void setAxes(final String[] axes) {
+		this.axes = axes;
+	}
+
+	/** Gets the NumPy name of the pixel type; see {@link PixelType}. */
+	@JsonProperty
+	public String getDtype() {
+		return dtype;
+	}
+
+	@JsonProperty
+	public void setDtype(final String dtype) {
+		this.dtype = dtype;
+	}
+
+	/** Gets the byte order, either {@code little} or {@code big}. */
+	@JsonProperty
+	public String getByteOrder() {
+		return byteOrder;
+	}
+
+	@JsonProperty
+	public void setByteOrder(final String byteOrder) {
+		this.byteOrder = byteOrder;
+	}
+
+	/** Gets the memory order of the pixels; always {@code F}. */
+	@JsonProperty
+	public String getOrder() {
+		return "F";
+	}
+
+	@JsonIgnore
+	public PixelType pixelType() {
+		return PixelType.fromDtype(dtype);
+	}
+
+	/**
+	 * Gets the byte order of the data.
+	 * 
+	 * @throws IllegalArgumentException if the byte order is not supported
+	 */
+	@JsonIgnore
+	public ByteOrder byteOrder() {
+		return toByteOrder(byteOrder);
+	}
+
+	@JsonIgnore
+	public long numElements() {
+		long n = 1;
+		for (final long d : dims) {
+			n *= d;
+		}
+		return n;
+	}
+
+	/** Gets the number of bytes of pixel data described by this header. */
+	@JsonIgnore
+	public long dataLength() {
+		return numElements() * pixelType().getBytes();
+	}
+
+	/**
+	 * Converts the name of a byte order to a {@link ByteOrder}.
+	 * 
+	 * @param name {@link #LITTLE_ENDIAN}, {@link #BIG_ENDIAN} or {@code null}
+	 *          for the default little-endian order
+	 * @throws IllegalArgumentException if the byte order is not supported
+	 */
+	public static ByteOrder toByteOrder(final String name) {
+		if (name == null || LITTLE_ENDIAN.equals(name)) {
+			return ByteOrder.LITTLE_ENDIAN;
+		}
+		if (BIG_ENDIAN.equals(name)) return ByteOrder.BIG_ENDIAN;
+		throw new IllegalArgumentException("Unsupported byte order: " + name);
+	}
+
+	/**
+	 * Checks that this header describes valid data: positive dims whose size in
+	 * bytes fits in a {@code long}, matching axes, and a supported pixel type
+	 * and byte order. Headers sent by clients must be checked before their
+	 * sizes are used.
+	 * 
+	 * @throws IllegalArgumentException if the header is invalid
+	 */
+	public void validate() {
+		if (dims == null || pixelType() == null) {
+			throw new IllegalArgumentException(
+				"Image needs dims and a supported dtype");
+		}
+		if (axes != null && axes.length != dims.length) {
+			throw new IllegalArgumentException("Image has mismatching dims and axes");
+		}
+		long length = pixelType().getBytes();
+		for (final long d : dims) {
+			if (d <= 0) throw new IllegalArgumentException("Dims must be positive");
+			if (length > Long.MAX_VALUE / d) {
+				throw new IllegalArgumentException("Image is too large");
+			}
+			length *= d;
+		}
+		if (byteOrder == null) {
+			throw new IllegalArgumentException("Byte order must not be null");
+		}
+		byteOrder();
+	}
+}
@@ -0,0 +1,90 @@
+/*
+ * #%L
+ * ImageJ server for RESTful access to ImageJ.
+ * %%
+ * Copyright (C) 2013 - 2026 Board of Regents of the University of
+ * Wisconsin-Madison.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package net.imagej.server.io;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Description of an image held in a shared memory-mapped file: a
+ * {@link RawImageHeader} plus the file, the offset of the pixel data in it and
+ * the byte strides of the dimensions, so that clients can wrap the mapping
+ * directly, e.g. with {@code numpy.ndarray(dims, dtype, buffer, offset,
+ * strides)}.
+ */
+public class SharedImageHeader extends RawImageHeader {
+
+	private String file;
+
+	private String path;
+
+	private long offset;
+
+	/** Gets the name of the file within the shared memory directory. */
+	@JsonProperty
+	public String getFile() {
+		return file;
+	}
+
+	@JsonProperty
+	public void setFile(final String file) {
+		this.file = file;
+	}
+
+	/** Gets the absolute path of the file, as set by the server. */
+	@JsonProperty
+	public String getPath() {
+		return path;
+	}
+
+	@JsonProperty
+	public void setPath(final String path) {
+		this.path = path;
+	}
+
+	/** Gets the position of the first pixel in the file, in bytes. */
+	@JsonProperty
+	public long getOffset() {
+		return offset;
+	}
+
+	@JsonProperty
+	public void setOffset(final long offset) {
+		this.offset = offset;
+	}
+
+	/**
+	 * Gets the distance in bytes between neighbouring pixels along each
+	 * dimension. The first dimension varies fastest.
+	 */
+	@JsonProperty
+	public long[] getStrides() {
+		final long[] dims = getDims();
+		if (dims == null || pixelType() == null) return null;
+		final long[] strides = new long[dims.length];
+		long stride = pixelType().getBytes();
+		for (int d = 0; d < dims.length; d++) {
+			strides[d] = stride;
+			stride *= dims[d];
+		}
+		return strides;
+	}
+}
@@ -0,0 +1,113 @@
+/*
+ * #%L
+ * ImageJ server for RESTful access to ImageJ.
+ * %%
+ * Copyright (C) 2013 - 2026 Board of Regents of the University of
+ * Wisconsin-Madison.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package net.imagej.server.jetty;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.jetty9.InstrumentedConnectionFactory;
+
+import io.dropwizard.jetty.HttpConnectorFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import javax.annotation.Nullable;
+
+import org.eclipse.jetty.io.ByteBufferPool;
+import org.eclipse.jetty.server.Connector;
+import org.eclipse.jetty.server.HttpConnectionFactory;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.unixsocket.UnixSocketConnector;
+import org.eclipse.jetty.util.thread.ScheduledExecutorScheduler;
+import org.eclipse.jetty.util.thread.ThreadPool;
+
+/**
+ * Builds connectors that serve HTTP on a Unix domain socket instead of a TCP
+ * port. All HTTP settings of {@link HttpConnectorFactory} apply, except for
+ * the host and port.
+ */
+public class UnixSocketConnectorFactory extends HttpConnectorFactory {
+
+	private final String path;
+
+	/**
+	 * @param path path of the socket file
+	 */
+	public UnixSocketConnectorFactory(final String path) {
+		this.path = path;
+	}
+
+	/** Gets the path of the socket file. */
+	public String getPath() {
+		return path;
+	}
+
+	/**
+	 * Builds the connector. A socket file left behind by an earlier run is
+	 * removed first, since it would prevent binding the socket; other kinds of
+	 * files at the path are left alone.
+	 */
+	@Override
+	public Connector build(final Server server, final MetricRegistry metrics,
+		final String name, @Nullable final ThreadPool threadPool)
+	{
+		removeStaleSocket(Paths.get(path));
+
+		final HttpConnectionFactory httpConnectionFactory =
+			buildHttpConnectionFactory(buildHttpConfiguration());
+		final ByteBufferPool bufferPool = buildBufferPool();
+		final UnixSocketConnector connector = new UnixSocketConnector(server,
+			threadPool, new ScheduledExecutorScheduler(), bufferPool,
+			getSelectorThreads().orElse(-1), new InstrumentedConnectionFactory(
+				httpConnectionFactory, metrics.timer(MetricRegistry.name(
+					UnixSocketConnectorFactory.class, "connections"))));
+		connector.setUnixSocket(path);
+		if (getAcceptQueueSize() != null) {
+			connector.setAcceptQueueSize(getAcceptQueueSize());
+		}
+		connector.setIdleTimeout(getIdleTimeout().toMilliseconds());
+		connector.setName(name);
+		return connector;
+	}
+
+	// -- Helper methods --
+
+	private static void removeStaleSocket(final Path socket) {
+		if (!Files.exists(socket, LinkOption.NOFOLLOW_LINKS)) return;
+		if (Files.isRegularFile(socket, LinkOption.NOFOLLOW_LINKS) || Files
+			.isDirectory(socket, LinkOption.NOFOLLOW_LINKS) || Files.isSymbolicLink(
+				socket))
+		{
+			return;
+		}
+		try {
+			Files.delete(socket);
+		}
+		catch (final IOException exc) {
+			throw new UncheckedIOException("Cannot remove stale socket " + socket,
+				exc);
+		}
+	}
+}
@@ -0,0 +1,117 @@
+/*
+ * #%L
+ * ImageJ server for RESTful access to ImageJ.
+ * %%
+ * Copyright (C) 2013 - 2026 Board of Regents of the University of
+ * Wisconsin-Madison.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package net.imagej.server.resources;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An inclusive range of bytes requested through an HTTP {@code Range} header.
+ */
+public final class ByteRange {
+
+	/** Maximum number of ranges honoured in a single request. */
+	public static final int MAX_RANGES = 32;
+
+	private static final String UNIT = "bytes=";
+
+	private final long first;
+
+	private final long last;
+
+	public ByteRange(final long first, final long last) {
+		this.first = first;
+		this.last = last;
+	}
+
+	public long getFirst() {
+		return first;
+	}
+
+	public long getLast() {
+		return last;
+	}
+
+	public long length() {
+		return last - first + 1;
+	}
+
+	/**
+	 * Formats the range as the value of a {@code Content-Range} header.
+	 * 
+	 * @param total length of the complete representation
+	 * @return the header value
+	 */
+	public String toContentRange(final long total) {
+		return "bytes " + first + "-" + last + "/" + total;
+	}
+
+	/**
+	 * Parses a {@code Range} header against a representation of the given
+	 * length, following RFC 7233.
+	 * 
+	 * @param header value of the {@code Range} header
+	 * @param total length of the complete representation
+	 * @return the satisfiable ranges, which is empty if none is satisfiable; or
+	 *         null if the header should be ignored because it is absent,
+	 *         malformed or asks for too many ranges
+	 */
+	public static List<ByteRange> parse(final String header, final long total) {
+		if (header == null || !header.startsWith(UNIT)) return null;
+		final String[] specs = header.substring(UNIT.length()).split(",");
+		if (specs.length > MAX_RANGES) return null;
+
+		final List<ByteRange> ranges = new ArrayList<>(specs.length);
+		for (final String s : specs) {
+			final String spec = s.trim();
+			final int dash = spec.indexOf('-');
+			if (dash < 0) return null;
+			final long first;
+			final long last;
+			try {
+				if (dash == 0) {
+					// suffix range: the final N bytes
+					final long suffix = Long.parseLong(spec.substring(1));
+					if (suffix <= 0) continue;
+					first = Math.max(0, total - suffix);
+					last = total - 1;
+				}
+				else {
+					first = Long.parseLong(spec.substring(0, dash));
+					if (dash == spec.length() - 1) {
+						last = total - 1;
+					}
+					else {
+						final long requested = Long.parseLong(spec.substring(dash + 1));
+						if (requested < first) return null;
+						last = Math.min(total - 1, requested);
+					}
+				}
+			}
+			catch (final NumberFormatException exc) {
+				return null;
+			}
+			if (first < total) ranges.add(new ByteRange(first, last));
+		}
+		return ranges;
+	}
+}
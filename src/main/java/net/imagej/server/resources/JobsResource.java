@@ -0,0 +1,88 @@
+/*
+ * #%L
+ * ImageJ server for RESTful access to ImageJ.
+ * %%
+ * Copyright (C) 2013 - 2026 Board of Regents of the University of
+ * Wisconsin-Madison.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package net.imagej.server.resources;
+
+import com.codahale.metrics.annotation.Timed;
+
+import javax.inject.Inject;
+import javax.ws.rs.DELETE;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response.Status;
+
+import net.imagej.server.services.JobService;
+import net.imagej.server.services.JobStatus;
+
+/**
+ * Server resource that manages module executions run as background jobs; see
+ * {@link ModulesResource#runModule}.
+ */
+@Path("/jobs")
+@Produces(MediaType.APPLICATION_JSON)
+public class JobsResource {
+
+	@Inject
+	private JobService jobService;
+
+	/**
+	 * Shows the progress of a job: {@code pending}, {@code running},
+	 * {@code done}, {@code failed} or {@code cancelled}, with the time spent
+	 * waiting and running, and the outputs once done.
+	 *
+	 * @param jobId job ID
+	 * @return the job status
+	 */
+	@GET
+	@Path("{jobId}")
+	@Timed
+	public JobStatus getJob(@PathParam("jobId") final String jobId) {
+		return found(jobService.getStatus(jobId));
+	}
+
+	/**
+	 * Cancels a job unless it has finished, interrupting the module if it is
+	 * running.
+	 *
+	 * @param jobId job ID
+	 * @return the job status
+	 */
+	@DELETE
+	@Path("{jobId}")
+	@Timed
+	public JobStatus cancelJob(@PathParam("jobId") final String jobId) {
+		return found(jobService.cancel(jobId));
+	}
+
+	// -- Helper methods --
+
+	private static JobStatus found(final JobStatus status) {
+		if (status == null) {
+			throw new WebApplicationException("Job does not exist",
+				Status.NOT_FOUND);
+		}
+		return status;
+	}
+}
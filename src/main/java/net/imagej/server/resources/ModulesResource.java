@@ -22,13 +22,34 @@
 package net.imagej.server.resources;
 
 import com.codahale.metrics.annotation.Timed;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.core.JsonProcessingException;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 import javax.inject.Inject;
@@ -41,20 +62,35 @@ import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.ResponseBuilder;
 import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.core.StreamingOutput;
 
 import net.imagej.ops.Initializable;
 import net.imagej.server.WebCommandInfo;
+import net.imagej.server.services.JobService;
+import net.imagej.server.services.JobStatus;
 import net.imagej.server.services.JsonService;
+import net.imagej.server.services.ModuleScheduler;
+import net.imagej.server.services.ObjectService;
 
-import org.scijava.Context;
 import org.scijava.Identifiable;
 import org.scijava.Priority;
 import org.scijava.command.CommandInfo;
+import org.scijava.event.EventHandler;
 import org.scijava.module.Module;
 import org.scijava.module.ModuleInfo;
+import org.scijava.module.ModuleItem;
 import org.scijava.module.ModuleService;
+import org.scijava.module.event.ModuleFinishedEvent;
+import org.scijava.module.event.ModulesAddedEvent;
+import org.scijava.module.event.ModulesRemovedEvent;
 import org.scijava.module.process.AbstractPreprocessorPlugin;
 import org.scijava.module.process.ModulePreprocessor;
 import org.scijava.module.process.PreprocessorPlugin;
@@ -62,6 +98,10 @@ import org.scijava.plugin.Parameter;
 import org.scijava.plugin.Plugin;
 import org.scijava.plugin.PluginInfo;
 import org.scijava.plugin.PluginService;
+import org.scijava.plugin.event.PluginsAddedEvent;
+import org.scijava.plugin.event.PluginsRemovedEvent;
+import org.scijava.service.Service;
+import org.scijava.util.ColorRGB;
 import org.scijava.widget.InputHarvester;
 
 /**
@@ -74,6 +114,9 @@ import org.scijava.widget.InputHarvester;
 @Produces(MediaType.APPLICATION_JSON)
 public class ModulesResource {
 
+	/** Media type of newline-delimited JSON. */
+	public static final String NDJSON = "application/x-ndjson";
+
 	@Parameter
 	private ModuleService moduleService;
 
@@ -83,7 +126,25 @@ public class ModulesResource {
 	@Inject
 	private JsonService jsonService;
 
-	private LinkedHashMap<String, ModuleInfo> moduleCache;
+	@Inject
+	private JobService jobService;
+
+	@Inject
+	private ModuleScheduler moduleScheduler;
+
+	@Inject
+	private ObjectService objectService;
+
+	private volatile ModuleCache moduleCache;
+
+	/** Preprocessors which run before input harvesting, or null if unknown. */
+	private volatile List<PluginInfo<PreprocessorPlugin>> preprocessors;
+
+	/** Serialized widgets of modules that do not depend on mutable state. */
+	private final Map<String, String> widgetCache = new ConcurrentHashMap<>();
+
+	/** Version of the widget cache, increased whenever widgets are dropped. */
+	private final AtomicLong widgetVersion = new AtomicLong();
 
 	/**
 	 * Initialize resource by injection. Should not be called directly.
@@ -91,32 +152,87 @@ public class ModulesResource {
 	 * @param ctx
 	 */
 	@Inject
-	public void initialize(final Context ctx) {
+	public void initialize(final org.scijava.Context ctx) {
+		// NB: also subscribes the event handlers, which keep the cache current.
 		ctx.inject(this);
 		updateModuleCache();
 	}
 
-	private void updateModuleCache() {
+	private synchronized void updateModuleCache() {
 		LinkedHashMap<String, ModuleInfo> tmp = new LinkedHashMap<>();
 		for (final ModuleInfo module : moduleService.getModules()) {
 			tmp.put(((Identifiable) module).getIdentifier(), module);
 		}
+		final String json;
+		try {
+			json = jsonService.parseObject(tmp.keySet());
+		}
+		catch (final JsonProcessingException exc) {
+			throw new IllegalStateException("Fail to serialize module list", exc);
+		}
 		// atomic update
-		moduleCache = tmp;
+		moduleCache = new ModuleCache(tmp, json);
+		clearWidgets();
 	}
 
 	/**
+	 * Lists the modules. The list is tagged with a digest of its content, which
+	 * changes whenever modules are added or removed and stays valid across
+	 * restarts; requests with the current tag in {@code If-None-Match} get
+	 * {@code 304 Not Modified}.
+	 * 
+	 * @param request used for checking the version of the client's list
 	 * @return a list of module identifiers
 	 */
 	@GET
 	@Timed
-	public Set<String> retrieveModules() {
+	public Response retrieveModules(@Context final Request request) {
+		final ModuleCache cache = moduleCache;
+		final ResponseBuilder notModified = request.evaluatePreconditions(
+			cache.tag);
+		if (notModified != null) return notModified.build();
+		return Response.ok(cache.json).tag(cache.tag).build();
+	}
+
+	@EventHandler
+	protected void onEvent(final ModulesAddedEvent evt) {
+		updateModuleCache();
+	}
+
+	@EventHandler
+	protected void onEvent(final ModulesRemovedEvent evt) {
 		updateModuleCache();
-		return moduleCache.keySet();
+	}
+
+	@EventHandler
+	protected void onEvent(final PluginsAddedEvent evt) {
+		preprocessors = null;
+		clearWidgets();
+	}
+
+	@EventHandler
+	protected void onEvent(final PluginsRemovedEvent evt) {
+		preprocessors = null;
+		clearWidgets();
+	}
+
+	@EventHandler
+	protected void onEvent(final ModuleFinishedEvent evt) {
+		// NB: postprocessing may have persisted new starting values.
+		final ModuleInfo info = evt.getModule().getInfo();
+		if (info instanceof Identifiable) {
+			widgetVersion.incrementAndGet();
+			widgetCache.remove(((Identifiable) info).getIdentifier());
+		}
 	}
 
 	/**
 	 * Gets more detailed information of a module with the given ID.
+	 * <p>
+	 * The information of modules whose inputs are all plain values or services
+	 * is cached until the module runs again or the plugins change; for other
+	 * modules, such as those taking the active image, it is computed anew.
+	 * </p>
 	 *
 	 * @param id ID of the module
 	 * @return More detailed information of the module with the given ID
@@ -127,7 +243,7 @@ public class ModulesResource {
 	public String getWidget(@PathParam("id") final String id)
 		throws JsonProcessingException
 	{
-		final ModuleInfo info = moduleCache.getOrDefault(id, null);
+		final ModuleInfo info = moduleCache.modules.get(id);
 		if (info == null) {
 			final String msg = String.format("Module %s does not exist", id);
 			throw new WebApplicationException(msg, Status.NOT_FOUND);
@@ -139,23 +255,21 @@ public class ModulesResource {
 			throw new IllegalArgumentException("Object is not an instance of " + CommandInfo.class.getName());
 		}
 
+		final String cached = widgetCache.get(id);
+		if (cached != null) return cached;
+		final long version = widgetVersion.get();
+
 		// Create a transient instance of the module, so we can do some
 		// selective preprocessing. This is necessary to determine which
 		// inputs are still unresolved at the time of user input harvesting,
 		// as well as what their current starting values are.
 		final Module module = moduleService.createModule(info);
 
-		// Get the complete list of preprocessors.
-		final List<PluginInfo<PreprocessorPlugin>> allPPs =
-			pluginService.getPluginsOfType(PreprocessorPlugin.class);
-
-		// Filter the list to only those which run _before_ input harvesting.
-		final List<PluginInfo<PreprocessorPlugin>> goodPPs = allPPs.stream() //
-			.filter(ppInfo -> ppInfo.getPriority() > InputHarvester.PRIORITY) //
-			.collect(Collectors.toList());
-
-		// Execute all of these "good" preprocessors to prep the module correctly.
-		for (final ModulePreprocessor p : pluginService.createInstances(goodPPs)) {
+		// Execute all of the preprocessors which run before input harvesting to
+		// prep the module correctly.
+		for (final ModulePreprocessor p : pluginService.createInstances(
+			getPreprocessors()))
+		{
 			p.process(module);
 			if (p.isCanceled()) {
 				// TODO - decide what to do if this happens.
@@ -163,43 +277,88 @@ public class ModulesResource {
 		}
 
 		// Create a WebCommandInfo instance and parse it (resolved inputs will be identified during the process)
-		return jsonService.parseObject(new WebCommandInfo((CommandInfo)info, module));
+		final String widget = jsonService.parseObject(new WebCommandInfo(
+			(CommandInfo) info, module));
+		// NB: skip caching if the widget may be stale already.
+		if (isStateless(info) && widgetVersion.get() == version) {
+			widgetCache.put(id, widget);
+		}
+		return widget;
 	}
 
 	/**
 	 * Executes a module with given ID.
+	 * <p>
+	 * With {@code async=true}, the module runs as a background job and the
+	 * response is {@code 202 Accepted} with a job ID, whose progress and
+	 * outputs are shown by {@link JobsResource#getJob}.
+	 * </p>
+	 * <p>
+	 * Executions wait for their turn when too many modules are running. When
+	 * too many are waiting, or waiting times out, the response is
+	 * {@code 429 Too Many Requests} with a {@code Retry-After} header. Jobs are
+	 * only limited by the number of unfinished jobs, and wait as long as it
+	 * takes.
+	 * </p>
 	 *
 	 * @param id ID of the module to execute
 	 * @param inputs inputs to the execution
 	 * @param process true if the execution should be pre/post processed
-	 * @return a map of outputs
+	 * @param async true if the request should not wait for the execution
+	 * @return a map of outputs, or the job status
 	 */
 	@POST
 	@Path("{id}")
-	public String runModule(@PathParam("id") final String id,
+	public Response runModule(@PathParam("id") final String id,
 		final Map<String, Object> inputs,
-		@DefaultValue("true") @QueryParam("process") final boolean process)
+		@DefaultValue("true") @QueryParam("process") final boolean process,
+		@DefaultValue("false") @QueryParam("async") final boolean async)
 	{
-		final ModuleInfo info = moduleCache.getOrDefault(id, null);
+		final ModuleInfo info = moduleCache.modules.get(id);
 		if (info == null) {
+			release(inputs);
 			final String msg = String.format("Module %s does not exist", id);
 			throw new WebApplicationException(msg, Status.NOT_FOUND);
 		}
 
+		if (async) {
+			final JobStatus status;
+			try {
+				status = jobService.submit(id, () -> jsonService.parseObject(execute(
+					id, info, inputs, process, true).getOutputs()), () -> release(
+						inputs));
+			}
+			catch (final RejectedExecutionException exc) {
+				release(inputs);
+				throw new WebApplicationException("Too many unfinished jobs",
+					Status.SERVICE_UNAVAILABLE);
+			}
+			return Response.accepted(status).location(URI.create("jobs/" + status
+				.getId())).build();
+		}
+
 		final Module m;
 		try {
-			m = moduleService.run(info, process, inputs).get();
+			m = execute(id, info, inputs, process, false);
 		}
 		catch (final InterruptedException exc) {
 			throw new WebApplicationException(Status.INTERNAL_SERVER_ERROR);
 		}
+		catch (final RejectedExecutionException exc) {
+			throw new WebApplicationException(exc.getMessage(), Response.status(
+				Status.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER,
+					moduleScheduler.getRetryAfter()).build());
+		}
 		catch (final IllegalArgumentException | ExecutionException exc) {
 			throw new WebApplicationException(exc, Status.BAD_REQUEST);
 		}
+		finally {
+			release(inputs);
+		}
 		final Map<String, Object> outputs = m.getOutputs();
 
 		try {
-			return jsonService.parseObject(outputs);
+			return Response.ok(jsonService.parseObject(outputs)).build();
 		}
 		catch (final JsonProcessingException exc) {
 			throw new WebApplicationException("Fail to parse outputs", exc,
@@ -207,8 +366,294 @@ public class ModulesResource {
 		}
 	}
 
+	/**
+	 * Executes a module once for each of many inputs, streaming the results as
+	 * newline-delimited JSON.
+	 * <p>
+	 * Each item of the batch runs with the shared inputs, overridden by its own
+	 * inputs. Up to {@code scheduler.batchParallelism} items of all batches run
+	 * at a time, each admitted like a single execution. Every item yields one line with its
+	 * {@code index} and either its {@code outputs} or an {@code error}; lines
+	 * are written as items finish, or in the order of the items with
+	 * {@code ordered=true}.
+	 * </p>
+	 *
+	 * @param id ID of the module to execute
+	 * @param batch shared inputs and per-item inputs
+	 * @param process true if the executions should be pre/post processed
+	 * @param ordered true if the results should be in the order of the items
+	 * @return a stream of results, one line per item
+	 */
+	@POST
+	@Path("{id}/map")
+	@Produces(NDJSON)
+	public Response mapModule(@PathParam("id") final String id,
+		final Batch batch,
+		@DefaultValue("true") @QueryParam("process") final boolean process,
+		@DefaultValue("false") @QueryParam("ordered") final boolean ordered)
+	{
+		final ModuleInfo info = moduleCache.modules.get(id);
+		if (info == null) {
+			release(batch);
+			final String msg = String.format("Module %s does not exist", id);
+			throw new WebApplicationException(msg, Status.NOT_FOUND);
+		}
+		if (batch == null || batch.getItems() == null) {
+			release(batch);
+			throw new WebApplicationException("No items to map", Status.BAD_REQUEST);
+		}
+
+		final StreamingOutput stream = out -> map(id, info, batch, process,
+			ordered, out);
+		return Response.ok(stream).build();
+	}
+
+	// -- Helper methods --
+
+	/**
+	 * Runs the items of a batch and writes a line for each, keeping at most
+	 * twice the parallelism of them in flight.
+	 */
+	private void map(final String id, final ModuleInfo info, final Batch batch,
+		final boolean process, final boolean ordered, final OutputStream out)
+		throws IOException
+	{
+		final List<Map<String, Object>> items = batch.getItems();
+		final Map<String, Object> shared = batch.getInputs() != null ? batch
+			.getInputs() : Collections.emptyMap();
+		final int window = 2 * moduleScheduler.getBatchParallelism();
+		final ExecutorService executor = moduleScheduler.getBatchExecutor();
+		final CompletionService<String> completion =
+			new ExecutorCompletionService<>(executor);
+		final Deque<Future<String>> inFlight = new ArrayDeque<>();
+		try {
+			int next = 0;
+			while (next < items.size() || !inFlight.isEmpty()) {
+				while (next < items.size() && inFlight.size() < window) {
+					final int index = next++;
+					final Callable<String> task = () -> mapItem(index, id, info, shared,
+						items.get(index), process);
+					// NB: ordered results are taken from the head of the window instead.
+					inFlight.add(ordered ? executor.submit(task) : completion.submit(
+						task));
+				}
+				final Future<String> done = ordered ? inFlight.peek() : completion
+					.take();
+				inFlight.remove(done);
+				out.write(done.get().getBytes(StandardCharsets.UTF_8));
+				out.write('\n');
+				out.flush();
+			}
+		}
+		catch (final InterruptedException exc) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while mapping " + id, exc);
+		}
+		catch (final ExecutionException exc) {
+			throw new IOException("Fail to map " + id, exc.getCause());
+		}
+		finally {
+			// NB: stops the remaining items if the client went away.
+			for (final Future<String> future : inFlight) {
+				future.cancel(true);
+			}
+			release(batch);
+		}
+	}
+
+	/**
+	 * Runs one item of a batch and serializes its line of results. Any failure
+	 * of the item, including its outputs failing to serialize, becomes an
+	 * {@code error} line, so that the other items are still reported.
+	 */
+	private String mapItem(final int index, final String id,
+		final ModuleInfo info, final Map<String, Object> shared,
+		final Map<String, Object> overrides, final boolean process)
+		throws InterruptedException, JsonProcessingException
+	{
+		final Map<String, Object> inputs = new HashMap<>(shared);
+		if (overrides != null) inputs.putAll(overrides);
+		final Map<String, Object> result = new LinkedHashMap<>();
+		result.put("index", index);
+		final Throwable failure;
+		try {
+			result.put("outputs", execute(id, info, inputs, process, false)
+				.getOutputs());
+			return jsonService.parseObject(result);
+		}
+		catch (final ExecutionException exc) {
+			failure = exc.getCause() != null ? exc.getCause() : exc;
+		}
+		catch (final RuntimeException | JsonProcessingException exc) {
+			failure = exc;
+		}
+		result.remove("outputs");
+		result.put("error", failure.getMessage() != null ? failure.getMessage()
+			: failure.toString());
+		return jsonService.parseObject(result);
+	}
+
+	/** Gets the preprocessors which run before input harvesting. */
+	private List<PluginInfo<PreprocessorPlugin>> getPreprocessors() {
+		List<PluginInfo<PreprocessorPlugin>> pps = preprocessors;
+		if (pps == null) {
+			pps = pluginService.getPluginsOfType(PreprocessorPlugin.class).stream() //
+				.filter(ppInfo -> ppInfo.getPriority() > InputHarvester.PRIORITY) //
+				.collect(Collectors.toList());
+			preprocessors = pps;
+		}
+		return pps;
+	}
+
+	/**
+	 * Releases the registered objects among inputs, which were acquired when
+	 * the request was read, so that they may be spilled or evicted again.
+	 * Inputs nested in maps and collections, such as batches, are released as
+	 * well.
+	 */
+	private void release(final Object value) {
+		if (value == null || objectService.release(value)) return;
+		if (value instanceof Batch) {
+			release(((Batch) value).getInputs());
+			release(((Batch) value).getItems());
+		}
+		else if (value instanceof Map) {
+			for (final Object v : ((Map<?, ?>) value).values()) {
+				release(v);
+			}
+		}
+		else if (value instanceof Collection) {
+			for (final Object v : (Collection<?>) value) {
+				release(v);
+			}
+		}
+	}
+
+	private void clearWidgets() {
+		widgetVersion.incrementAndGet();
+		widgetCache.clear();
+	}
+
+	/**
+	 * Checks whether the preprocessed state of a module depends only on its
+	 * inputs' defaults, which holds when no initializers run and all inputs are
+	 * plain values or services. Other inputs, such as images, may be filled from
+	 * whatever is active at the time.
+	 */
+	private static boolean isStateless(final ModuleInfo info) {
+		if (info.getInitializer() != null) return false;
+		for (final ModuleItem<?> input : info.inputs()) {
+			if (input.getInitializer() != null) return false;
+			if (!isStateless(input.getType())) return false;
+		}
+		return true;
+	}
+
+	private static boolean isStateless(final Class<?> type) {
+		if (type.isArray()) return isStateless(type.getComponentType());
+		return type.isPrimitive() || type.isEnum() || //
+			Number.class.isAssignableFrom(type) || //
+			Service.class.isAssignableFrom(type) || type == String.class ||
+			type == Boolean.class || type == Character.class || type == File.class ||
+			type == ColorRGB.class || type == org.scijava.Context.class;
+	}
+
+	/**
+	 * Runs a module once the scheduler admits it, and waits for it to finish.
+	 * Registered objects passed to inputs that are outputs as well, i.e.
+	 * {@code ItemIO.BOTH}, are then marked as modified, as the module may have
+	 * changed them in place. Other inputs are only read.
+	 * 
+	 * @param job true if the execution is a job, which waits for its turn
+	 *          however long it takes
+	 * @throws RejectedExecutionException if the scheduler rejects the execution
+	 */
+	private Module execute(final String id, final ModuleInfo info,
+		final Map<String, Object> inputs, final boolean process, final boolean job)
+		throws InterruptedException, ExecutionException
+	{
+		try (final ModuleScheduler.Permit permit = job ? moduleScheduler.await(id)
+			: moduleScheduler.acquire(id))
+		{
+			final Future<Module> future = moduleService.run(info, process, inputs);
+			try {
+				return future.get();
+			}
+			catch (final InterruptedException exc) {
+				// NB: stop the module along with the waiting thread.
+				future.cancel(true);
+				throw exc;
+			}
+			finally {
+				for (final ModuleItem<?> item : info.inputs()) {
+					if (!item.isOutput()) continue;
+					final Object input = inputs.get(item.getName());
+					if (input != null) objectService.modified(input);
+				}
+			}
+		}
+	}
+
 	// -- Helper classes --
 
+	/** Inputs of a batch: inputs shared by all items, and those of each item. */
+	public static class Batch {
+
+		private Map<String, Object> inputs;
+
+		private List<Map<String, Object>> items;
+
+		@JsonProperty
+		public Map<String, Object> getInputs() {
+			return inputs;
+		}
+
+		@JsonProperty
+		public void setInputs(final Map<String, Object> inputs) {
+			this.inputs = inputs;
+		}
+
+		@JsonProperty
+		public List<Map<String, Object>> getItems() {
+			return items;
+		}
+
+		@JsonProperty
+		public void setItems(final List<Map<String, Object>> items) {
+			this.items = items;
+		}
+	}
+
+	/** Snapshot of the modules, along with their serialized list. */
+	private static class ModuleCache {
+
+		private final Map<String, ModuleInfo> modules;
+
+		private final String json;
+
+		private final EntityTag tag;
+
+		private ModuleCache(final Map<String, ModuleInfo> modules,
+			final String json)
+		{
+			this.modules = modules;
+			this.json = json;
+			tag = new EntityTag(digest(json));
+		}
+
+		private static String digest(final String json) {
+			final MessageDigest md;
+			try {
+				md = MessageDigest.getInstance("MD5");
+			}
+			catch (final NoSuchAlgorithmException exc) {
+				throw new IllegalStateException(exc);
+			}
+			return String.format("%032x", new BigInteger(1, md.digest(json.getBytes(
+				StandardCharsets.UTF_8))));
+		}
+	}
+
 	// HACK: Initialize op when run as module
 	@Plugin(type = PreprocessorPlugin.class, priority = Priority.HIGH - 1)
 	public static class InitializablePreprocessor extends
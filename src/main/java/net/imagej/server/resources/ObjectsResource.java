@@ -23,20 +23,48 @@ package net.imagej.server.resources;
 
 import com.codahale.metrics.annotation.Timed;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import io.scif.config.SCIFIOConfig;
+import io.scif.config.SCIFIOConfig.ImgMode;
 import io.scif.services.DatasetIOService;
 import net.imagej.Dataset;
 import net.imagej.DatasetService;
+import net.imagej.ImgPlus;
+import net.imagej.axis.AxisType;
 import net.imagej.server.Utils;
+import net.imagej.server.config.UploadConfiguration;
+import net.imagej.server.io.RawImageCodec;
+import net.imagej.server.io.RawImageHeader;
+import net.imagej.server.io.SharedImageHeader;
+import net.imagej.server.services.Artifact;
+import net.imagej.server.services.ArtifactCache;
+import net.imagej.server.services.ExportService;
+import net.imagej.server.services.ExportStatus;
+import net.imagej.server.services.ImagePyramid;
+import net.imagej.server.services.IngestService;
+import net.imagej.server.services.IngestStatus;
+import net.imagej.server.services.LocalFileService;
 import net.imagej.server.services.ObjectInfo;
 import net.imagej.server.services.ObjectService;
+import net.imagej.server.services.PyramidService;
+import net.imagej.server.services.SharedMemoryService;
+import net.imagej.server.services.SizeEstimator;
+import net.imagej.server.services.Spool;
+import net.imagej.server.services.SpoolLimitExceededException;
+import net.imagej.server.services.SpoolService;
+import net.imglib2.RandomAccessibleInterval;
 import net.imglib2.img.Img;
+import net.imglib2.img.ImgView;
+import net.imglib2.view.Views;
+import org.glassfish.jersey.media.multipart.FormDataBodyPart;
 import org.glassfish.jersey.media.multipart.FormDataContentDisposition;
+import org.glassfish.jersey.media.multipart.FormDataMultiPart;
 import org.glassfish.jersey.media.multipart.FormDataParam;
 import org.scijava.io.IOService;
-import org.scijava.io.handle.BytesHandle;
-import org.scijava.io.location.BytesLocation;
+import org.scijava.io.location.FileLocation;
+import org.scijava.io.location.Location;
 import org.scijava.plugin.Parameter;
 import org.scijava.table.Table;
 import org.scijava.table.io.TableIOOptions;
@@ -45,23 +73,49 @@ import org.scijava.table.io.TableIOService;
 import javax.inject.Inject;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
 import javax.ws.rs.POST;
+import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.ResponseBuilder;
 import javax.ws.rs.core.Response.Status;
 import javax.ws.rs.core.StreamingOutput;
 import javax.ws.rs.core.UriInfo;
+import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
+import java.net.URI;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 
 /**
  * Server resource for managing data structures that could not be easily handled
@@ -88,8 +142,43 @@ public class ObjectsResource {
 	@Inject
 	private ObjectService objectService;
 
+	@Inject
+	private UploadConfiguration uploadConfig;
+
+	@Inject
+	private SpoolService spoolService;
+
+	@Inject
+	private ArtifactCache artifactCache;
+
+	@Inject
+	private PyramidService pyramidService;
+
+	@Inject
+	private IngestService ingestService;
+
+	@Inject
+	private LocalFileService localFileService;
+
+	@Inject
+	private ExportService exportService;
+
+	@Inject
+	private SharedMemoryService sharedMemoryService;
+
 	private static final JsonNodeFactory factory = JsonNodeFactory.instance;
 
+	private static final String ACCEPT_RANGES = "Accept-Ranges";
+
+	private static final String CONTENT_RANGE = "Content-Range";
+
+	private static final String IF_RANGE = "If-Range";
+
+	private static final String RANGE = "Range";
+
+	/** Number of objects listed as the largest by {@link #getStats}. */
+	private static final int MAX_LARGEST = 10;
+
 	/**
 	 * Initialize resource by injection. Should not be called directly.
 	 * 
@@ -110,6 +199,47 @@ public class ObjectsResource {
 		return objectService.getIds();
 	}
 
+	/**
+	 * Summarizes the memory use of the objects: their number and estimated size
+	 * in total, by class and by creator, and the largest objects. The creator
+	 * is the operation that created an object, e.g. {@code uploadFile}, without
+	 * its details.
+	 * 
+	 * @return a JSON node containing the statistics
+	 */
+	@GET
+	@Path("stats")
+	public JsonNode getStats() {
+		final List<ObjectInfo> infos = new ArrayList<>(objectService.getInfos());
+		final ObjectNode node = factory.objectNode();
+		final ObjectNode byClass = factory.objectNode();
+		final ObjectNode byCreator = factory.objectNode();
+		long size = 0;
+		int pinned = 0;
+		for (final ObjectInfo info : infos) {
+			size += info.getSize();
+			if (info.isPinned()) pinned++;
+			tally(byClass, info.isPending() ? "pending" : String.valueOf(info
+				.getObjectClass()), info.getSize());
+			final String createdBy = String.valueOf(info.getCreatedBy());
+			tally(byCreator, createdBy.replaceFirst(":.*", ""), info.getSize());
+		}
+		node.put("count", infos.size());
+		node.put("size", size);
+		node.put("pinned", pinned);
+		node.set("byClass", byClass);
+		node.set("byCreator", byCreator);
+		infos.sort(Comparator.comparingLong(ObjectInfo::getSize).reversed());
+		final ArrayNode largest = node.putArray("largest");
+		for (final ObjectInfo info : infos.subList(0, Math.min(infos.size(),
+			MAX_LARGEST)))
+		{
+			largest.addObject().put("id", info.getId()).put("class", info
+				.getObjectClass()).put("size", info.getSize());
+		}
+		return node;
+	}
+
 	/**
 	 * Shows the information of an object.
 	 * 
@@ -119,10 +249,11 @@ public class ObjectsResource {
 	@GET
 	@Path("{id}")
 	public ObjectInfo getObjectInfo(@PathParam("id") final String id) {
-		if (!objectService.contains(id)) {
+		final ObjectInfo info = objectService.find(id);
+		if (info == null) {
 			throw new WebApplicationException("ID does not exist", Status.NOT_FOUND);
 		}
-		return objectService.find(id);
+		return info;
 	}
 
 	/**
@@ -143,6 +274,30 @@ public class ObjectsResource {
 		return Response.ok().build();
 	}
 
+	/**
+	 * Pins an object, so that it is never evicted to bound memory use.
+	 * 
+	 * @param id object ID to pin
+	 * @return the object information
+	 */
+	@PUT
+	@Path("{id}/pin")
+	public ObjectInfo pinObject(@PathParam("id") final String id) {
+		return pin(id, true);
+	}
+
+	/**
+	 * Unpins an object, so that it may be evicted again.
+	 * 
+	 * @param id object ID to unpin
+	 * @return the object information
+	 */
+	@DELETE
+	@Path("{id}/pin")
+	public ObjectInfo unpinObject(@PathParam("id") final String id) {
+		return pin(id, false);
+	}
+
 	/**
 	 * Reads the user-uploaded file into the imagej runtime. Currently only
 	 * support images and tables in text. An ID representing the data is returned.
@@ -150,157 +305,1243 @@ public class ObjectsResource {
 	 * If no hint for format is provided, filename would be used to guess the file
 	 * format.
 	 * </p>
+	 * <p>
+	 * Large uploads are spooled to a temporary file as they arrive instead of
+	 * being buffered in memory; see {@link SpoolService}. Images opened with
+	 * {@code imgMode=cell} keep their spool file until the object is removed,
+	 * and load planes from it on demand.
+	 * </p>
+	 * <p>
+	 * With {@code async=true}, the upload is decoded in the background and the
+	 * response is {@code 202 Accepted} with the reserved ID right after the data
+	 * has been received; see {@link #getStatus}.
+	 * </p>
 	 *
 	 * @param fileInputStream file stream of the uploaded file
 	 * @param fileDetail "Content-Disposition" header
 	 * @param typeHint optional hint for file type
+	 * @param imgModeHint optional image mode, overriding the server default
+	 * @param async whether to decode in the background
 	 * @return JSON string with format {"id":"object:{ID}"}
 	 */
 	@POST
 	@Path("upload")
 	@Consumes(MediaType.MULTIPART_FORM_DATA)
 	@Timed
-	public JsonNode uploadFile(
+	public Response uploadFile(
 		@FormDataParam("file") final InputStream fileInputStream,
 		@FormDataParam("file") final FormDataContentDisposition fileDetail,
-		@QueryParam("type") final String typeHint)
+		@QueryParam("type") final String typeHint,
+		@QueryParam("imgMode") final String imgModeHint,
+		@DefaultValue("false") @QueryParam("async") final boolean async)
 	{
-		BytesHandle bah;
+		final String filename = fileDetail.getFileName();
+
+		final String type = fileType(typeHint, filename);
+		if (type == null) {
+			throw new WebApplicationException("Unrecognized format",
+				Status.BAD_REQUEST);
+		}
+		final ImgMode imgMode = imgMode(imgModeHint);
+
+		final Spool spool;
 		try {
-			bah = readFileInputStream(fileInputStream, fileDetail.getFileName());
+			spool = spoolService.spool(fileInputStream, filename);
+		}
+		catch (final SpoolLimitExceededException exc) {
+			throw new WebApplicationException(exc, Status.REQUEST_ENTITY_TOO_LARGE);
 		}
-		catch (IOException exc) {
+		catch (final IOException exc) {
 			throw new WebApplicationException(exc, Status.BAD_REQUEST);
 		}
 
-		final String filename = fileDetail.getFileName();
+		final String createdBy = "uploadFile:filename=" + filename;
+		if (async) {
+			final String id;
+			try {
+				id = ingestService.submit(createdBy, spool.length(), reservedId -> {
+					final Object obj = open(type, imgMode, spool);
+					if (isLazy(type, imgMode)) objectService.attach(reservedId, spool);
+					return obj;
+				});
+			}
+			catch (final RejectedExecutionException exc) {
+				spool.close();
+				throw new WebApplicationException("Too many pending uploads",
+					Status.SERVICE_UNAVAILABLE);
+			}
+			return Response.accepted(factory.objectNode().set("id", factory
+				.textNode(id))).location(URI.create("objects/" + id + "/status"))
+				.build();
+		}
 
-		final String type;
-		if (typeHint != null && typeHint.length() != 0) {
-			type = typeHint.toLowerCase();
+		final Object obj;
+		try {
+			obj = open(type, imgMode, spool);
 		}
-		else {
-			final String mt = Utils.getMimetype(filename);
-			type = mt.substring(0, mt.indexOf('/'));
+		catch (final IOException exc) {
+			throw new WebApplicationException(exc, Status.CONFLICT);
+		}
+		final String id = objectService.register(obj, createdBy);
+		if (isLazy(type, imgMode)) objectService.attach(id, spool);
+		return Response.ok(factory.objectNode().set("id", factory.textNode(id)))
+			.build();
+	}
+
+	/**
+	 * Reads many user-uploaded files at once. Every {@code file} part of the
+	 * request is an upload; parts named {@code *.zip} are expanded into their
+	 * entries. Files are spooled one after the other and decoded concurrently
+	 * on the ingest pool, so decoding overlaps with spooling the later files.
+	 * <p>
+	 * NB: the request has been received completely before this method runs,
+	 * since the multipart reader buffers every part, in a temporary file if it
+	 * is large. Each part is then copied into a spool once more, so a batch
+	 * temporarily takes up to twice its size on disk.
+	 * </p>
+	 * <p>
+	 * The result maps each filename to its object ID, and each file that could
+	 * not be read to an error message. With {@code async=true}, the response is
+	 * {@code 202 Accepted} once all files have been received, and the IDs are
+	 * still pending; see {@link #getStatus}.
+	 * </p>
+	 *
+	 * @param multiPart the uploaded files
+	 * @param typeHint optional hint for the type of all files
+	 * @param imgModeHint optional image mode, overriding the server default
+	 * @param async whether to return before decoding has finished
+	 * @return JSON string with format {"ids":{...},"errors":{...}}
+	 */
+	@POST
+	@Path("upload/batch")
+	@Consumes(MediaType.MULTIPART_FORM_DATA)
+	@Timed
+	public Response uploadFiles(final FormDataMultiPart multiPart,
+		@QueryParam("type") final String typeHint,
+		@QueryParam("imgMode") final String imgModeHint,
+		@DefaultValue("false") @QueryParam("async") final boolean async)
+	{
+		final ImgMode imgMode = imgMode(imgModeHint);
+		final List<FormDataBodyPart> parts = multiPart.getFields("file");
+		if (parts == null || parts.isEmpty()) {
+			throw new WebApplicationException("No file parts", Status.BAD_REQUEST);
+		}
+
+		final Map<String, String> ids = new LinkedHashMap<>();
+		final Map<String, String> errors = new LinkedHashMap<>();
+		final Deque<String> pending = new ArrayDeque<>();
+		try {
+			for (final FormDataBodyPart part : parts) {
+				final String filename = part.getFormDataContentDisposition()
+					.getFileName();
+				try (final InputStream in = part.getValueAs(InputStream.class)) {
+					if (filename != null && filename.toLowerCase().endsWith(".zip")) {
+						final ZipInputStream zip = new ZipInputStream(in);
+						for (ZipEntry entry; (entry = zip.getNextEntry()) != null;) {
+							if (entry.isDirectory()) continue;
+							submit(entry.getName(), zip, typeHint, imgMode, ids, errors,
+								pending);
+						}
+					}
+					else {
+						submit(filename, in, typeHint, imgMode, ids, errors, pending);
+					}
+				}
+				catch (final IOException exc) {
+					errors.put(unique(filename, errors), String.valueOf(exc
+						.getMessage()));
+				}
+			}
+		}
+		finally {
+			multiPart.cleanup();
 		}
 
-		Object obj = null;
+		if (async) {
+			return Response.accepted(batchResult(ids, errors)).build();
+		}
+		for (final Iterator<Map.Entry<String, String>> iter = ids.entrySet()
+			.iterator(); iter.hasNext();)
+		{
+			final Map.Entry<String, String> entry = iter.next();
+			final IngestStatus status = awaitIngest(entry.getValue());
+			if (status != null && IngestStatus.FAILED.equals(status.getStatus())) {
+				errors.put(entry.getKey(), status.getError());
+				iter.remove();
+			}
+		}
+		return Response.ok(batchResult(ids, errors)).build();
+	}
+
+	/**
+	 * Reads a file from the server's file system into the imagej runtime,
+	 * without sending its content over HTTP. The path must be absolute and lie
+	 * below one of the configured {@code localFiles.readRoots}, after resolving
+	 * symbolic links. Images opened with {@code imgMode=cell} read their planes
+	 * from the file on demand.
+	 *
+	 * @param path absolute path of the file
+	 * @param typeHint optional hint for file type
+	 * @param imgModeHint optional image mode, overriding the server default
+	 * @param async whether to decode in the background, as for uploads
+	 * @return JSON string with format {"id":"object:{ID}"}
+	 */
+	@POST
+	@Path("open")
+	@Timed
+	public Response openFile(@QueryParam("path") final String path,
+		@QueryParam("type") final String typeHint,
+		@QueryParam("imgMode") final String imgModeHint,
+		@DefaultValue("false") @QueryParam("async") final boolean async)
+	{
+		if (path == null || path.isEmpty()) {
+			throw new WebApplicationException("No path given", Status.BAD_REQUEST);
+		}
+		final java.nio.file.Path file;
 		try {
-			switch (type) {
-				case "image":
-					obj = datasetIOService.open(bah.get());
-					break;
-				case "text":
-					obj = ioService.open(bah.get());
-					break;
-				default:
-					throw new WebApplicationException("Unrecognized format",
-						Status.BAD_REQUEST);
+			file = localFileService.resolveReadable(path);
+		}
+		catch (final AccessDeniedException exc) {
+			throw new WebApplicationException(exc.getReason(), Status.FORBIDDEN);
+		}
+		catch (final NoSuchFileException exc) {
+			throw new WebApplicationException("File does not exist",
+				Status.NOT_FOUND);
+		}
+		catch (final IOException exc) {
+			throw new WebApplicationException(exc, Status.BAD_REQUEST);
+		}
+		final String type = fileType(typeHint, file.getFileName().toString());
+		if (type == null) {
+			throw new WebApplicationException("Unrecognized format",
+				Status.BAD_REQUEST);
+		}
+		final ImgMode imgMode = imgMode(imgModeHint);
+		final Location location = new FileLocation(file.toFile());
+
+		final String createdBy = "openFile:path=" + file;
+		if (async) {
+			final String id;
+			try {
+				id = ingestService.submit(createdBy, file.toFile().length(),
+					reservedId -> open(type, imgMode, location));
 			}
+			catch (final RejectedExecutionException exc) {
+				throw new WebApplicationException("Too many pending uploads",
+					Status.SERVICE_UNAVAILABLE);
+			}
+			return Response.accepted(factory.objectNode().set("id", factory
+				.textNode(id))).location(URI.create("objects/" + id + "/status"))
+				.build();
 		}
-		catch (final WebApplicationException exc) {
-			throw exc;
+
+		final Object obj;
+		try {
+			obj = open(type, imgMode, location);
 		}
 		catch (final IOException exc) {
 			throw new WebApplicationException(exc, Status.CONFLICT);
 		}
+		final String id = objectService.register(obj, createdBy);
+		return Response.ok(factory.objectNode().set("id", factory.textNode(id)))
+			.build();
+	}
+
+	/**
+	 * Shows the progress of an upload. Uploads made with {@code async=true} are
+	 * {@code pending} until decoded, then {@code ready} or {@code failed}; a
+	 * failed upload's ID is removed, but its status is kept for a while. Other
+	 * objects are always {@code ready}.
+	 *
+	 * @param id object ID
+	 * @return the status of the upload
+	 */
+	@GET
+	@Path("{id}/status")
+	public IngestStatus getStatus(@PathParam("id") final String id) {
+		final IngestStatus status = ingestService.getStatus(id);
+		if (status != null) return status;
+		if (!objectService.contains(id)) {
+			throw new WebApplicationException("ID does not exist", Status.NOT_FOUND);
+		}
+		final IngestStatus ready = new IngestStatus(id, 0);
+		ready.finish(0, null);
+		return ready;
+	}
+
+	/**
+	 * Registers an image from raw primitive pixel data, without any codec.
+	 * <p>
+	 * The request body starts with a single line of JSON describing the data
+	 * (see {@link RawImageHeader}), followed by the pixels with the first
+	 * dimension varying fastest. The pixels are read into an {@code ArrayImg},
+	 * which is only allocated once the header has been checked against the size
+	 * of the request: the data may be larger than neither the
+	 * {@code Content-Length} nor the spool's per-request limit.
+	 * </p>
+	 *
+	 * @param inputStream the request body
+	 * @param contentLength length of the request body, if known
+	 * @return JSON string with format {"id":"object:{ID}"}
+	 */
+	@POST
+	@Path("raw")
+	@Consumes(MediaType.APPLICATION_OCTET_STREAM)
+	@Timed
+	public JsonNode uploadRaw(final InputStream inputStream,
+		@HeaderParam(HttpHeaders.CONTENT_LENGTH) final Long contentLength)
+	{
+		final InputStream in = new BufferedInputStream(inputStream);
+		final ImgPlus<?> imgPlus;
+		try {
+			final RawImageHeader header = RawImageCodec.readHeader(in);
+			long limit = spoolService.getMaxRequestSize();
+			if (contentLength != null) limit = Math.min(limit, contentLength);
+			if (header.dataLength() > limit) {
+				throw new WebApplicationException("Raw image data (" + header
+					.dataLength() + " bytes) exceeds the request size (" + limit +
+					" bytes)", Status.BAD_REQUEST);
+			}
+			imgPlus = RawImageCodec.readData(header, in);
+		}
+		catch (final IOException exc) {
+			throw new WebApplicationException(exc, Status.BAD_REQUEST);
+		}
+		@SuppressWarnings({ "rawtypes", "unchecked" })
+		final Dataset ds = datasetService.create((ImgPlus) imgPlus);
+		final String id = objectService.register(ds, "uploadRaw");
+		return factory.objectNode().set("id", factory.textNode(id));
+	}
+
+	/**
+	 * Retrieves the pixels of an image as raw primitive data.
+	 * <p>
+	 * The response starts with a single line of JSON describing the image (see
+	 * {@link RawImageHeader}), followed by the pixels with the first dimension
+	 * varying fastest. Images backed by {@code ArrayImg} or {@code PlanarImg}
+	 * are streamed straight from their storage arrays.
+	 * </p>
+	 *
+	 * @param id object ID
+	 * @param byteOrder {@code little} (default) or {@code big}
+	 * @return Response with the header and pixel data as content
+	 */
+	@GET
+	@Path("{id}/raw")
+	@Produces(MediaType.APPLICATION_OCTET_STREAM)
+	@Timed
+	public Response getRaw(@PathParam("id") final String id,
+		@DefaultValue(RawImageHeader.LITTLE_ENDIAN) //
+		@QueryParam("byteOrder") final String byteOrder)
+	{
+		final Object obj = object(id);
+		if (!(obj instanceof Img)) {
+			throw new WebApplicationException("Object is not an image",
+				Status.BAD_REQUEST);
+		}
+		return raw(toDataset(obj).getImgPlus(), byteOrder);
+	}
 
-		final String id = objectService.register(obj, "uploadFile:filename=" +
-			fileDetail.getFileName());
+	/**
+	 * Registers an image from a memory-mapped file in the configured
+	 * {@code sharedMemory.directory}, without copying its pixels.
+	 * <p>
+	 * The request body describes the data as the header of {@link #uploadRaw}
+	 * does, plus the name of the {@code file} and the {@code offset} of the
+	 * first pixel in it. The image reads and writes the file directly, so
+	 * changes are visible to all processes mapping it, and the file must stay
+	 * in place for as long as the object exists.
+	 * </p>
+	 *
+	 * @param header description of the shared image
+	 * @return JSON string with format {"id":"object:{ID}"}
+	 */
+	@POST
+	@Path("shared")
+	@Consumes(MediaType.APPLICATION_JSON)
+	@Timed
+	public JsonNode mapShared(final SharedImageHeader header) {
+		if (header == null) {
+			throw new WebApplicationException("No image description given",
+				Status.BAD_REQUEST);
+		}
+		final ImgPlus<?> imgPlus;
+		try {
+			imgPlus = sharedMemoryService.map(header);
+		}
+		catch (final AccessDeniedException exc) {
+			throw new WebApplicationException(exc.getReason(), Status.FORBIDDEN);
+		}
+		catch (final NoSuchFileException exc) {
+			throw new WebApplicationException("File does not exist",
+				Status.NOT_FOUND);
+		}
+		catch (final IOException exc) {
+			throw new WebApplicationException(exc, Status.BAD_REQUEST);
+		}
+		@SuppressWarnings({ "rawtypes", "unchecked" })
+		final Dataset ds = datasetService.create((ImgPlus) imgPlus);
+		final String id = objectService.register(ds, "mapShared:file=" + header
+			.getFile());
+		sharedMemoryService.attach(id, header);
 		return factory.objectNode().set("id", factory.textNode(id));
 	}
 
+	/**
+	 * Shares an image with clients on the same host as a memory-mapped file in
+	 * the configured {@code sharedMemory.directory}.
+	 * <p>
+	 * Images that were registered with {@link #mapShared} are described as they
+	 * are. Other images are copied once into a file in native byte order, which
+	 * is refreshed by each call and deleted with the object. The response
+	 * describes the file as {@link #getRaw} describes raw data, plus the
+	 * {@code path} of the file, the {@code offset} of the first pixel and the
+	 * byte {@code strides} of the dimensions.
+	 * </p>
+	 *
+	 * @param id object ID
+	 * @return JSON description of the shared file
+	 */
+	@POST
+	@Path("{id}/shared")
+	@Timed
+	public SharedImageHeader shareObject(@PathParam("id") final String id) {
+		final Object obj = object(id);
+		if (!(obj instanceof Img)) {
+			throw new WebApplicationException("Object is not an image",
+				Status.BAD_REQUEST);
+		}
+		try {
+			return sharedMemoryService.share(id, toDataset(obj).getImgPlus());
+		}
+		catch (final AccessDeniedException exc) {
+			throw new WebApplicationException(exc.getReason(), Status.FORBIDDEN);
+		}
+		catch (final IllegalArgumentException exc) {
+			throw new WebApplicationException(exc.getMessage(), Status.BAD_REQUEST);
+		}
+		catch (final IOException exc) {
+			throw new WebApplicationException(exc);
+		}
+	}
+
 	/**
 	 * Retrieves an object in a specific format.
+	 * <p>
+	 * The object is encoded into a spool file rather than an in-memory buffer,
+	 * and the file is then streamed to the client, so peak heap usage per
+	 * download does not depend on the size of the encoded object. Encodings are
+	 * cached by object ID, format and query parameters, and carry a strong ETag
+	 * so that clients can revalidate with {@code If-None-Match}. Single and
+	 * multiple byte ranges are supported, so that interrupted downloads can be
+	 * resumed and large objects fetched in parallel chunks.
+	 * </p>
 	 *
 	 * @param id object ID
 	 * @param format format of the object to be saved into
 	 * @param uriInfo used for obtaining query parameters for config
+	 * @param request used for evaluating conditional headers
+	 * @param headers used for reading range headers
 	 * @return Response with the object as content
 	 */
-	@SuppressWarnings("unchecked")
 	@GET
 	@Path("{id}/{format}")
 	@Timed
 	public Response getObject(@PathParam("id") final String id,
-		@PathParam("format") final String format, @Context final UriInfo uriInfo)
+		@PathParam("format") final String format, @Context final UriInfo uriInfo,
+		@Context final Request request, @Context final HttpHeaders headers)
 	{
-		if (!objectService.contains(id)) {
+		final Object obj = object(id);
+		if (!(obj instanceof Img) && !(obj instanceof Table)) {
+			final String type = obj.getClass().getName();
+			throw new WebApplicationException(
+				"Retrival for Object type not supported yet: " + type,
+				Status.BAD_REQUEST);
+		}
+		return download(id, obj, format, variant(format, uriInfo), uriInfo,
+			request, headers);
+	}
+
+	/**
+	 * Writes an object to a file on the server's file system, in the format
+	 * given by the file extension. The path must be absolute and lie below one
+	 * of the configured {@code localFiles.writeRoots}. Query parameters are
+	 * passed to the writer as for {@link #getObject}.
+	 * <p>
+	 * The export runs in the background; the response is {@code 202 Accepted}
+	 * with an export ID whose progress is shown by {@link #getExport}. The file
+	 * appears at the path only once it has been written completely.
+	 * </p>
+	 *
+	 * @param id object ID
+	 * @param path absolute path of the file to write
+	 * @param overwrite whether to replace an existing file
+	 * @param uriInfo used for obtaining query parameters for config
+	 * @return JSON string with the export status
+	 */
+	@POST
+	@Path("{id}/export")
+	@Timed
+	public Response exportObject(@PathParam("id") final String id,
+		@QueryParam("path") final String path,
+		@DefaultValue("false") @QueryParam("overwrite") final boolean overwrite,
+		@Context final UriInfo uriInfo)
+	{
+		final Object obj = object(id);
+		if (!(obj instanceof Img) && !(obj instanceof Table)) {
+			final String type = obj.getClass().getName();
+			throw new WebApplicationException(
+				"Export for Object type not supported yet: " + type,
+				Status.BAD_REQUEST);
+		}
+		if (path == null || path.isEmpty()) {
+			throw new WebApplicationException("No path given", Status.BAD_REQUEST);
+		}
+		final java.nio.file.Path file;
+		try {
+			file = localFileService.resolveWritable(path);
+		}
+		catch (final AccessDeniedException exc) {
+			throw new WebApplicationException(exc.getReason(), Status.FORBIDDEN);
+		}
+		catch (final NoSuchFileException exc) {
+			throw new WebApplicationException("Directory does not exist",
+				Status.NOT_FOUND);
+		}
+		catch (final IOException exc) {
+			throw new WebApplicationException(exc, Status.BAD_REQUEST);
+		}
+		if (!overwrite && Files.exists(file)) {
+			throw new WebApplicationException("File exists", Status.CONFLICT);
+		}
+
+		final MultivaluedMap<String, String> params = uriInfo.getQueryParameters();
+		final SCIFIOConfig config = obj instanceof Img ? writerConfig(params)
+			: null;
+		final TableIOOptions options = obj instanceof Table ? tableOptions(params)
+			: null;
+		final ExportStatus status;
+		try {
+			status = exportService.submit(id, file, overwrite, location -> save(obj,
+				location, config, options));
+		}
+		catch (final RejectedExecutionException exc) {
+			throw new WebApplicationException("Too many pending exports",
+				Status.SERVICE_UNAVAILABLE);
+		}
+		return Response.accepted(status).location(URI.create("objects/exports/" +
+			status.getId())).build();
+	}
+
+	/**
+	 * Shows the progress of an export: {@code pending}, {@code done} or
+	 * {@code failed}, with the size of the written file and the time taken.
+	 *
+	 * @param exportId export ID returned by {@link #exportObject}
+	 * @return the export status
+	 */
+	@GET
+	@Path("exports/{exportId}")
+	public ExportStatus getExport(@PathParam("exportId") final String exportId) {
+		final ExportStatus status = exportService.getStatus(exportId);
+		if (status == null) {
+			throw new WebApplicationException("Export does not exist",
+				Status.NOT_FOUND);
+		}
+		return status;
+	}
+
+	/**
+	 * Retrieves a sub-region of an image in a specific format.
+	 * <p>
+	 * The region is given per dimension, either by inclusive {@code min} and
+	 * {@code max} coordinates or by {@code offset} and {@code size}, as
+	 * comma-separated lists; dimensions that are left out are taken in full. An
+	 * optional {@code step} list subsamples the region. The region is a lazy
+	 * view, so only the requested pixels are read while encoding. Responses are
+	 * cached and support conditional and range requests like
+	 * {@link #getObject}.
+	 * </p>
+	 *
+	 * @param id object ID
+	 * @param format format of the region to be saved into
+	 * @param min minimum coordinates
+	 * @param max maximum coordinates
+	 * @param offset alternative to {@code min}
+	 * @param size alternative to {@code max}, relative to the minimum
+	 * @param step subsampling step per dimension
+	 * @param uriInfo used for obtaining query parameters for config
+	 * @param request used for evaluating conditional headers
+	 * @param headers used for reading range headers
+	 * @return Response with the region as content
+	 */
+	@GET
+	@Path("{id}/region/{format}")
+	@Timed
+	public Response getRegion(@PathParam("id") final String id,
+		@PathParam("format") final String format,
+		@QueryParam("min") final String min, @QueryParam("max") final String max,
+		@QueryParam("offset") final String offset,
+		@QueryParam("size") final String size,
+		@QueryParam("step") final String step, @Context final UriInfo uriInfo,
+		@Context final Request request, @Context final HttpHeaders headers)
+	{
+		final Object obj = object(id);
+		if (!(obj instanceof Img)) {
+			throw new WebApplicationException("Object is not an image",
+				Status.BAD_REQUEST);
+		}
+		final Dataset region = region(toDataset(obj), //
+			min != null ? min : offset, max, size, step);
+		return download(id, region, format, "region:" + variant(format, uriInfo),
+			uriInfo, request, headers);
+	}
+
+	/**
+	 * Describes the tile pyramid of an image: the tile size, the number of XY
+	 * planes, and the dimensions and tile counts of each resolution level.
+	 *
+	 * @param id object ID
+	 * @return a JSON node describing the pyramid
+	 */
+	@GET
+	@Path("{id}/tiles")
+	public JsonNode getTileInfo(@PathParam("id") final String id) {
+		final ImagePyramid pyramid = pyramid(id);
+		final ObjectNode node = factory.objectNode();
+		node.put("tileSize", pyramid.getTileSize());
+		node.put("planes", pyramid.numPlanes());
+		final ArrayNode levels = node.putArray("levels");
+		for (int l = 0; l < pyramid.numLevels(); l++) {
+			final long[] dims = pyramid.dimensions(l);
+			final ObjectNode level = levels.addObject();
+			level.put("width", dims[0]);
+			level.put("height", dims[1]);
+			level.put("columns", (dims[0] + pyramid.getTileSize() - 1) / pyramid
+				.getTileSize());
+			level.put("rows", (dims[1] + pyramid.getTileSize() - 1) / pyramid
+				.getTileSize());
+		}
+		return node;
+	}
+
+	/**
+	 * Retrieves one tile of the multi-resolution pyramid of an image.
+	 * <p>
+	 * Level 0 is the full resolution, and each further level halves the width
+	 * and height. Planes are numbered over all dimensions after X and Y, the
+	 * first varying fastest. The downsampled levels are computed in parallel on
+	 * first use and kept while memory allows. Tiles are encoded with any
+	 * supported format ({@code png} by default), and cached like
+	 * {@link #getObject} downloads, or sent as {@code raw} pixels like
+	 * {@link #getRaw}.
+	 * </p>
+	 *
+	 * @param id object ID
+	 * @param level resolution level
+	 * @param plane index of the XY plane
+	 * @param x column of the tile
+	 * @param y row of the tile
+	 * @param format encoding of the tile
+	 * @param uriInfo used for obtaining query parameters for config
+	 * @param request used for evaluating conditional headers
+	 * @param headers used for reading range headers
+	 * @return Response with the tile as content
+	 */
+	@GET
+	@Path("{id}/tiles/{level}/{plane}/{x}/{y}")
+	@Timed
+	public Response getTile(@PathParam("id") final String id,
+		@PathParam("level") final int level, @PathParam("plane") final long plane,
+		@PathParam("x") final long x, @PathParam("y") final long y,
+		@DefaultValue("png") @QueryParam("format") final String format,
+		@Context final UriInfo uriInfo, @Context final Request request,
+		@Context final HttpHeaders headers)
+	{
+		final ImgPlus<?> tile = pyramid(id).tile(level, plane, x, y);
+		if (tile == null) {
+			throw new WebApplicationException("Tile does not exist",
+				Status.NOT_FOUND);
+		}
+		if ("raw".equals(format)) {
+			return raw(tile, uriInfo.getQueryParameters().getFirst("byteOrder"));
+		}
+		@SuppressWarnings({ "rawtypes", "unchecked" })
+		final Dataset ds = datasetService.create((ImgPlus) tile);
+		return download(id, ds, format, String.format(
+			"tile:%d/%d/%d/%d:%s", level, plane, x, y, variant(format, uriInfo)),
+			uriInfo, request, headers);
+	}
+
+	// -- Helper methods --
+
+	/**
+	 * Determines whether an upload is an {@code image} or {@code text}, from the
+	 * hint if given or else from the filename.
+	 *
+	 * @return the type, or null if it is not supported
+	 */
+	private static String fileType(final String typeHint, final String filename) {
+		final String type;
+		if (typeHint != null && typeHint.length() != 0) {
+			type = typeHint.toLowerCase();
+		}
+		else {
+			final String mt = Utils.getMimetype(filename);
+			type = mt.substring(0, mt.indexOf('/'));
+		}
+		return type.equals("image") || type.equals("text") ? type : null;
+	}
+
+	/**
+	 * Spools one file of a batch upload and queues it for decoding. When the
+	 * ingest queue is full, waits for the oldest file of the batch first.
+	 */
+	private void submit(final String filename, final InputStream in,
+		final String typeHint, final ImgMode imgMode, final Map<String, String> ids,
+		final Map<String, String> errors, final Deque<String> pending)
+		throws IOException
+	{
+		final String type = filename == null ? null : fileType(typeHint,
+			filename);
+		if (type == null) {
+			errors.put(unique(filename, errors), "Unrecognized format");
+			return;
+		}
+		final Spool spool;
+		try {
+			spool = spoolService.spool(in, filename);
+		}
+		catch (final SpoolLimitExceededException exc) {
+			errors.put(unique(filename, errors), exc.getMessage());
+			return;
+		}
+		while (true) {
+			try {
+				final String id = ingestService.submit("uploadFiles:filename=" +
+					filename, spool.length(), reservedId -> {
+						final Object obj = open(type, imgMode, spool);
+						if (isLazy(type, imgMode)) objectService.attach(reservedId, spool);
+						return obj;
+					});
+				ids.put(unique(filename, ids), id);
+				pending.add(id);
+				return;
+			}
+			catch (final RejectedExecutionException exc) {
+				if (pending.isEmpty()) {
+					spool.close();
+					errors.put(unique(filename, errors), "Too many pending uploads");
+					return;
+				}
+				awaitIngest(pending.poll());
+			}
+		}
+	}
+
+	/**
+	 * Waits until an asynchronous upload is no longer pending.
+	 *
+	 * @return its final status, or null if unknown
+	 */
+	private IngestStatus awaitIngest(final String id) {
+		final IngestStatus status = ingestService.getStatus(id);
+		if (status == null) return null;
+		try {
+			status.await();
+		}
+		catch (final InterruptedException exc) {
+			Thread.currentThread().interrupt();
+			throw new WebApplicationException(exc);
+		}
+		return status;
+	}
+
+	/** Gets a key that is not in the map yet, numbering repeated filenames. */
+	private static String unique(final String filename,
+		final Map<String, String> map)
+	{
+		final String name = filename == null ? "" : filename;
+		String key = name;
+		for (int i = 2; map.containsKey(key); i++) {
+			key = name + "#" + i;
+		}
+		return key;
+	}
+
+	private static JsonNode batchResult(final Map<String, String> ids,
+		final Map<String, String> errors)
+	{
+		final ObjectNode result = factory.objectNode();
+		final ObjectNode idsNode = result.putObject("ids");
+		ids.forEach(idsNode::put);
+		final ObjectNode errorsNode = result.putObject("errors");
+		errors.forEach(errorsNode::put);
+		return result;
+	}
+
+	/**
+	 * Opens a spooled upload. The spool is closed unless the upload is a lazily
+	 * loaded image, which keeps reading from it.
+	 */
+	private Object open(final String type, final ImgMode imgMode,
+		final Spool spool) throws IOException
+	{
+		boolean keep = false;
+		try {
+			final Object obj = open(type, imgMode, spool.getLocation());
+			keep = isLazy(type, imgMode);
+			return obj;
+		}
+		finally {
+			if (!keep) spool.close();
+		}
+	}
+
+	/**
+	 * Opens an image or a text file.
+	 */
+	private Object open(final String type, final ImgMode imgMode,
+		final Location location) throws IOException
+	{
+		if (type.equals("text")) return ioService.open(location);
+		final SCIFIOConfig config = new SCIFIOConfig();
+		config.imgOpenerSetImgModes(imgMode);
+		return datasetIOService.open(location, config);
+	}
+
+	private static boolean isLazy(final String type, final ImgMode imgMode) {
+		return type.equals("image") && imgMode == ImgMode.CELL;
+	}
+
+	/**
+	 * Gets the image mode requested for an upload, or the server default.
+	 */
+	private ImgMode imgMode(final String hint) {
+		if (hint == null || hint.isEmpty()) return uploadConfig.getImgMode();
+		try {
+			return ImgMode.valueOf(hint.toUpperCase(Locale.ROOT));
+		}
+		catch (final IllegalArgumentException exc) {
+			throw new WebApplicationException("Unknown image mode: " + hint,
+				Status.BAD_REQUEST);
+		}
+	}
+
+	/**
+	 * Counts an object of the given size in its group of the statistics.
+	 */
+	private static void tally(final ObjectNode groups, final String key,
+		final long size)
+	{
+		final ObjectNode group = groups.has(key) ? (ObjectNode) groups.get(key)
+			: groups.putObject(key).put("count", 0).put("size", 0L);
+		group.put("count", group.get("count").asInt() + 1);
+		group.put("size", group.get("size").asLong() + size);
+	}
+
+	private ObjectInfo pin(final String id, final boolean pinned) {
+		if (!objectService.pin(id, pinned)) {
+			throw new WebApplicationException("ID does not exist", Status.NOT_FOUND);
+		}
+		return objectService.find(id);
+	}
+
+	/**
+	 * Gets the Object of an ID. The ID is looked up once, so that the Object
+	 * cannot disappear in between; uploads that are still being decoded are
+	 * rejected with {@code 409 Conflict} and a link to their status rather than
+	 * blocking the request.
+	 */
+	private Object object(final String id) {
+		final ObjectInfo info = objectService.find(id);
+		if (info != null && info.isPending()) {
+			throw new WebApplicationException("Object is still pending", Response
+				.status(Status.CONFLICT).location(URI.create("objects/" + id +
+					"/status")).build());
+		}
+		final Object obj = info == null ? null : info.getObject();
+		if (obj == null) {
+			final IngestStatus status = ingestService.getStatus(id);
+			if (status != null && status.getError() != null) {
+				throw new WebApplicationException("Object could not be created: " +
+					status.getError(), Status.NOT_FOUND);
+			}
 			throw new WebApplicationException("Object does not exist",
 				Status.NOT_FOUND);
 		}
+		return obj;
+	}
 
+	/**
+	 * Gets the tile pyramid of an image object.
+	 */
+	private ImagePyramid pyramid(final String id) {
+		final Object obj = object(id);
+		if (!(obj instanceof Img)) {
+			throw new WebApplicationException("Object is not an image",
+				Status.BAD_REQUEST);
+		}
+		try {
+			return pyramidService.get(id, toDataset(obj).getImgPlus());
+		}
+		catch (final IllegalArgumentException exc) {
+			throw new WebApplicationException(exc.getMessage(), Status.BAD_REQUEST);
+		}
+	}
+
+	/**
+	 * Builds a response with the header and pixels of an image as raw data.
+	 */
+	private static Response raw(final ImgPlus<?> imgPlus,
+		final String byteOrder)
+	{
+		final RawImageHeader header;
+		final byte[] headerBytes;
+		try {
+			header = RawImageCodec.header(imgPlus, RawImageHeader.toByteOrder(
+				byteOrder));
+			headerBytes = RawImageCodec.headerBytes(header);
+		}
+		catch (final IllegalArgumentException exc) {
+			throw new WebApplicationException(exc.getMessage(), Status.BAD_REQUEST);
+		}
+		catch (final IOException exc) {
+			throw new WebApplicationException(exc);
+		}
+
+		final StreamingOutput so = output -> {
+			output.write(headerBytes);
+			RawImageCodec.writeData(imgPlus, header, output);
+		};
+		return Response.ok(so, MediaType.APPLICATION_OCTET_STREAM).header(
+			"Content-Length", headerBytes.length + header.dataLength()).build();
+	}
+
+	/**
+	 * Encodes an image or table through the artifact cache and builds the
+	 * download response, honouring conditional and range headers. Query
+	 * parameters are passed to the writer as options. Artifacts and their ETags
+	 * are tied to the version of the object, so that they are not reused once
+	 * it has been modified.
+	 */
+	private Response download(final String id, final Object obj,
+		final String format, final String variant, final UriInfo uriInfo,
+		final Request request, final HttpHeaders headers)
+	{
 		final String filename = String.format("%s.%s", Utils.timestampedId(8),
 			format);
-		final BytesHandle bah = new BytesHandle();
-
+		final MultivaluedMap<String, String> params = uriInfo.getQueryParameters();
+		final SCIFIOConfig config = obj instanceof Img ? writerConfig(params)
+			: null;
+		final TableIOOptions options = obj instanceof Table ? tableOptions(params)
+			: null;
+		final ObjectInfo info = objectService.find(id);
+		final long version = info == null ? 0 : info.getVersion();
+		final Artifact artifact;
 		try {
-			final Object obj = objectService.find(id).getObject();
-			bah.set(new BytesLocation(8192, filename));
-			if (obj instanceof Img) {
-				final Dataset ds;
-				if (obj instanceof Dataset) {
-					ds = (Dataset) obj;
+			artifact = artifactCache.get(id, version + ":" + variant,
+				() -> spoolService.spool(filename, SizeEstimator.estimate(obj),
+					location -> save(obj, location, config, options)));
+		}
+		catch (final SpoolLimitExceededException exc) {
+			throw new WebApplicationException(exc, Status.SERVICE_UNAVAILABLE);
+		}
+		catch (final IOException exc) {
+			throw new WebApplicationException(exc, Status.CONFLICT);
+		}
+
+		final EntityTag etag = new EntityTag(version + "-" + artifact.getETag());
+		final ResponseBuilder notModified = request.evaluatePreconditions(etag);
+		if (notModified != null) {
+			artifact.release();
+			return notModified.build();
+		}
+
+		final String mt = Utils.getMimetype(filename);
+		final List<ByteRange> ranges = ifRange(headers, etag) ? ByteRange.parse(
+			headers.getHeaderString(RANGE), artifact.length()) : null;
+		if (ranges == null) {
+			final StreamingOutput so = output -> {
+				try {
+					artifact.writeTo(output);
+				}
+				finally {
+					artifact.release();
+				}
+			};
+			return Response.ok(so, mt).header("Content-Length", artifact.length())
+				.header(ACCEPT_RANGES, "bytes").tag(etag).build();
+		}
+		if (ranges.isEmpty()) {
+			artifact.release();
+			return Response.status(Status.REQUESTED_RANGE_NOT_SATISFIABLE).header(
+				CONTENT_RANGE, "bytes */" + artifact.length()).build();
+		}
+		if (ranges.size() == 1) {
+			final ByteRange range = ranges.get(0);
+			final StreamingOutput so = output -> {
+				try {
+					artifact.writeTo(output, range.getFirst(), range.length());
 				}
-				else {
-					@SuppressWarnings({ "rawtypes" })
-					final Img img = (Img) obj;
-					ds = datasetService.create(img);
+				finally {
+					artifact.release();
 				}
-				// TODO: inject query parameters into config
-				final SCIFIOConfig config = new SCIFIOConfig();
-				datasetIOService.save(ds, bah.get(), config);
+			};
+			return Response.status(Status.PARTIAL_CONTENT).entity(so).type(mt)
+				.header("Content-Length", range.length()).header(CONTENT_RANGE, range
+					.toContentRange(artifact.length())).header(ACCEPT_RANGES, "bytes")
+				.tag(etag).build();
+		}
+
+		// multiple ranges are sent as multipart/byteranges
+		final String boundary = Utils.randomString(24);
+		final StreamingOutput so = output -> {
+			try {
+				for (final ByteRange range : ranges) {
+					output.write(("--" + boundary + "\r\nContent-Type: " + mt +
+						"\r\n" + CONTENT_RANGE + ": " + range.toContentRange(artifact
+							.length()) + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+					artifact.writeTo(output, range.getFirst(), range.length());
+					output.write("\r\n".getBytes(StandardCharsets.US_ASCII));
+				}
+				output.write(("--" + boundary + "--\r\n").getBytes(
+					StandardCharsets.US_ASCII));
 			}
-			else if (obj instanceof Table) {
-				// TODO: inject query parameters into IOPlugin (DefaultTableIOPlugin)
-				TableIOOptions options = TableIOOptions.options();
-				tableIOService.save((Table)obj, bah.get(), options);
+			finally {
+				artifact.release();
 			}
-			else {
-				final String type = obj == null ? "null" : obj.getClass().getName();
-				throw new WebApplicationException(
-					"Retrival for Object type not supported yet: " + type,
+		};
+		return Response.status(Status.PARTIAL_CONTENT).entity(so).type(
+			"multipart/byteranges; boundary=" + boundary).header(ACCEPT_RANGES,
+				"bytes").tag(etag).build();
+	}
+
+	/**
+	 * Checks whether a {@code Range} header applies, i.e. whether there is no
+	 * {@code If-Range} precondition or it matches the current entity tag.
+	 */
+	private static boolean ifRange(final HttpHeaders headers,
+		final EntityTag etag)
+	{
+		final String ifRange = headers.getHeaderString(IF_RANGE);
+		return ifRange == null || ifRange.equals(etag.toString());
+	}
+
+	/**
+	 * Describes the requested encoding by its format and sorted query
+	 * parameters, for use as a cache key.
+	 */
+	private static String variant(final String format, final UriInfo uriInfo) {
+		final StringBuilder sb = new StringBuilder(format);
+		new TreeMap<>(uriInfo.getQueryParameters()).forEach((key, values) -> sb
+			.append('&').append(key).append('=').append(String.join(",", values)));
+		return sb.toString();
+	}
+
+	/**
+	 * Encodes an image or table to the given location.
+	 */
+	private void save(final Object obj, final Location location,
+		final SCIFIOConfig config, final TableIOOptions options) throws IOException
+	{
+		if (obj instanceof Img) {
+			datasetIOService.save(toDataset(obj), location, config);
+		}
+		else {
+			tableIOService.save((Table) obj, location, options);
+		}
+	}
+
+	/**
+	 * Creates the image writer configuration from the query parameters
+	 * {@code compression} (e.g. {@code Uncompressed} or {@code LZW} for TIFF),
+	 * {@code sequential}, {@code writeRGB} and {@code fps}.
+	 */
+	private static SCIFIOConfig writerConfig(
+		final MultivaluedMap<String, String> params)
+	{
+		final SCIFIOConfig config = new SCIFIOConfig();
+		final String compression = params.getFirst("compression");
+		if (compression != null) config.writerSetCompression(compression);
+		final String sequential = params.getFirst("sequential");
+		if (sequential != null) {
+			config.writerSetSequential(parseBoolean(sequential, "sequential"));
+		}
+		final String writeRGB = params.getFirst("writeRGB");
+		if (writeRGB != null) {
+			config.imgSaverSetWriteRGB(parseBoolean(writeRGB, "writeRGB"));
+		}
+		final String fps = params.getFirst("fps");
+		if (fps != null) {
+			try {
+				config.writerSetFramesPerSecond(Integer.parseInt(fps));
+			}
+			catch (final NumberFormatException exc) {
+				throw new WebApplicationException("Invalid value for fps",
 					Status.BAD_REQUEST);
 			}
+		}
+		return config;
+	}
 
-			final StreamingOutput so = new StreamingOutput() {
-
-				@Override
-				public void write(OutputStream output) throws IOException,
-					WebApplicationException
-				{
-					byte[] buffer = new byte[1024];
-					int len;
-					while ((len = bah.read(buffer)) != -1) {
-						output.write(buffer, 0, len);
-					}
-				}
-			};
-			final String mt = Utils.getMimetype(filename);
-			return Response.ok(so, mt).header("Content-Length", bah.length()).build();
+	/**
+	 * Creates the table writer options from the query parameters
+	 * {@code columnDelimiter}, {@code rowDelimiter}, {@code quote},
+	 * {@code writeColumnHeaders}, {@code writeRowHeaders}, {@code cornerText}
+	 * and {@code precision} (number of decimals of floating point values).
+	 */
+	private static TableIOOptions tableOptions(
+		final MultivaluedMap<String, String> params)
+	{
+		final TableIOOptions options = TableIOOptions.options();
+		final String columnDelimiter = params.getFirst("columnDelimiter");
+		if (columnDelimiter != null) {
+			options.columnDelimiter(parseChar(columnDelimiter, "columnDelimiter"));
 		}
-		catch (final WebApplicationException exc) {
-			throw exc;
+		final String rowDelimiter = params.getFirst("rowDelimiter");
+		if (rowDelimiter != null) {
+			options.rowDelimiter(unescape(rowDelimiter));
 		}
-		catch (final IOException exc) {
-			throw new WebApplicationException(exc, Status.CONFLICT);
+		final String quote = params.getFirst("quote");
+		if (quote != null) options.quote(parseChar(quote, "quote"));
+		final String writeColumnHeaders = params.getFirst("writeColumnHeaders");
+		if (writeColumnHeaders != null) {
+			options.writeColumnHeaders(parseBoolean(writeColumnHeaders,
+				"writeColumnHeaders"));
+		}
+		final String writeRowHeaders = params.getFirst("writeRowHeaders");
+		if (writeRowHeaders != null) {
+			options.writeRowHeaders(parseBoolean(writeRowHeaders,
+				"writeRowHeaders"));
 		}
+		final String cornerText = params.getFirst("cornerText");
+		if (cornerText != null) options.cornerText(cornerText);
+		final String precision = params.getFirst("precision");
+		if (precision != null) {
+			final String pattern;
+			try {
+				final int decimals = Integer.parseInt(precision);
+				if (decimals < 0) throw new NumberFormatException();
+				pattern = "%." + decimals + "f";
+			}
+			catch (final NumberFormatException exc) {
+				throw new WebApplicationException("Invalid value for precision",
+					Status.BAD_REQUEST);
+			}
+			options.formatter(value -> value instanceof Double ||
+				value instanceof Float ? String.format(Locale.ROOT, pattern, value)
+					: String.valueOf(value));
+		}
+		return options;
 	}
 
-	// -- helper methods --
+	private static boolean parseBoolean(final String value, final String name) {
+		if ("true".equalsIgnoreCase(value)) return true;
+		if ("false".equalsIgnoreCase(value)) return false;
+		throw new WebApplicationException("Invalid value for " + name,
+			Status.BAD_REQUEST);
+	}
 
-	private BytesHandle readFileInputStream(final InputStream fileInputStream, String fileName)
-		throws IOException
+	/**
+	 * Parses a single character, accepting the escapes {@code \t} and
+	 * {@code tab} for tabulators.
+	 */
+	private static char parseChar(final String value, final String name) {
+		final String unescaped = "tab".equals(value) ? "\t" : unescape(value);
+		if (unescaped.length() != 1) {
+			throw new WebApplicationException("Invalid value for " + name,
+				Status.BAD_REQUEST);
+		}
+		return unescaped.charAt(0);
+	}
+
+	/** Replaces the escapes {@code \t}, {@code \n} and {@code \r}. */
+	private static String unescape(final String value) {
+		return value.replace("\\t", "\t").replace("\\n", "\n").replace("\\r",
+			"\r");
+	}
+
+	@SuppressWarnings("unchecked")
+	private Dataset toDataset(final Object obj) {
+		if (obj instanceof Dataset) return (Dataset) obj;
+		@SuppressWarnings({ "rawtypes" })
+		final Img img = (Img) obj;
+		return datasetService.create(img);
+	}
+
+	/**
+	 * Creates a lazy view of a region of the given dataset, keeping its axes.
+	 */
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	private Dataset region(final Dataset ds, final String minSpec,
+		final String maxSpec, final String sizeSpec, final String stepSpec)
 	{
-		// Reads input file into memory
-		final int BUFFER_SIZE = 8192;
-		final BytesHandle bah = new BytesHandle();
-		bah.set(new BytesLocation(BUFFER_SIZE, fileName));
-		final byte[] buffer = new byte[BUFFER_SIZE];
-		int n = 0;
-		while ((n = fileInputStream.read(buffer)) != -1) {
-			bah.write(buffer, 0, n);
-		}
-		return bah;
+		final int n = ds.numDimensions();
+		final Long[] minSpecs = parseDims(minSpec, n, "min");
+		final Long[] maxSpecs = parseDims(maxSpec, n, "max");
+		final Long[] sizeSpecs = parseDims(sizeSpec, n, "size");
+		final Long[] stepSpecs = parseDims(stepSpec, n, "step");
+		final long[] min = new long[n];
+		final long[] max = new long[n];
+		final long[] step = new long[n];
+		for (int d = 0; d < n; d++) {
+			if (sizeSpecs[d] != null && sizeSpecs[d] < 1) {
+				throw new WebApplicationException("Size must be positive in " +
+					"dimension " + d, Status.BAD_REQUEST);
+			}
+			if (stepSpecs[d] != null && stepSpecs[d] < 1) {
+				throw new WebApplicationException("Step must be positive in " +
+					"dimension " + d, Status.BAD_REQUEST);
+			}
+			// NB: explicit coordinates are taken as they are; images may have a
+			// negative origin, and anything else out of bounds is rejected below.
+			min[d] = minSpecs[d] != null ? minSpecs[d] : ds.min(d);
+			max[d] = maxSpecs[d] != null ? maxSpecs[d] : sizeSpecs[d] != null
+				? min[d] + sizeSpecs[d] - 1 : ds.max(d);
+			step[d] = stepSpecs[d] != null ? stepSpecs[d] : 1;
+			if (min[d] < ds.min(d) || max[d] > ds.max(d) || min[d] > max[d]) {
+				throw new WebApplicationException("Region is out of bounds in " +
+					"dimension " + d, Status.BAD_REQUEST);
+			}
+		}
+
+		final Img img = ds.getImgPlus().getImg();
+		RandomAccessibleInterval view = Views.interval(img, min, max);
+		view = Views.zeroMin(Views.subsample(view, step));
+		final AxisType[] axes = new AxisType[n];
+		for (int d = 0; d < n; d++) {
+			axes[d] = ds.axis(d).type();
+		}
+		return datasetService.create(new ImgPlus(ImgView.wrap(view, img.factory()),
+			ds.getName(), axes));
+	}
+
+	/**
+	 * Parses a comma-separated list of per-dimension values. Missing or empty
+	 * entries are reported as null.
+	 */
+	private static Long[] parseDims(final String spec, final int n,
+		final String name)
+	{
+		final Long[] values = new Long[n];
+		if (spec == null || spec.isEmpty()) return values;
+		final String[] tokens = spec.split(",");
+		if (tokens.length > n) {
+			throw new WebApplicationException(String.format(
+				"Too many values for %s: image has %d dimensions", name, n),
+				Status.BAD_REQUEST);
+		}
+		try {
+			for (int d = 0; d < tokens.length; d++) {
+				final String token = tokens[d].trim();
+				if (!token.isEmpty()) values[d] = Long.parseLong(token);
+			}
+		}
+		catch (final NumberFormatException exc) {
+			throw new WebApplicationException("Invalid value for " + name,
+				Status.BAD_REQUEST);
+		}
+		return values;
 	}
 }
@@ -0,0 +1,133 @@
+/*
+ * #%L
+ * ImageJ server for RESTful access to ImageJ.
+ * %%
+ * Copyright (C) 2013 - 2026 Board of Regents of the University of
+ * Wisconsin-Madison.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package net.imagej.server.services;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An encoded representation of an object, shared between concurrent downloads
+ * by an {@link ArtifactCache}.
+ * <p>
+ * Artifacts are reference counted: every holder must call {@link #release()}
+ * once it is done, and the underlying {@link Spool} is closed when the last
+ * reference is released.
+ * </p>
+ */
+public class Artifact {
+
+	private final Spool spool;
+
+	private final String etag;
+
+	private final long createdAt;
+
+	private final AtomicInteger refs = new AtomicInteger(1);
+
+	/**
+	 * Wraps the given spool. The caller holds the initial reference.
+	 * 
+	 * @param spool encoded data
+	 * @throws IOException if the data cannot be read for hashing
+	 */
+	public Artifact(final Spool spool) throws IOException {
+		this.spool = spool;
+		this.etag = digest(spool);
+		this.createdAt = System.currentTimeMillis();
+	}
+
+	/**
+	 * Gets a strong entity tag derived from the encoded bytes.
+	 * 
+	 * @return hex digest of the content
+	 */
+	public String getETag() {
+		return etag;
+	}
+
+	public long length() {
+		return spool.length();
+	}
+
+	public long getCreatedAt() {
+		return createdAt;
+	}
+
+	public void writeTo(final OutputStream out) throws IOException {
+		spool.writeTo(out);
+	}
+
+	public void writeTo(final OutputStream out, final long offset,
+		final long count) throws IOException
+	{
+		spool.writeTo(out, offset, count);
+	}
+
+	/**
+	 * Acquires another reference, unless the artifact was already freed.
+	 * 
+	 * @return true if a reference was acquired
+	 */
+	public boolean retain() {
+		while (true) {
+			final int n = refs.get();
+			if (n == 0) return false;
+			if (refs.compareAndSet(n, n + 1)) return true;
+		}
+	}
+
+	/**
+	 * Releases one reference, freeing the spooled data after the last one.
+	 */
+	public void release() {
+		if (refs.decrementAndGet() == 0) spool.close();
+	}
+
+	// -- Helper methods --
+
+	private static String digest(final Spool spool) throws IOException {
+		final MessageDigest md;
+		try {
+			md = MessageDigest.getInstance("MD5");
+		}
+		catch (final NoSuchAlgorithmException exc) {
+			throw new IllegalStateException(exc);
+		}
+		spool.writeTo(new OutputStream() {
+
+			@Override
+			public void write(final int b) {
+				md.update((byte) b);
+			}
+
+			@Override
+			public void write(final byte[] b, final int off, final int len) {
+				md.update(b, off, len);
+			}
+		});
+		return String.format("%032x", new BigInteger(1, md.digest()));
+	}
+}
@@ -0,0 +1,82 @@
+/*
+ * #%L
+ * ImageJ server for RESTful access to ImageJ.
+ * %%
+ * Copyright (C) 2013 - 2026 Board of Regents of the University of
+ * Wisconsin-Madison.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package net.imagej.server.services;
+
+import java.io.IOException;
+
+/**
+ * Bounded cache of encoded object representations, keyed by object ID and a
+ * variant string describing the format and writer options.
+ */
+public interface ArtifactCache {
+
+	/**
+	 * Gets the artifact for the given key, encoding it if it is not cached yet.
+	 * Concurrent requests for the same key share a single encode. The caller
+	 * must {@link Artifact#release() release} the returned artifact.
+	 * 
+	 * @param id object ID
+	 * @param variant format and options of the encoding
+	 * @param encoder produces the encoded data on a cache miss
+	 * @return the (retained) artifact
+	 * @throws IOException if encoding fails
+	 */
+	Artifact get(final String id, final String variant, final Encoder encoder)
+		throws IOException;
+
+	/**
+	 * Drops the artifacts older than the configured expiry, so that they no
+	 * longer hold their spool files. This happens whenever an artifact is
+	 * added, and should be called periodically as well.
+	 * 
+	 * @return the number of dropped artifacts
+	 */
+	int expire();
+
+	/**
+	 * Drops all artifacts of the given object.
+	 * 
+	 * @param id object ID
+	 */
+	void invalidate(final String id);
+
+	/**
+	 * Gets the total size of cached artifacts.
+	 * 
+	 * @return cached bytes
+	 */
+	long size();
+
+	/**
+	 * Drops all artifacts.
+	 */
+	void clear();
+
+	/**
+	 * Produces the encoded data of an artifact.
+	 */
+	@FunctionalInterface
+	interface Encoder {
+
+		Spool encode() throws IOException;
+	}
+}
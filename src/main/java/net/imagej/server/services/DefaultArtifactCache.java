@@ -0,0 +1,219 @@
+/*
+ * #%L
+ * ImageJ server for RESTful access to ImageJ.
+ * %%
+ * Copyright (C) 2013 - 2026 Board of Regents of the University of
+ * Wisconsin-Madison.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package net.imagej.server.services;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import net.imagej.server.config.ArtifactCacheConfiguration;
+
+/**
+ * Default implementation of {@link ArtifactCache}.
+ * <p>
+ * Artifacts are kept in least-recently-used order and evicted once their total
+ * size exceeds the configured maximum, or once they are older than the
+ * configured expiry. Expired artifacts are swept whenever an artifact is added
+ * and on every call of {@link #expire()}. An evicted artifact stays readable
+ * until every download still using it has released it.
+ * </p>
+ */
+public class DefaultArtifactCache implements ArtifactCache {
+
+	private final long maxBytes;
+
+	private final long expireAfterMillis;
+
+	/** Cached artifacts in access order. Guarded by {@code this}. */
+	private final LinkedHashMap<String, Artifact> artifacts =
+		new LinkedHashMap<>(16, 0.75f, true);
+
+	/** Encodes in progress, so that concurrent misses share one encode. */
+	private final ConcurrentHashMap<String, FutureTask<Artifact>> pending =
+		new ConcurrentHashMap<>();
+
+	private long bytes;
+
+	public DefaultArtifactCache(final ArtifactCacheConfiguration config) {
+		maxBytes = config.getMaxSize().toBytes();
+		expireAfterMillis = config.getExpireAfter().toMilliseconds();
+	}
+
+	@Override
+	public Artifact get(final String id, final String variant,
+		final Encoder encoder) throws IOException
+	{
+		final String key = key(id, variant);
+		while (true) {
+			final Artifact cached = lookup(key);
+			if (cached != null) return cached;
+
+			final FutureTask<Artifact> task = new FutureTask<>(() -> {
+				final Spool spool = encoder.encode();
+				try {
+					return new Artifact(spool);
+				}
+				catch (final IOException | RuntimeException exc) {
+					spool.close();
+					throw exc;
+				}
+			});
+			final FutureTask<Artifact> existing = pending.putIfAbsent(key, task);
+			if (existing != null) {
+				// Another request is encoding the same artifact; share its result.
+				final Artifact artifact = await(existing);
+				if (artifact.retain()) return artifact;
+				continue;
+			}
+
+			task.run();
+			final Artifact artifact;
+			try {
+				artifact = await(task);
+			}
+			finally {
+				// NB: if the entry is gone, the object was invalidated meanwhile.
+				if (pending.remove(key, task)) {
+					if (task.isDone() && !task.isCancelled()) store(key, task);
+				}
+			}
+			return artifact;
+		}
+	}
+
+	@Override
+	public synchronized int expire() {
+		final long now = System.currentTimeMillis();
+		int expired = 0;
+		final Iterator<Artifact> iter = artifacts.values().iterator();
+		while (iter.hasNext()) {
+			final Artifact artifact = iter.next();
+			if (now - artifact.getCreatedAt() <= expireAfterMillis) continue;
+			evict(artifact);
+			iter.remove();
+			expired++;
+		}
+		return expired;
+	}
+
+	@Override
+	public void invalidate(final String id) {
+		final String prefix = key(id, "");
+		pending.keySet().removeIf(key -> key.startsWith(prefix));
+		synchronized (this) {
+			final Iterator<Map.Entry<String, Artifact>> iter = artifacts.entrySet()
+				.iterator();
+			while (iter.hasNext()) {
+				final Map.Entry<String, Artifact> entry = iter.next();
+				if (!entry.getKey().startsWith(prefix)) continue;
+				evict(entry.getValue());
+				iter.remove();
+			}
+		}
+	}
+
+	@Override
+	public synchronized long size() {
+		return bytes;
+	}
+
+	@Override
+	public synchronized void clear() {
+		for (final Artifact artifact : artifacts.values()) {
+			evict(artifact);
+		}
+		artifacts.clear();
+	}
+
+	// -- Helper methods --
+
+	private static String key(final String id, final String variant) {
+		return id + "/" + variant;
+	}
+
+	/** Gets and retains a fresh cached artifact, if any. */
+	private synchronized Artifact lookup(final String key) {
+		final Artifact artifact = artifacts.get(key);
+		if (artifact == null) return null;
+		final long age = System.currentTimeMillis() - artifact.getCreatedAt();
+		if (age > expireAfterMillis) {
+			artifacts.remove(key);
+			evict(artifact);
+			return null;
+		}
+		return artifact.retain() ? artifact : null;
+	}
+
+	/**
+	 * Adds a freshly encoded artifact to the cache. The caller's reference is
+	 * kept; the cache takes an additional one.
+	 */
+	private void store(final String key, final FutureTask<Artifact> task) {
+		final Artifact artifact;
+		try {
+			artifact = task.get();
+		}
+		catch (final InterruptedException | ExecutionException exc) {
+			return;
+		}
+		if (artifact.length() > maxBytes || !artifact.retain()) return;
+		synchronized (this) {
+			final Artifact previous = artifacts.put(key, artifact);
+			if (previous != null) evict(previous);
+			bytes += artifact.length();
+			expire();
+			final Iterator<Artifact> iter = artifacts.values().iterator();
+			while (bytes > maxBytes && iter.hasNext()) {
+				evict(iter.next());
+				iter.remove();
+			}
+		}
+	}
+
+	/** Drops the cache's reference to an artifact. Guarded by {@code this}. */
+	private void evict(final Artifact artifact) {
+		bytes -= artifact.length();
+		artifact.release();
+	}
+
+	private static Artifact await(final FutureTask<Artifact> task)
+		throws IOException
+	{
+		try {
+			return task.get();
+		}
+		catch (final InterruptedException exc) {
+			Thread.currentThread().interrupt();
+			throw new IOException(exc);
+		}
+		catch (final ExecutionException exc) {
+			final Throwable cause = exc.getCause();
+			if (cause instanceof IOException) throw (IOException) cause;
+			if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+			throw new IOException(cause);
+		}
+	}
+}
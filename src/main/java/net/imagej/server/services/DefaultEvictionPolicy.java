@@ -0,0 +1,92 @@
+/*
+ * #%L
+ * ImageJ server for RESTful access to ImageJ.
+ * %%
+ * Copyright (C) 2013 - 2026 Board of Regents of the University of
+ * Wisconsin-Madison.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package net.imagej.server.services;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.imagej.server.config.EvictionConfiguration;
+
+/**
+ * Default implementation of {@link EvictionPolicy}, enforcing the limits of an
+ * {@link EvictionConfiguration}. Objects past their age or idle time go first;
+ * then the least recently used Objects go until the count and size are within
+ * their limits.
+ */
+public class DefaultEvictionPolicy implements EvictionPolicy {
+
+	private final int maxCount;
+
+	private final long maxSize;
+
+	private final long maxAge;
+
+	private final long maxIdle;
+
+	public DefaultEvictionPolicy(final EvictionConfiguration config) {
+		maxCount = config.getMaxCount();
+		final long heapLimit = (long) (config.getMaxHeapFraction() * Runtime
+			.getRuntime().maxMemory());
+		final long sizeLimit = config.getMaxSize().toBytes();
+		maxSize = heapLimit == 0 ? sizeLimit : sizeLimit == 0 ? heapLimit : Math
+			.min(heapLimit, sizeLimit);
+		maxAge = config.getMaxAge().toMilliseconds();
+		maxIdle = config.getMaxIdle().toMilliseconds();
+	}
+
+	@Override
+	public boolean exceeds(final int count, final long size) {
+		return maxCount > 0 && count > maxCount || maxSize > 0 && size > maxSize;
+	}
+
+	@Override
+	public Map<String, String> select(final List<ObjectInfo> candidates,
+		final int count, final long size, final long now)
+	{
+		final Map<String, String> evictions = new LinkedHashMap<>();
+		int remainingCount = count;
+		long remainingSize = size;
+		if (maxAge > 0 || maxIdle > 0) {
+			for (final ObjectInfo info : candidates) {
+				final String reason;
+				if (maxAge > 0 && now - info.getCreatedTime() > maxAge) reason = AGE;
+				else if (maxIdle > 0 && now - info.getLastAccessed() > maxIdle) {
+					reason = IDLE;
+				}
+				else continue;
+				evictions.put(info.getId(), reason);
+				remainingCount--;
+				remainingSize -= info.getSize();
+			}
+		}
+		for (final ObjectInfo info : candidates) {
+			if (!exceeds(remainingCount, remainingSize)) break;
+			if (evictions.containsKey(info.getId())) continue;
+			evictions.put(info.getId(), maxCount > 0 && remainingCount > maxCount
+				? COUNT : SIZE);
+			remainingCount--;
+			remainingSize -= info.getSize();
+		}
+		return evictions;
+	}
+}
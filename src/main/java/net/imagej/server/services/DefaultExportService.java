@@ -0,0 +1,190 @@
+/*
+ * #%L
+ * ImageJ server for RESTful access to ImageJ.
+ * %%
+ * Copyright (C) 2013 - 2026 Board of Regents of the University of
+ * Wisconsin-Madison.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package net.imagej.server.services;
+
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.imagej.server.Utils;
+import net.imagej.server.config.LocalFilesConfiguration;
+
+import org.scijava.io.location.FileLocation;
+
+/**
+ * Default implementation of {@link ExportService}, writing on a fixed pool of
+ * threads.
+ */
+public class DefaultExportService implements ExportService {
+
+	/** Maximum number of finished exports whose status is kept. */
+	private static final int MAX_FINISHED = 1024;
+
+	/** Maximum number of exports waiting for a thread. */
+	private static final int QUEUE_SIZE = 256;
+
+	private final ThreadPoolExecutor executor;
+
+	private final Map<String, ExportStatus> statuses = new LinkedHashMap<>();
+
+	public DefaultExportService(final LocalFilesConfiguration config) {
+		final AtomicInteger count = new AtomicInteger();
+		executor = new ThreadPoolExecutor(config.getExportThreads(), config
+			.getExportThreads(), 1, TimeUnit.MINUTES, new ArrayBlockingQueue<>(
+				QUEUE_SIZE), runnable -> {
+					final Thread thread = new Thread(runnable, "imagej-server-export-" +
+						count.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				});
+		executor.allowCoreThreadTimeOut(true);
+	}
+
+	@Override
+	public ExportStatus submit(final String objectId, final Path target,
+		final boolean overwrite, final Writer writer)
+	{
+		final ExportStatus status = new ExportStatus("export:" + Utils
+			.timestampedId(8), objectId, target.toString());
+		synchronized (statuses) {
+			statuses.put(status.getId(), status);
+			prune();
+		}
+		try {
+			executor.execute(() -> export(status, target, overwrite, writer));
+		}
+		catch (final RuntimeException exc) {
+			synchronized (statuses) {
+				statuses.remove(status.getId());
+			}
+			throw exc;
+		}
+		return status;
+	}
+
+	@Override
+	public ExportStatus getStatus(final String id) {
+		synchronized (statuses) {
+			return statuses.get(id);
+		}
+	}
+
+	@Override
+	public void dispose() {
+		executor.shutdownNow();
+		synchronized (statuses) {
+			statuses.clear();
+		}
+	}
+
+	// -- Helper methods --
+
+	private static void export(final ExportStatus status, final Path target,
+		final boolean overwrite, final Writer writer)
+	{
+		final long start = System.nanoTime();
+		// NB: keep the extension, which selects the format.
+		final String name = target.getFileName().toString();
+		final Path temp = target.resolveSibling("." + Utils.randomString(8) +
+			"-" + name);
+		try {
+			writer.write(new FileLocation(temp.toFile()));
+			if (overwrite) {
+				Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+			}
+			else publish(temp, target);
+			status.finish(elapsed(start), Files.size(target), null);
+		}
+		catch (final FileAlreadyExistsException exc) {
+			status.finish(elapsed(start), null, "File exists");
+			deleteTemp(temp);
+		}
+		catch (final IOException | RuntimeException exc) {
+			status.finish(elapsed(start), null, exc.getMessage() != null ? exc
+				.getMessage() : exc.toString());
+			deleteTemp(temp);
+		}
+	}
+
+	/**
+	 * Moves a complete file into place unless the target exists, even if it was
+	 * created since the export was submitted.
+	 * 
+	 * @throws FileAlreadyExistsException if the target exists
+	 */
+	private static void publish(final Path temp, final Path target)
+		throws IOException
+	{
+		// NB: an atomic move replaces the target, but a link never does.
+		try {
+			Files.createLink(target, temp);
+		}
+		catch (final FileAlreadyExistsException exc) {
+			throw exc;
+		}
+		catch (final UnsupportedOperationException | FileSystemException exc) {
+			// NB: without links, the target is checked right before moving.
+			Files.move(temp, target);
+			return;
+		}
+		Files.delete(temp);
+	}
+
+	private static void deleteTemp(final Path temp) {
+		try {
+			Files.deleteIfExists(temp);
+		}
+		catch (final IOException exc) {
+			// NB: nothing left to do.
+		}
+	}
+
+	private static long elapsed(final long start) {
+		return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+	}
+
+	/** Drops the oldest finished exports beyond {@link #MAX_FINISHED}. */
+	private void prune() {
+		int finished = 0;
+		for (final ExportStatus status : statuses.values()) {
+			if (!ExportStatus.PENDING.equals(status.getStatus())) finished++;
+		}
+		final Iterator<ExportStatus> iter = statuses.values().iterator();
+		while (finished > MAX_FINISHED && iter.hasNext()) {
+			if (!ExportStatus.PENDING.equals(iter.next().getStatus())) {
+				iter.remove();
+				finished--;
+			}
+		}
+	}
+}
@@ -0,0 +1,170 @@
+/*
+ * #%L
+ * ImageJ server for RESTful access to ImageJ.
+ * %%
+ * Copyright (C) 2013 - 2026 Board of Regents of the University of
+ * Wisconsin-Madison.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package net.imagej.server.services;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.imagej.server.config.IngestConfiguration;
+
+/**
+ * Default implementation of {@link IngestService}, decoding on a fixed pool of
+ * threads with a bounded queue.
+ */
+public class DefaultIngestService implements IngestService {
+
+	/** Maximum number of failures kept after their IDs have been removed. */
+	private static final int MAX_FAILURES = 1024;
+
+	/**
+	 * Maximum number of successes kept; older ones are dropped, and their
+	 * objects are then simply reported as ready.
+	 */
+	private static final int MAX_READY = 1024;
+
+	private final ObjectService objectService;
+
+	private final ThreadPoolExecutor executor;
+
+	private final Map<String, IngestStatus> statuses = new LinkedHashMap<>();
+
+	public DefaultIngestService(final IngestConfiguration config,
+		final ObjectService objectService)
+	{
+		this.objectService = objectService;
+		final BlockingQueue<Runnable> queue = config.getQueueSize() == 0
+			? new SynchronousQueue<>() : new ArrayBlockingQueue<>(config
+				.getQueueSize());
+		executor = new ThreadPoolExecutor(config.getThreads(), config.getThreads(),
+			1, TimeUnit.MINUTES, queue, threadFactory());
+		executor.allowCoreThreadTimeOut(true);
+	}
+
+	@Override
+	public String submit(final String createdBy, final long bytesRead,
+		final Decoder decoder)
+	{
+		final String id = objectService.reserve(createdBy);
+		final IngestStatus status = new IngestStatus(id, bytesRead);
+		synchronized (statuses) {
+			statuses.put(id, status);
+		}
+		try {
+			executor.execute(() -> decode(id, status, decoder));
+		}
+		catch (final RejectedExecutionException exc) {
+			synchronized (statuses) {
+				statuses.remove(id);
+			}
+			objectService.remove(id);
+			throw exc;
+		}
+		return id;
+	}
+
+	@Override
+	public IngestStatus getStatus(final String id) {
+		synchronized (statuses) {
+			return statuses.get(id);
+		}
+	}
+
+	@Override
+	public void forget(final String id) {
+		synchronized (statuses) {
+			final IngestStatus status = statuses.get(id);
+			if (status != null && !IngestStatus.FAILED.equals(status.getStatus())) {
+				statuses.remove(id);
+			}
+		}
+	}
+
+	@Override
+	public void dispose() {
+		executor.shutdownNow();
+		synchronized (statuses) {
+			statuses.clear();
+		}
+	}
+
+	// -- Helper methods --
+
+	private void decode(final String id, final IngestStatus status,
+		final Decoder decoder)
+	{
+		final long start = System.nanoTime();
+		String failure = null;
+		try {
+			final Object obj = decoder.decode(id);
+			if (obj == null) failure = "Nothing could be decoded";
+			else if (!objectService.fulfil(id, obj)) failure = "Upload was removed";
+		}
+		catch (final Exception exc) {
+			failure = exc.getMessage() != null ? exc.getMessage() : exc.toString();
+		}
+		status.finish(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+			failure);
+		if (failure != null) {
+			objectService.remove(id);
+			prune(IngestStatus.FAILED, MAX_FAILURES);
+		}
+		else {
+			prune(IngestStatus.READY, MAX_READY);
+		}
+	}
+
+	/** Drops the oldest statuses of a kind beyond the given number. */
+	private void prune(final String kind, final int max) {
+		synchronized (statuses) {
+			int count = 0;
+			for (final IngestStatus status : statuses.values()) {
+				if (kind.equals(status.getStatus())) count++;
+			}
+			final Iterator<IngestStatus> iter = statuses.values().iterator();
+			while (count > max && iter.hasNext()) {
+				if (kind.equals(iter.next().getStatus())) {
+					iter.remove();
+					count--;
+				}
+			}
+		}
+	}
+
+	private static ThreadFactory threadFactory() {
+		final AtomicInteger count = new AtomicInteger();
+		return runnable -> {
+			final Thread thread = new Thread(runnable, "imagej-server-ingest-" +
+				count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+}
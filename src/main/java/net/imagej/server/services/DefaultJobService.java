@@ -0,0 +1,192 @@
+/*
+ * #%L
+ * ImageJ server for RESTful access to ImageJ.
+ * %%
+ * Copyright (C) 2013 - 2026 Board of Regents of the University of
+ * Wisconsin-Madison.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package net.imagej.server.services;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.imagej.server.Utils;
+import net.imagej.server.config.JobConfiguration;
+
+/**
+ * Default implementation of {@link JobService}. Each unfinished job has a
+ * thread of its own, so the number of threads is bounded by the number of job
+ * records.
+ */
+public class DefaultJobService implements JobService {
+
+	private final ThreadPoolExecutor executor;
+
+	private final int maxJobs;
+
+	private final long ttl;
+
+	/** Jobs by ID, oldest first. */
+	private final Map<String, Job> jobs = new LinkedHashMap<>();
+
+	public DefaultJobService(final JobConfiguration config) {
+		maxJobs = config.getMaxJobs();
+		ttl = config.getTtl().toMilliseconds();
+		final AtomicInteger count = new AtomicInteger();
+		executor = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 1,
+			TimeUnit.MINUTES, new SynchronousQueue<>(), runnable -> {
+				final Thread thread = new Thread(runnable, "imagej-server-job-" + count
+					.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			});
+	}
+
+	@Override
+	public JobStatus submit(final String module, final Callable<String> task,
+		final Runnable cleanup)
+	{
+		final JobStatus status = new JobStatus("job:" + Utils.timestampedId(8),
+			module);
+		final FutureTask<Void> future = new FutureTask<Void>(() -> run(status,
+			task, cleanup), null)
+		{
+
+			@Override
+			protected void done() {
+				// NB: a task that never started is not cleaned up after by itself.
+				if (!status.isStarted()) cleanup.run();
+			}
+		};
+		synchronized (jobs) {
+			expire(System.currentTimeMillis());
+			makeRoom();
+			if (jobs.size() >= maxJobs) {
+				throw new RejectedExecutionException("Too many unfinished jobs");
+			}
+			jobs.put(status.getId(), new Job(status, future));
+		}
+		try {
+			executor.execute(future);
+		}
+		catch (final RuntimeException exc) {
+			synchronized (jobs) {
+				jobs.remove(status.getId());
+			}
+			throw exc;
+		}
+		return status;
+	}
+
+	@Override
+	public JobStatus getStatus(final String id) {
+		synchronized (jobs) {
+			expire(System.currentTimeMillis());
+			final Job job = jobs.get(id);
+			return job == null ? null : job.status;
+		}
+	}
+
+	@Override
+	public JobStatus cancel(final String id) {
+		final Job job;
+		synchronized (jobs) {
+			expire(System.currentTimeMillis());
+			job = jobs.get(id);
+		}
+		if (job == null) return null;
+		// NB: mark the job first, so that its interruption is no failure.
+		if (job.status.cancel()) job.future.cancel(true);
+		return job.status;
+	}
+
+	@Override
+	public void dispose() {
+		executor.shutdownNow();
+		synchronized (jobs) {
+			jobs.clear();
+		}
+	}
+
+	// -- Helper methods --
+
+	private static void run(final JobStatus status, final Callable<String> task,
+		final Runnable cleanup)
+	{
+		if (!status.start()) return;
+		String result = null;
+		String failure = null;
+		try {
+			result = task.call();
+		}
+		catch (final Exception exc) {
+			final Throwable cause = exc instanceof ExecutionException && exc
+				.getCause() != null ? exc.getCause() : exc;
+			failure = cause.getMessage() != null ? cause.getMessage() : cause
+				.toString();
+		}
+		finally {
+			// NB: cleaned up before it shows as finished.
+			cleanup.run();
+		}
+		status.finish(result, failure);
+	}
+
+	/** Drops the jobs that finished longer than the TTL ago. */
+	private void expire(final long now) {
+		if (ttl <= 0) return;
+		final Iterator<Job> iter = jobs.values().iterator();
+		while (iter.hasNext()) {
+			final JobStatus status = iter.next().status;
+			if (status.isFinished() && now - status.getFinishedTime() > ttl) {
+				iter.remove();
+			}
+		}
+	}
+
+	/** Drops the oldest finished jobs to make room for a new one. */
+	private void makeRoom() {
+		final Iterator<Job> iter = jobs.values().iterator();
+		while (jobs.size() >= maxJobs && iter.hasNext()) {
+			if (iter.next().status.isFinished()) iter.remove();
+		}
+	}
+
+	// -- Helper classes --
+
+	private static class Job {
+
+		private final JobStatus status;
+
+		private final Future<?> future;
+
+		private Job(final JobStatus status, final Future<?> future) {
+			this.status = status;
+			this.future = future;
+		}
+	}
+}
@@ -38,8 +38,15 @@ import com.fasterxml.jackson.databind.ser.BeanSerializer;
 import com.fasterxml.jackson.databind.ser.BeanSerializerModifier;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.ws.rs.ext.ReaderInterceptor;
+import javax.ws.rs.ext.ReaderInterceptorContext;
 
 import net.imagej.server.json.SciJavaJsonSerializer;
 import net.imagej.server.mixins.Mixins;
@@ -57,6 +64,9 @@ public class DefaultJsonService implements JsonService {
 
 	private static final Class<?>[] NOT_SERIALIZED = { EuclideanSpace.class };
 
+	/** Number of times an Object is retrieved again if it is being spilled. */
+	private static final int MAX_ATTEMPTS = 3;
+
 	/**
 	 * Customized ObjectMapper for serializing unsupported Objects into ID using
 	 * ObjectService.
@@ -72,6 +82,17 @@ public class DefaultJsonService implements JsonService {
 
 	private final List<?> jsonSerializers;
 
+	private volatile long pendingTimeout = 0;
+
+	/**
+	 * Objects acquired by the deserializer while a request body is read on the
+	 * current thread; see {@link #getReaderInterceptor()}.
+	 */
+	private final ThreadLocal<List<Object>> acquired = new ThreadLocal<>();
+
+	/** Releases what the deserializer acquired from unreadable bodies. */
+	private final ReaderInterceptor readerInterceptor;
+
 	/**
 	 * Constructs and initializes a JsonService with an {@link ObjectService}.
 	 * 
@@ -90,12 +111,59 @@ public class DefaultJsonService implements JsonService {
 				if (!(obj instanceof String && ((String) obj).startsWith("object:")))
 					return obj;
 				final String id = (String) obj;
-				if (!objectService.contains(id)) {
+				// NB: look up once; the Object may be removed at any time.
+				final ObjectInfo info = objectService.find(id);
+				if (info == null) {
 					throw new JsonMappingException(p, "Object does not exist");
 				}
-				final ObjectInfo info = objectService.find(id);
 				info.updateLastUsed();
-				return info.getObject();
+				final List<Object> objects = acquired.get();
+				if (objects == null) return resolve(p, id, info);
+				// NB: inputs of requests stay in use until the module has run, so
+				// that they are not spilled meanwhile; if one has just been spilled,
+				// it is restored and acquired again.
+				for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+					final Object object = resolve(p, id, info);
+					if (!objectService.acquire(object)) continue;
+					objects.add(object);
+					return object;
+				}
+				throw new JsonMappingException(p, "Object is not available: " + id);
+			}
+
+			/** Gets the Object, restoring it or waiting for it if necessary. */
+			private Object resolve(final JsonParser p, final String id,
+				final ObjectInfo info) throws JsonMappingException
+			{
+				final Object pending;
+				try {
+					if (!info.isPending()) {
+						final Object object = info.getObject();
+						// NB: a spilled Object is gone once it has been removed.
+						if (object == null) {
+							throw new JsonMappingException(p, "Object does not exist");
+						}
+						return object;
+					}
+					pending = info.awaitObject(pendingTimeout, TimeUnit.MILLISECONDS);
+				}
+				catch (final UncheckedIOException exc) {
+					// NB: a spilled Object could not be restored from its file.
+					throw new JsonMappingException(p, "Object could not be restored: " +
+						id, exc.getCause());
+				}
+				catch (final InterruptedException exc) {
+					Thread.currentThread().interrupt();
+					throw new JsonMappingException(p, "Interrupted waiting for " + id);
+				}
+				catch (final TimeoutException exc) {
+					throw new JsonMappingException(p, "Object is still pending: " + id);
+				}
+				if (pending == null) {
+					throw new JsonMappingException(p, "Object could not be created: " +
+						id);
+				}
+				return pending;
 			}
 		};
 
@@ -153,6 +221,31 @@ public class DefaultJsonService implements JsonService {
 		// register Jackson MixIns to obtain better json output format for some
 		// specific types
 		Mixins.registerMixIns(objToIdMapper);
+
+		readerInterceptor = new ReaderInterceptor() {
+
+			@Override
+			public Object aroundReadFrom(final ReaderInterceptorContext context)
+				throws IOException
+			{
+				// NB: nested reads, e.g. of multipart bodies, belong to the outer one.
+				if (acquired.get() != null) return context.proceed();
+				final List<Object> objects = new ArrayList<>();
+				acquired.set(objects);
+				try {
+					return context.proceed();
+				}
+				catch (final IOException | RuntimeException exc) {
+					for (final Object object : objects) {
+						objectService.release(object);
+					}
+					throw exc;
+				}
+				finally {
+					acquired.remove();
+				}
+			}
+		};
 	}
 
 	@Override
@@ -162,6 +255,16 @@ public class DefaultJsonService implements JsonService {
 		objectMapper.registerModule(module);
 	}
 
+	@Override
+	public ReaderInterceptor getReaderInterceptor() {
+		return readerInterceptor;
+	}
+
+	@Override
+	public void setPendingTimeout(final long millis) {
+		pendingTimeout = millis;
+	}
+
 	@Override
 	public String parseObject(final Object obj) throws JsonProcessingException {
 		return objToIdMapper.writeValueAsString(obj);
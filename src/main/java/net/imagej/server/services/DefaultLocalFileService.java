@@ -0,0 +1,123 @@
+/*
+ * #%L
+ * ImageJ server for RESTful access to ImageJ.
+ * %%
+ * Copyright (C) 2013 - 2026 Board of Regents of the University of
+ * Wisconsin-Madison.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package net.imagej.server.services;
+
+import java.io.IOException;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import net.imagej.server.config.LocalFilesConfiguration;
+
+/**
+ * Default implementation of {@link LocalFileService}.
+ */
+public class DefaultLocalFileService implements LocalFileService {
+
+	private final List<Path> readRoots;
+
+	private final List<Path> writeRoots;
+
+	public DefaultLocalFileService(final LocalFilesConfiguration config) {
+		readRoots = canonical(config.getReadRoots());
+		writeRoots = canonical(config.getWriteRoots());
+	}
+
+	@Override
+	public Path resolveReadable(final String path) throws IOException {
+		if (readRoots.isEmpty()) {
+			throw new AccessDeniedException(path, null,
+				"Opening files by path is disabled");
+		}
+		final Path given = Paths.get(path);
+		if (!given.isAbsolute()) {
+			throw new AccessDeniedException(path, null, "Path must be absolute");
+		}
+		final Path real;
+		try {
+			real = given.toRealPath();
+		}
+		catch (final NoSuchFileException exc) {
+			throw new NoSuchFileException(path);
+		}
+		if (!Files.isRegularFile(real)) throw new NoSuchFileException(path);
+		for (final Path root : readRoots) {
+			if (real.startsWith(root)) return real;
+		}
+		throw new AccessDeniedException(path, null,
+			"Path is outside the allowed roots");
+	}
+
+	@Override
+	public Path resolveWritable(final String path) throws IOException {
+		if (writeRoots.isEmpty()) {
+			throw new AccessDeniedException(path, null,
+				"Writing files by path is disabled");
+		}
+		final Path given = Paths.get(path);
+		if (!given.isAbsolute() || given.getFileName() == null || given
+			.getFileName().toString().matches("\\.\\.?"))
+		{
+			throw new AccessDeniedException(path, null,
+				"Path must be an absolute file path");
+		}
+		final Path parent;
+		try {
+			parent = given.getParent().toRealPath();
+		}
+		catch (final NoSuchFileException exc) {
+			throw new NoSuchFileException(given.getParent().toString());
+		}
+		final Path real = parent.resolve(given.getFileName());
+		if (Files.isSymbolicLink(real) || Files.isDirectory(real)) {
+			throw new AccessDeniedException(path, null, "Path is not a plain file");
+		}
+		for (final Path root : writeRoots) {
+			if (real.startsWith(root)) return real;
+		}
+		throw new AccessDeniedException(path, null,
+			"Path is outside the allowed roots");
+	}
+
+	// -- Helper methods --
+
+	/**
+	 * Canonicalizes the configured roots, so that they compare against resolved
+	 * paths. Roots that do not exist are skipped.
+	 */
+	private static List<Path> canonical(final List<String> roots) {
+		final List<Path> paths = new ArrayList<>();
+		for (final String root : roots) {
+			try {
+				paths.add(Paths.get(root).toRealPath());
+			}
+			catch (final IOException exc) {
+				// NB: nothing can be read below a missing root.
+			}
+		}
+		return paths;
+	}
+}
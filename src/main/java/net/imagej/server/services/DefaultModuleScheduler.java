@@ -0,0 +1,233 @@
+/*
+ * #%L
+ * ImageJ server for RESTful access to ImageJ.
+ * %%
+ * Copyright (C) 2013 - 2026 Board of Regents of the University of
+ * Wisconsin-Madison.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package net.imagej.server.services;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.imagej.server.config.SchedulerConfiguration;
+
+/**
+ * Default implementation of {@link ModuleScheduler}, based on fair semaphores
+ * for all modules and for each module. The numbers of running and waiting
+ * executions, the waiting time and the rejections are reported as metrics;
+ * waiting jobs are reported apart from other waiting executions.
+ */
+public class DefaultModuleScheduler implements ModuleScheduler {
+
+	/** Slots of all modules, or null if unlimited. */
+	private final Semaphore slots;
+
+	private final int maxRunningPerModule;
+
+	/** Slots of each module, if limited. */
+	private final Map<String, Semaphore> moduleSlots = new ConcurrentHashMap<>();
+
+	private final int maxQueued;
+
+	private final long queueTimeout;
+
+	private final long retryAfter;
+
+	private final int batchParallelism;
+
+	private final ThreadPoolExecutor batchExecutor;
+
+	private final AtomicInteger running = new AtomicInteger();
+
+	private final AtomicInteger queued = new AtomicInteger();
+
+	private final AtomicInteger queuedJobs = new AtomicInteger();
+
+	private final Timer waitTime;
+
+	private final Meter queueFull;
+
+	private final Meter queueTimedOut;
+
+	public DefaultModuleScheduler(final SchedulerConfiguration config,
+		final MetricRegistry metrics)
+	{
+		slots = config.getMaxRunning() > 0 ? new Semaphore(config.getMaxRunning(),
+			true) : null;
+		maxRunningPerModule = config.getMaxRunningPerModule();
+		maxQueued = config.getMaxQueued();
+		queueTimeout = config.getQueueTimeout().toNanoseconds();
+		retryAfter = Math.max(1, config.getRetryAfter().toSeconds());
+		// NB: executions beyond the running limit would only wait in the queue.
+		int parallelism = config.getBatchParallelism() > 0 ? config
+			.getBatchParallelism() : Runtime.getRuntime().availableProcessors();
+		if (config.getMaxRunning() > 0) {
+			parallelism = Math.min(parallelism, config.getMaxRunning());
+		}
+		batchParallelism = parallelism;
+		final AtomicInteger count = new AtomicInteger();
+		batchExecutor = new ThreadPoolExecutor(parallelism, parallelism, 1,
+			TimeUnit.MINUTES, new LinkedBlockingQueue<>(), runnable -> {
+				final Thread thread = new Thread(runnable, "imagej-server-batch-" +
+					count.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			});
+		batchExecutor.allowCoreThreadTimeOut(true);
+
+		final String prefix = MetricRegistry.name(ModuleScheduler.class);
+		metrics.register(MetricRegistry.name(prefix, "running"),
+			(Gauge<Integer>) running::get);
+		metrics.register(MetricRegistry.name(prefix, "queued"),
+			(Gauge<Integer>) queued::get);
+		metrics.register(MetricRegistry.name(prefix, "queued-jobs"),
+			(Gauge<Integer>) queuedJobs::get);
+		waitTime = metrics.timer(MetricRegistry.name(prefix, "wait-time"));
+		queueFull = metrics.meter(MetricRegistry.name(prefix, "rejected",
+			"queue-full"));
+		queueTimedOut = metrics.meter(MetricRegistry.name(prefix, "rejected",
+			"queue-timeout"));
+	}
+
+	@Override
+	public Permit acquire(final String module) throws InterruptedException {
+		final Semaphore perModule = slotsOf(module);
+		final long start = System.nanoTime();
+		if (!acquire(perModule, 0)) {
+			if (queued.incrementAndGet() > maxQueued) {
+				queued.decrementAndGet();
+				queueFull.mark();
+				throw new RejectedExecutionException(
+					"Too many module executions waiting");
+			}
+			try {
+				if (!acquire(perModule, queueTimeout)) {
+					queueTimedOut.mark();
+					throw new RejectedExecutionException(
+						"Timed out waiting for other module executions");
+				}
+			}
+			finally {
+				queued.decrementAndGet();
+			}
+		}
+		return admit(perModule, start);
+	}
+
+	@Override
+	public Permit await(final String module) throws InterruptedException {
+		final Semaphore perModule = slotsOf(module);
+		final long start = System.nanoTime();
+		queuedJobs.incrementAndGet();
+		try {
+			if (perModule != null) perModule.acquire();
+			try {
+				if (slots != null) slots.acquire();
+			}
+			catch (final InterruptedException exc) {
+				if (perModule != null) perModule.release();
+				throw exc;
+			}
+		}
+		finally {
+			queuedJobs.decrementAndGet();
+		}
+		return admit(perModule, start);
+	}
+
+	@Override
+	public long getRetryAfter() {
+		return retryAfter;
+	}
+
+	@Override
+	public int getBatchParallelism() {
+		return batchParallelism;
+	}
+
+	@Override
+	public ExecutorService getBatchExecutor() {
+		return batchExecutor;
+	}
+
+	@Override
+	public void dispose() {
+		batchExecutor.shutdownNow();
+	}
+
+	// -- Helper methods --
+
+	/** Gets the slots of a module, or null if unlimited. */
+	private Semaphore slotsOf(final String module) {
+		return maxRunningPerModule > 0 ? moduleSlots.computeIfAbsent(module,
+			k -> new Semaphore(maxRunningPerModule, true)) : null;
+	}
+
+	/** Creates the permit of an execution that holds its slots. */
+	private Permit admit(final Semaphore perModule, final long start) {
+		waitTime.update(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+		running.incrementAndGet();
+
+		final AtomicBoolean released = new AtomicBoolean();
+		return () -> {
+			if (!released.compareAndSet(false, true)) return;
+			running.decrementAndGet();
+			if (slots != null) slots.release();
+			if (perModule != null) perModule.release();
+		};
+	}
+
+	/**
+	 * Acquires a slot of the module and a slot of all modules, in this order.
+	 * 
+	 * @param perModule slots of the module, or null if unlimited
+	 * @param timeout maximum time to wait in nanoseconds
+	 * @return false if the slots could not be acquired in time
+	 */
+	private boolean acquire(final Semaphore perModule, final long timeout)
+		throws InterruptedException
+	{
+		final long deadline = System.nanoTime() + timeout;
+		// NB: a timed tryAcquire respects the fairness of the semaphores.
+		if (perModule != null && !perModule.tryAcquire(timeout,
+			TimeUnit.NANOSECONDS)) return false;
+		try {
+			if (slots == null || slots.tryAcquire(Math.max(0, deadline - System
+				.nanoTime()), TimeUnit.NANOSECONDS)) return true;
+		}
+		catch (final InterruptedException exc) {
+			if (perModule != null) perModule.release();
+			throw exc;
+		}
+		if (perModule != null) perModule.release();
+		return false;
+	}
+}
@@ -21,7 +21,14 @@
 
 package net.imagej.server.services;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Date;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import net.imagej.server.Utils;
 
@@ -33,21 +40,123 @@ import net.imagej.server.Utils;
 public class DefaultObjectInfo implements ObjectInfo {
 
 	private final String id;
-	private final Object object;
+	private volatile CompletableFuture<Object> object;
 	private final String createdAt;
+	private final long createdTime;
 	private final String createdBy;
 	private String lastUsed;
+	private volatile long lastAccessed;
+	private volatile boolean pinned;
+	private volatile long size;
+	private volatile long version;
+	/** Loads a spilled Object back, or null if it is in memory. */
+	private Callable<?> restorer;
+	private volatile boolean spilled;
+	private volatile String spilledClass;
+	/** Number of ongoing uses of the Object. Guarded by {@code this}. */
+	private int uses;
 
 	public DefaultObjectInfo(final Object object, final String createdBy) {
 		final Date now = new Date();
 		createdAt = now.toString();
+		createdTime = now.getTime();
+		lastAccessed = createdTime;
 		this.id = "object:" + Long.toUnsignedString(now.getTime(), 36) + Utils
 			.randomString(8);
-		this.object = object;
+		this.object = CompletableFuture.completedFuture(object);
 		this.createdBy = createdBy;
 		this.lastUsed = null;
 	}
 
+	/**
+	 * Creates the information of a pending Object, which is set later with
+	 * {@link #complete}.
+	 */
+	public DefaultObjectInfo(final String createdBy) {
+		final Date now = new Date();
+		createdAt = now.toString();
+		createdTime = now.getTime();
+		lastAccessed = createdTime;
+		this.id = "object:" + Long.toUnsignedString(now.getTime(), 36) + Utils
+			.randomString(8);
+		this.object = new CompletableFuture<>();
+		this.createdBy = createdBy;
+		this.lastUsed = null;
+	}
+
+	/**
+	 * Sets the Object of a pending Object information.
+	 * 
+	 * @param obj the created Object, or null if its creation failed
+	 * @return false if the Object had been set already
+	 */
+	public boolean complete(final Object obj) {
+		return object.complete(obj);
+	}
+
+	/**
+	 * Marks the Object as removed: wakes up anyone waiting for a pending Object
+	 * and stops restoring a spilled one.
+	 * 
+	 * @return the Object if it is in memory, or null
+	 */
+	public synchronized Object discard() {
+		object.complete(null);
+		restorer = null;
+		return object.getNow(null);
+	}
+
+	/**
+	 * Drops the Object from memory after it has been spilled to disk. It is
+	 * restored when it is next retrieved, and is then no longer spilled.
+	 * <p>
+	 * NB: only this reference is dropped. Other holders of the Object, such as
+	 * views derived from it, keep the old instance alive, so its memory is only
+	 * reclaimed once they let go of it. Objects {@link #isInUse() in use}, e.g.
+	 * by running modules that may change them, must not be spilled.
+	 * </p>
+	 * 
+	 * @param restorer loads the Object back
+	 * @return the dropped Object, or null if there was none in memory
+	 */
+	public synchronized Object spill(final Callable<?> restorer) {
+		final Object obj = object.getNow(null);
+		if (obj == null) return null;
+		spilledClass = obj.getClass().getName();
+		this.restorer = restorer;
+		spilled = true;
+		object = CompletableFuture.completedFuture(null);
+		return obj;
+	}
+
+	/**
+	 * Records a use of the Object, unless it is no longer the resident Object,
+	 * e.g. because it has been spilled.
+	 * 
+	 * @param obj the Object about to be used
+	 * @return false if the Object is not resident
+	 */
+	public synchronized boolean acquire(final Object obj) {
+		if (obj == null || object.getNow(null) != obj) return false;
+		uses++;
+		return true;
+	}
+
+	/** Records the end of a use of the Object. */
+	public synchronized void release() {
+		if (uses > 0) uses--;
+	}
+
+	@Override
+	public synchronized boolean isInUse() {
+		return uses > 0;
+	}
+
+	/** Gets the Object without restoring it if it has been spilled. */
+	public Object getResidentObject() {
+		return this.object.getNow(null);
+	}
+
 	@Override
 	public String getId() {
 		return this.id;
@@ -55,7 +164,34 @@ public class DefaultObjectInfo implements ObjectInfo {
 
 	@Override
 	public Object getObject() {
-		return this.object;
+		final Object obj = this.object.getNow(null);
+		return obj == null && spilled ? restore() : obj;
+	}
+
+	@Override
+	public String getObjectClass() {
+		final Object obj = this.object.getNow(null);
+		if (obj != null) return obj.getClass().getName();
+		return spilled ? spilledClass : null;
+	}
+
+	@Override
+	public boolean isPending() {
+		return !this.object.isDone();
+	}
+
+	@Override
+	public Object awaitObject(final long timeout, final TimeUnit unit)
+		throws InterruptedException, TimeoutException
+	{
+		try {
+			final Object obj = this.object.get(timeout, unit);
+			return obj == null && spilled ? restore() : obj;
+		}
+		catch (final ExecutionException exc) {
+			// NB: never completed exceptionally.
+			return null;
+		}
 	}
 
 	@Override
@@ -75,7 +211,83 @@ public class DefaultObjectInfo implements ObjectInfo {
 
 	@Override
 	public void updateLastUsed() {
-		this.lastUsed = new Date().toString();
+		final Date now = new Date();
+		this.lastUsed = now.toString();
+		this.lastAccessed = now.getTime();
+	}
+
+	@Override
+	public boolean isPinned() {
+		return this.pinned;
+	}
+
+	public void setPinned(final boolean pinned) {
+		this.pinned = pinned;
+	}
+
+	@Override
+	public long getCreatedTime() {
+		return this.createdTime;
+	}
+
+	@Override
+	public long getLastAccessed() {
+		return this.lastAccessed;
+	}
+
+	/** Records that the Object has been looked up. */
+	public void touch() {
+		this.lastAccessed = System.currentTimeMillis();
+	}
+
+	@Override
+	public long getSize() {
+		return this.size;
+	}
+
+	public void setSize(final long size) {
+		this.size = size;
+	}
+
+	@Override
+	public long getVersion() {
+		return this.version;
+	}
+
+	/** Records that the Object may have been modified in place. */
+	public synchronized void modified() {
+		this.version++;
+	}
+
+	@Override
+	public boolean isSpilled() {
+		return this.spilled;
+	}
+
+	// -- Helper methods --
+
+	private synchronized Object restore() {
+		final Object current = object.getNow(null);
+		if (current != null || restorer == null) return current;
+		final Object obj;
+		try {
+			obj = restorer.call();
+		}
+		catch (final IOException exc) {
+			throw new UncheckedIOException(exc);
+		}
+		catch (final RuntimeException exc) {
+			throw exc;
+		}
+		catch (final Exception exc) {
+			throw new IllegalStateException(exc);
+		}
+		object = CompletableFuture.completedFuture(obj);
+		restorer = null;
+		// NB: the restored Object is resident, and may be spilled again.
+		spilled = false;
+		spilledClass = null;
+		return obj;
 	}
 
 }
@@ -21,9 +21,22 @@
 
 package net.imagej.server.services;
 
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 /**
  * Service that handles concurrent Object registration and retrieval using IDs.
@@ -33,11 +46,27 @@ import java.util.concurrent.ConcurrentHashMap;
 public class DefaultObjectService implements ObjectService {
 
 	final private ConcurrentHashMap<String, ObjectInfo> id2obj;
-	final private ConcurrentHashMap<Object, String> obj2id;
+	final private WeakIdentityMap<Object, String> obj2id;
+	final private List<Consumer<ObjectInfo>> removalListeners;
+	final private ConcurrentHashMap<String, List<Closeable>> attachments;
+	final private List<BiConsumer<ObjectInfo, String>> evictionListeners;
+	final private List<Consumer<ObjectInfo>> spillListeners;
+	final private List<Consumer<ObjectInfo>> modificationListeners;
+	final private AtomicLong totalSize;
+	final private ReentrantLock evictionLock;
+	private volatile EvictionPolicy evictionPolicy;
+	private volatile SpillService spillService;
 
 	public DefaultObjectService() {
 		id2obj = new ConcurrentHashMap<>();
-		obj2id = new ConcurrentHashMap<>();
+		obj2id = new WeakIdentityMap<>();
+		removalListeners = new CopyOnWriteArrayList<>();
+		attachments = new ConcurrentHashMap<>();
+		evictionListeners = new CopyOnWriteArrayList<>();
+		spillListeners = new CopyOnWriteArrayList<>();
+		modificationListeners = new CopyOnWriteArrayList<>();
+		totalSize = new AtomicLong();
+		evictionLock = new ReentrantLock();
 	}
 
 	@Override
@@ -47,29 +76,343 @@ public class DefaultObjectService implements ObjectService {
 
 	@Override
 	public String register(final Object object, final String createdBy) {
+		// NB: Objects are often registered again, e.g. when serializing outputs.
+		final String existing = obj2id.get(object);
+		if (existing != null) return existing;
+
 		final DefaultObjectInfo info = new DefaultObjectInfo(object, createdBy);
 		final String prev = obj2id.putIfAbsent(object, info.getId());
 
 		if (prev != null) return prev;
 
+		info.setSize(SizeEstimator.estimate(object));
+		totalSize.addAndGet(info.getSize());
+		id2obj.put(info.getId(), info);
+		evictIfExceeded(info.getId());
+		return info.getId();
+	}
+
+	@Override
+	public String reserve(final String createdBy) {
+		final DefaultObjectInfo info = new DefaultObjectInfo(createdBy);
 		id2obj.put(info.getId(), info);
 		return info.getId();
 	}
 
+	@Override
+	public boolean fulfil(final String id, final Object object) {
+		final ObjectInfo info = id2obj.get(id);
+		if (!(info instanceof DefaultObjectInfo)) return false;
+		synchronized (info) {
+			// NB: mapped first, so that the Object can be acquired once completed.
+			final boolean mapped = obj2id.putIfAbsent(object, id) == null;
+			if (!((DefaultObjectInfo) info).complete(object)) {
+				if (mapped) obj2id.remove(object, id);
+				return false;
+			}
+			((DefaultObjectInfo) info).setSize(SizeEstimator.estimate(object));
+			totalSize.addAndGet(info.getSize());
+		}
+		evictIfExceeded(id);
+		return true;
+	}
+
 	@Override
 	public boolean remove(final String id) {
 		if (!id2obj.containsKey(id)) return false;
 		final ObjectInfo info = id2obj.get(id);
-		return id2obj.remove(id, info) && obj2id.remove(info.getObject(), id);
+		if (!id2obj.remove(id, info)) return false;
+		synchronized (info) {
+			// NB: wakes up anyone waiting for a pending Object.
+			final Object object = info instanceof DefaultObjectInfo
+				? ((DefaultObjectInfo) info).discard() : info.getObject();
+			if (object != null) obj2id.remove(object, id);
+			totalSize.addAndGet(-info.getSize());
+		}
+		// NB: restored Objects are still mapped from their files.
+		final SpillService spill = spillService;
+		if (spill != null) spill.release(id);
+		closeAttachments(id);
+		for (final Consumer<ObjectInfo> listener : removalListeners) {
+			listener.accept(info);
+		}
+		return true;
 	}
 
 	@Override
 	public ObjectInfo find(final String id) {
-		return id2obj.get(id);
+		final ObjectInfo info = id2obj.get(id);
+		if (info instanceof DefaultObjectInfo) ((DefaultObjectInfo) info).touch();
+		return info;
+	}
+
+	@Override
+	public boolean acquire(final Object object) {
+		final DefaultObjectInfo info = info(object);
+		return info != null && info.acquire(object);
+	}
+
+	@Override
+	public boolean release(final Object object) {
+		final DefaultObjectInfo info = info(object);
+		if (info == null) return false;
+		info.release();
+		return true;
+	}
+
+	@Override
+	public Collection<ObjectInfo> getInfos() {
+		return Collections.unmodifiableCollection(id2obj.values());
 	}
 
 	@Override
 	public boolean contains(final String id) {
 		return id2obj.containsKey(id);
 	}
+
+	@Override
+	public void attach(final String id, final Closeable resource) {
+		attachments.computeIfAbsent(id, k -> new CopyOnWriteArrayList<>()).add(
+			resource);
+		// NB: the Object may have been removed concurrently.
+		if (!id2obj.containsKey(id)) closeAttachments(id);
+	}
+
+	@Override
+	public void addRemovalListener(final Consumer<ObjectInfo> listener) {
+		removalListeners.add(listener);
+	}
+
+	@Override
+	public boolean pin(final String id, final boolean pinned) {
+		final ObjectInfo info = id2obj.get(id);
+		if (!(info instanceof DefaultObjectInfo)) return false;
+		((DefaultObjectInfo) info).setPinned(pinned);
+		return true;
+	}
+
+	@Override
+	public long getTotalSize() {
+		return totalSize.get();
+	}
+
+	@Override
+	public void setEvictionPolicy(final EvictionPolicy policy) {
+		evictionPolicy = policy;
+	}
+
+	@Override
+	public int evict() {
+		return evict(null);
+	}
+
+	@Override
+	public void addEvictionListener(
+		final BiConsumer<ObjectInfo, String> listener)
+	{
+		evictionListeners.add(listener);
+	}
+
+	@Override
+	public void setSpillService(final SpillService spillService) {
+		this.spillService = spillService;
+	}
+
+	@Override
+	public int spill() {
+		final SpillService spill = spillService;
+		if (spill == null) return 0;
+		if (!evictionLock.tryLock()) return 0;
+		try {
+			return spill(spill, candidates(null), null);
+		}
+		finally {
+			evictionLock.unlock();
+		}
+	}
+
+	@Override
+	public void addSpillListener(final Consumer<ObjectInfo> listener) {
+		spillListeners.add(listener);
+	}
+
+	@Override
+	public String modified(final Object object) {
+		final String id = obj2id.get(object);
+		if (id == null) return null;
+		final ObjectInfo info = id2obj.get(id);
+		if (!(info instanceof DefaultObjectInfo)) return null;
+		((DefaultObjectInfo) info).modified();
+		for (final Consumer<ObjectInfo> listener : modificationListeners) {
+			listener.accept(info);
+		}
+		return id;
+	}
+
+	@Override
+	public void addModificationListener(final Consumer<ObjectInfo> listener) {
+		modificationListeners.add(listener);
+	}
+
+	// -- Helper methods --
+
+	/**
+	 * Evicts Objects if the count or size limits are exceeded, e.g. after a
+	 * registration.
+	 * 
+	 * @param exempt ID of an Object not to evict, so that a newly registered
+	 *          Object outlives its registration
+	 */
+	private void evictIfExceeded(final String exempt) {
+		final EvictionPolicy policy = evictionPolicy;
+		if (policy == null || !policy.exceeds(id2obj.size(), totalSize.get())) {
+			return;
+		}
+		evict(exempt);
+	}
+
+	private int evict(final String exempt) {
+		final EvictionPolicy policy = evictionPolicy;
+		if (policy == null) return 0;
+		// NB: one pass at a time; a concurrent pass sees the same Objects.
+		if (!evictionLock.tryLock()) return 0;
+		try {
+			final List<ObjectInfo> candidates = candidates(exempt);
+			// NB: spill images first, so that fewer Objects need to be evicted.
+			final SpillService spill = spillService;
+			if (spill != null) spill(spill, candidates, policy);
+			final Map<String, String> evictions = policy.select(candidates, id2obj
+				.size(), totalSize.get(), System.currentTimeMillis());
+
+			int evicted = 0;
+			for (final Map.Entry<String, String> eviction : evictions.entrySet()) {
+				final ObjectInfo info = id2obj.get(eviction.getKey());
+				// NB: the Object may have been pinned or used in the meantime.
+				if (info == null || info.isPinned() || info.isInUse()) continue;
+				if (!remove(eviction.getKey())) continue;
+				evicted++;
+				for (final BiConsumer<ObjectInfo, String> listener :
+					evictionListeners)
+				{
+					listener.accept(info, eviction.getValue());
+				}
+			}
+			return evicted;
+		}
+		finally {
+			evictionLock.unlock();
+		}
+	}
+
+	/** Gets the information of a registered Object. */
+	private DefaultObjectInfo info(final Object object) {
+		final String id = obj2id.get(object);
+		final ObjectInfo info = id == null ? null : id2obj.get(id);
+		return info instanceof DefaultObjectInfo ? (DefaultObjectInfo) info : null;
+	}
+
+	/**
+	 * Lists the Objects that may be evicted or spilled, i.e. that are neither
+	 * pinned, pending nor in use, least recently accessed first.
+	 */
+	private List<ObjectInfo> candidates(final String exempt) {
+		final List<ObjectInfo> candidates = new ArrayList<>();
+		final Map<ObjectInfo, Long> accessed = new IdentityHashMap<>();
+		for (final ObjectInfo info : id2obj.values()) {
+			if (info.isPinned() || info.isPending() || info.isInUse() || info
+				.getId().equals(exempt)) continue;
+			candidates.add(info);
+			// NB: sort by a snapshot, as accesses go on while sorting.
+			accessed.put(info, info.getLastAccessed());
+		}
+		candidates.sort(Comparator.comparing(accessed::get));
+		return candidates;
+	}
+
+	/**
+	 * Spills the images among the candidates that have been idle for too long,
+	 * and then the least recently accessed ones while the size limit of the
+	 * eviction policy is exceeded.
+	 * 
+	 * @param policy eviction policy whose size limit to meet, or null
+	 * @return the number of spilled Objects
+	 */
+	private int spill(final SpillService spill,
+		final List<ObjectInfo> candidates, final EvictionPolicy policy)
+	{
+		final long idleTime = spill.getIdleTime();
+		final long now = System.currentTimeMillis();
+		int spilled = 0;
+		for (final ObjectInfo info : candidates) {
+			final boolean idle = idleTime > 0 && now - info
+				.getLastAccessed() > idleTime;
+			// NB: spilling frees memory but not IDs, so only the size limit counts.
+			if (!idle && (policy == null || !policy.exceeds(0, totalSize.get()))) {
+				break;
+			}
+			if (info instanceof DefaultObjectInfo && spill(spill,
+				(DefaultObjectInfo) info)) spilled++;
+		}
+		return spilled;
+	}
+
+	private boolean spill(final SpillService spill, final DefaultObjectInfo info) {
+		final String id = info.getId();
+		final Object object = info.getResidentObject();
+		if (info.isSpilled() || object == null || !spill.accepts(object, info
+			.getSize())) return false;
+		try {
+			spill.spill(id, object);
+		}
+		catch (final IOException | RuntimeException exc) {
+			// NB: the Object stays in memory if it cannot be written.
+			return false;
+		}
+		synchronized (info) {
+			// NB: the Object may have been removed in the meantime.
+			if (!id2obj.containsKey(id)) {
+				spill.release(id);
+				return false;
+			}
+			// NB: the file may be torn if the Object was acquired while writing;
+			// it is rewritten by the next spill and deleted along with the Object.
+			if (info.isInUse()) return false;
+			final long size = info.getSize();
+			info.spill(() -> restore(spill, info, size));
+			obj2id.remove(object, id);
+			totalSize.addAndGet(-size);
+			info.setSize(0);
+		}
+		for (final Consumer<ObjectInfo> listener : spillListeners) {
+			listener.accept(info);
+		}
+		return true;
+	}
+
+	/**
+	 * Restores a spilled Object, which keeps the ID it was spilled with and
+	 * counts with its former size again. Called while the information is locked.
+	 */
+	private Object restore(final SpillService spill, final DefaultObjectInfo info,
+		final long size) throws IOException
+	{
+		final Object object = spill.restore(info.getId());
+		obj2id.putIfAbsent(object, info.getId());
+		info.setSize(size);
+		totalSize.addAndGet(size);
+		return object;
+	}
+
+	private void closeAttachments(final String id) {
+		final List<Closeable> resources = attachments.remove(id);
+		if (resources == null) return;
+		for (final Closeable resource : resources) {
+			try {
+				resource.close();
+			}
+			catch (final IOException exc) {
+				// NB: nothing left to do with a resource that fails to close.
+			}
+		}
+	}
 }
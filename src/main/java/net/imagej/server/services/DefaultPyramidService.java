@@ -0,0 +1,70 @@
+/*
+ * #%L
+ * ImageJ server for RESTful access to ImageJ.
+ * %%
+ * Copyright (C) 2013 - 2026 Board of Regents of the University of
+ * Wisconsin-Madison.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package net.imagej.server.services;
+
+import java.lang.ref.SoftReference;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import net.imagej.ImgPlus;
+import net.imagej.server.config.TileConfiguration;
+
+/**
+ * Default implementation of {@link PyramidService}. Pyramids are held by soft
+ * references, so that the memory of idle pyramids can be reclaimed.
+ */
+public class DefaultPyramidService implements PyramidService {
+
+	private final int tileSize;
+
+	private final Map<String, SoftReference<ImagePyramid>> pyramids =
+		new ConcurrentHashMap<>();
+
+	public DefaultPyramidService(final TileConfiguration config) {
+		tileSize = config.getSize();
+	}
+
+	@Override
+	public ImagePyramid get(final String id, final ImgPlus<?> img) {
+		final SoftReference<ImagePyramid> ref = pyramids.compute(id, (k, v) -> {
+			final ImagePyramid cached = v == null ? null : v.get();
+			// NB: objects may be replaced under the same ID by modules.
+			if (cached != null && cached.getSource().getImg() == img.getImg()) {
+				return v;
+			}
+			return new SoftReference<>(new ImagePyramid(img, tileSize));
+		});
+		final ImagePyramid pyramid = ref.get();
+		// NB: the reference may be cleared right after creation.
+		return pyramid != null ? pyramid : new ImagePyramid(img, tileSize);
+	}
+
+	@Override
+	public void invalidate(final String id) {
+		pyramids.remove(id);
+	}
+
+	@Override
+	public void clear() {
+		pyramids.clear();
+	}
+}
@@ -0,0 +1,208 @@
+/*
+ * #%L
+ * ImageJ server for RESTful access to ImageJ.
+ * %%
+ * Copyright (C) 2013 - 2026 Board of Regents of the University of
+ * Wisconsin-Madison.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package net.imagej.server.services;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.imagej.ImgPlus;
+import net.imagej.server.Utils;
+import net.imagej.server.config.SharedMemoryConfiguration;
+import net.imagej.server.io.MappedImages;
+import net.imagej.server.io.RawImageCodec;
+import net.imagej.server.io.RawImageHeader;
+import net.imagej.server.io.SharedImageHeader;
+
+/**
+ * Default implementation of {@link SharedMemoryService}. Server-owned files
+ * are named after their object ID.
+ */
+public class DefaultSharedMemoryService implements SharedMemoryService {
+
+	private static final int BUFFER_SIZE = 1024 * 1024;
+
+	/** Shared directory, or null if sharing is disabled. */
+	private final Path directory;
+
+	/** Descriptions of objects mapped from files, by object ID. */
+	private final Map<String, SharedImageHeader> mapped = new HashMap<>();
+
+	/** Files copied from objects, by object ID. */
+	private final Map<String, Path> owned = new HashMap<>();
+
+	public DefaultSharedMemoryService(final SharedMemoryConfiguration config) {
+		Path dir = null;
+		if (config.getDirectory() != null) {
+			try {
+				dir = Files.createDirectories(Paths.get(config.getDirectory()))
+					.toRealPath();
+			}
+			catch (final IOException exc) {
+				// NB: sharing stays disabled without a usable directory.
+			}
+		}
+		directory = dir;
+	}
+
+	@Override
+	public SharedImageHeader share(final String id, final ImgPlus<?> imgPlus)
+		throws IOException
+	{
+		synchronized (this) {
+			final SharedImageHeader header = mapped.get(id);
+			if (header != null) return header;
+		}
+		if (directory == null) {
+			throw new AccessDeniedException(id, null, "Shared memory is disabled");
+		}
+
+		final SharedImageHeader header = new SharedImageHeader();
+		copy(RawImageCodec.header(imgPlus, ByteOrder.nativeOrder()), header);
+		final String name = id.replace(':', '-') + ".raw";
+		final Path target = directory.resolve(name);
+		// NB: replace the file rather than rewrite it, so that clients still
+		// mapping an earlier copy are not cut short.
+		final Path temp = directory.resolve("." + Utils.randomString(8) + "-" +
+			name);
+		try {
+			try (final OutputStream out = new BufferedOutputStream(Files
+				.newOutputStream(temp, StandardOpenOption.CREATE_NEW), BUFFER_SIZE))
+			{
+				RawImageCodec.writeData(imgPlus, header, out);
+			}
+			Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+		}
+		finally {
+			Files.deleteIfExists(temp);
+		}
+		synchronized (this) {
+			owned.put(id, target);
+		}
+		header.setFile(name);
+		header.setPath(target.toString());
+		return header;
+	}
+
+	@Override
+	public ImgPlus<?> map(final SharedImageHeader header) throws IOException {
+		final String name = header.getFile();
+		if (directory == null) {
+			throw new AccessDeniedException(name, null, "Shared memory is disabled");
+		}
+		if (name == null || name.isEmpty() || name.matches("\\.\\.?") || name
+			.contains("/") || name.contains("\\"))
+		{
+			throw new AccessDeniedException(name, null,
+				"File must be a plain file name");
+		}
+		try {
+			header.validate();
+		}
+		catch (final IllegalArgumentException exc) {
+			throw new IOException("Invalid shared image: " + exc.getMessage());
+		}
+		final Path file = directory.resolve(name);
+		if (!Files.exists(file, LinkOption.NOFOLLOW_LINKS)) {
+			throw new NoSuchFileException(name);
+		}
+		if (!Files.isRegularFile(file, LinkOption.NOFOLLOW_LINKS)) {
+			throw new AccessDeniedException(name, null, "File is not a plain file");
+		}
+		// NB: the mapping stays valid after the channel is closed.
+		try (final FileChannel channel = FileChannel.open(file,
+			StandardOpenOption.READ, StandardOpenOption.WRITE))
+		{
+			final ImgPlus<?> imgPlus = MappedImages.map(channel, header, header
+				.getOffset());
+			header.setPath(file.toString());
+			return imgPlus;
+		}
+	}
+
+	@Override
+	public synchronized void attach(final String id,
+		final SharedImageHeader header)
+	{
+		mapped.put(id, header);
+	}
+
+	@Override
+	public void release(final String id) {
+		final Path file;
+		synchronized (this) {
+			mapped.remove(id);
+			file = owned.remove(id);
+		}
+		delete(file);
+	}
+
+	@Override
+	public void dispose() {
+		final List<Path> files;
+		synchronized (this) {
+			mapped.clear();
+			files = new ArrayList<>(owned.values());
+			owned.clear();
+		}
+		for (final Path file : files) {
+			delete(file);
+		}
+	}
+
+	// -- Helper methods --
+
+	private static void copy(final RawImageHeader from,
+		final SharedImageHeader to)
+	{
+		to.setName(from.getName());
+		to.setDims(from.getDims());
+		to.setAxes(from.getAxes());
+		to.setDtype(from.getDtype());
+		to.setByteOrder(from.getByteOrder());
+	}
+
+	private static void delete(final Path file) {
+		if (file == null) return;
+		try {
+			Files.deleteIfExists(file);
+		}
+		catch (final IOException exc) {
+			// NB: the file is left for the system to clean up.
+		}
+	}
+}
@@ -0,0 +1,234 @@
+/*
+ * #%L
+ * ImageJ server for RESTful access to ImageJ.
+ * %%
+ * Copyright (C) 2013 - 2026 Board of Regents of the University of
+ * Wisconsin-Madison.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package net.imagej.server.services;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.ref.WeakReference;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import net.imagej.Dataset;
+import net.imagej.DatasetService;
+import net.imagej.ImgPlus;
+import net.imagej.axis.CalibratedAxis;
+import net.imagej.server.config.SpillConfiguration;
+import net.imagej.server.io.MappedImages;
+import net.imagej.server.io.PixelType;
+import net.imagej.server.io.RawImageCodec;
+import net.imagej.server.io.RawImageHeader;
+import net.imglib2.img.Img;
+
+/**
+ * Default implementation of {@link SpillService}. Images are written as raw
+ * pixels in native byte order, one file per object ID, and restored as
+ * {@link MappedImages memory-mapped images}, so that their pixels are paged in
+ * by the operating system as they are read. The name, axes and calibration of
+ * images are restored; other metadata, e.g. color tables, is not.
+ */
+public class DefaultSpillService implements SpillService {
+
+	private static final int BUFFER_SIZE = 1024 * 1024;
+
+	/** Largest number of pixels of a mapped image. */
+	private static final long MAX_PIXELS = Integer.MAX_VALUE - 8;
+
+	/** Spill directory, or null if spilling is disabled. */
+	private final Path directory;
+
+	private final long minSize;
+
+	private final long idleTime;
+
+	private final DatasetService datasetService;
+
+	/** Spilled images by object ID. */
+	private final Map<String, Spilled> spilled = new ConcurrentHashMap<>();
+
+	public DefaultSpillService(final SpillConfiguration config,
+		final DatasetService datasetService)
+	{
+		Path dir = null;
+		if (config.getDirectory() != null) {
+			try {
+				dir = Files.createDirectories(Paths.get(config.getDirectory()))
+					.toRealPath();
+			}
+			catch (final IOException exc) {
+				// NB: spilling stays disabled without a usable directory.
+			}
+		}
+		directory = dir;
+		minSize = config.getMinSize().toBytes();
+		idleTime = config.getIdleTime().toMilliseconds();
+		this.datasetService = datasetService;
+	}
+
+	@Override
+	public boolean accepts(final Object object, final long size) {
+		if (directory == null || size == 0 || size < minSize) return false;
+		final ImgPlus<?> imgPlus = imgPlus(object);
+		return imgPlus != null && imgPlus.size() <= MAX_PIXELS && PixelType.of(
+			imgPlus.firstElement()) != null;
+	}
+
+	@Override
+	public long getIdleTime() {
+		return idleTime;
+	}
+
+	@Override
+	public void spill(final String id, final Object object) throws IOException {
+		final ImgPlus<?> imgPlus = imgPlus(object);
+		if (directory == null || imgPlus == null) {
+			throw new IOException("Object cannot be spilled: " + id);
+		}
+		final Spilled current = spilled.get(id);
+		if (current != null && current.isRestored(imgPlus.getImg())) {
+			// NB: the pixels are mapped from the file, which is up to date.
+			return;
+		}
+		final RawImageHeader header = RawImageCodec.header(imgPlus, ByteOrder
+			.nativeOrder());
+		final Path file = directory.resolve(id.replace(':', '-') + ".raw");
+		try (final OutputStream out = new BufferedOutputStream(Files
+			.newOutputStream(file), BUFFER_SIZE))
+		{
+			RawImageCodec.writeData(imgPlus, header, out);
+		}
+		catch (final IOException | RuntimeException exc) {
+			delete(file);
+			throw exc;
+		}
+		final CalibratedAxis[] axes = new CalibratedAxis[imgPlus.numDimensions()];
+		for (int d = 0; d < axes.length; d++) {
+			axes[d] = imgPlus.axis(d).copy();
+		}
+		final Spilled previous = spilled.put(id, new Spilled(file, header, axes,
+			object));
+		if (previous != null && !previous.file.equals(file)) delete(previous.file);
+	}
+
+	@Override
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	public Object restore(final String id) throws IOException {
+		final Spilled s = spilled.get(id);
+		if (s == null) throw new NoSuchFileException(id);
+		final ImgPlus<?> mapped;
+		// NB: the mapping stays valid after the channel is closed.
+		try (final FileChannel channel = FileChannel.open(s.file,
+			StandardOpenOption.READ, StandardOpenOption.WRITE))
+		{
+			mapped = MappedImages.map(channel, s.header, 0);
+		}
+		s.restored = new WeakReference<>(mapped.getImg());
+		final ImgPlus restored = new ImgPlus(mapped.getImg(), s.header.getName(),
+			s.axes);
+		if (s.dataset) {
+			final Dataset ds = datasetService.create(restored);
+			ds.setRGBMerged(s.rgbMerged);
+			return ds;
+		}
+		return s.imgPlus ? restored : restored.getImg();
+	}
+
+	@Override
+	public void release(final String id) {
+		final Spilled s = spilled.remove(id);
+		if (s != null) delete(s.file);
+	}
+
+	@Override
+	public void dispose() {
+		for (final String id : new ArrayList<>(spilled.keySet())) {
+			release(id);
+		}
+	}
+
+	// -- Helper methods --
+
+	private static ImgPlus<?> imgPlus(final Object object) {
+		if (object instanceof Dataset) return ((Dataset) object).getImgPlus();
+		if (object instanceof ImgPlus) return (ImgPlus<?>) object;
+		if (object instanceof Img) return ImgPlus.wrap((Img<?>) object);
+		return null;
+	}
+
+	private static void delete(final Path file) {
+		try {
+			Files.deleteIfExists(file);
+		}
+		catch (final IOException exc) {
+			// NB: the file is left for the system to clean up.
+		}
+	}
+
+	// -- Helper classes --
+
+	/** Description of a spilled image. */
+	private static class Spilled {
+
+		private final Path file;
+
+		private final RawImageHeader header;
+
+		private final CalibratedAxis[] axes;
+
+		/** Whether the image was a {@link Dataset}. */
+		private final boolean dataset;
+
+		/** Whether the image was an {@link ImgPlus}. */
+		private final boolean imgPlus;
+
+		private final boolean rgbMerged;
+
+		/** Pixels last restored from the file, if any. */
+		private volatile WeakReference<Img<?>> restored;
+
+		private Spilled(final Path file, final RawImageHeader header,
+			final CalibratedAxis[] axes, final Object object)
+		{
+			this.file = file;
+			this.header = header;
+			this.axes = axes;
+			dataset = object instanceof Dataset;
+			imgPlus = object instanceof ImgPlus;
+			rgbMerged = dataset && ((Dataset) object).isRGBMerged();
+		}
+
+		/** Checks whether the given pixels are mapped from the file. */
+		private boolean isRestored(final Img<?> img) {
+			final WeakReference<Img<?>> ref = restored;
+			return ref != null && ref.get() == img;
+		}
+	}
+}
@@ -0,0 +1,453 @@
+/*
+ * #%L
+ * ImageJ server for RESTful access to ImageJ.
+ * %%
+ * Copyright (C) 2013 - 2026 Board of Regents of the University of
+ * Wisconsin-Madison.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package net.imagej.server.services;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.imagej.server.config.SpoolConfiguration;
+
+import org.scijava.io.handle.BytesHandle;
+import org.scijava.io.location.BytesLocation;
+import org.scijava.io.location.FileLocation;
+import org.scijava.io.location.Location;
+
+/**
+ * Default implementation of {@link SpoolService}.
+ * <p>
+ * Data is buffered in memory until it grows beyond the configured threshold,
+ * at which point the buffered bytes and the rest of the stream are written to
+ * a temporary file. Memory and disk usage are reserved against both a
+ * per-request and a global budget as the data arrives, so an oversized upload
+ * fails early instead of filling the disk, and many small uploads cannot
+ * exhaust the heap either. Files written by encoders are metered while they
+ * grow, as their writes cannot be counted one by one.
+ * </p>
+ * <p>
+ * Spool files are named {@code spool-*}; only those are deleted on
+ * {@link #dispose()}, so the spool directory may be shared.
+ * </p>
+ */
+public class DefaultSpoolService implements SpoolService {
+
+	private static final int BUFFER_SIZE = 8192;
+
+	/** Interval of checking the size of files being written, in milliseconds. */
+	private static final long METER_INTERVAL = 50;
+
+	/** Prefix of the names of spool files. */
+	private static final String FILE_PREFIX = "spool-";
+
+	private final String configuredDirectory;
+
+	private final long threshold;
+
+	private final long maxRequestBytes;
+
+	private final long maxTotalBytes;
+
+	/** Bytes currently reserved by spools, in memory or on disk. */
+	private final AtomicLong spooledBytes = new AtomicLong();
+
+	/** Meters the files being written by encoders. */
+	private final ScheduledThreadPoolExecutor meters;
+
+	private Path directory;
+
+	public DefaultSpoolService(final SpoolConfiguration config) {
+		configuredDirectory = config.getDirectory();
+		threshold = config.getThreshold().toBytes();
+		maxRequestBytes = config.getMaxRequestSize().toBytes();
+		maxTotalBytes = config.getMaxTotalSize().toBytes();
+		meters = new ScheduledThreadPoolExecutor(1, runnable -> {
+			final Thread thread = new Thread(runnable, "imagej-server-spool-meter");
+			thread.setDaemon(true);
+			return thread;
+		});
+		meters.setRemoveOnCancelPolicy(true);
+		meters.setKeepAliveTime(1, TimeUnit.MINUTES);
+		meters.allowCoreThreadTimeOut(true);
+	}
+
+	@Override
+	public Spool spool(final InputStream in, final String filename)
+		throws IOException
+	{
+		final BytesHandle bah = new BytesHandle();
+		bah.set(new BytesLocation(BUFFER_SIZE, filename));
+		final MemorySpool memory = new MemorySpool(bah.get());
+		final byte[] buffer = new byte[BUFFER_SIZE];
+		try {
+			int n;
+			while ((n = in.read(buffer)) != -1) {
+				if (bah.length() + n > threshold) {
+					try {
+						return spoolToDisk(bah, buffer, n, in, filename);
+					}
+					finally {
+						// NB: the buffer is only released once it has been copied.
+						memory.close();
+					}
+				}
+				memory.reserve(n);
+				bah.write(buffer, 0, n);
+			}
+		}
+		catch (final IOException | RuntimeException exc) {
+			memory.close();
+			throw exc;
+		}
+		return memory;
+	}
+
+	@Override
+	public Spool spool(final String filename, final long expectedSize,
+		final Writer writer) throws IOException
+	{
+		final FileSpool spool = new FileSpool(createFile(filename));
+		try {
+			// NB: concurrent writers must not overrun the budget while they write.
+			spool.reserve(Math.min(Math.max(expectedSize, 0), maxRequestBytes));
+			// NB: writers may append to existing files, so start from scratch.
+			Files.delete(spool.file);
+			final Meter meter = new Meter(spool, Thread.currentThread());
+			final ScheduledFuture<?> metering = meters.scheduleWithFixedDelay(meter,
+				METER_INTERVAL, METER_INTERVAL, TimeUnit.MILLISECONDS);
+			try {
+				writer.write(spool.getLocation());
+			}
+			finally {
+				metering.cancel(false);
+				meter.stop();
+			}
+			spool.resize(Files.size(spool.file));
+		}
+		catch (final IOException | RuntimeException exc) {
+			spool.close();
+			throw exc;
+		}
+		return spool;
+	}
+
+	@Override
+	public long getMaxRequestSize() {
+		return maxRequestBytes;
+	}
+
+	@Override
+	public long getSpooledBytes() {
+		return spooledBytes.get();
+	}
+
+	@Override
+	public synchronized void dispose() {
+		if (directory == null) return;
+		// NB: the configured directory may hold other files as well.
+		try (final DirectoryStream<Path> files = Files.newDirectoryStream(
+			directory, FILE_PREFIX + "*"))
+		{
+			for (final Path file : files) {
+				Files.deleteIfExists(file);
+			}
+			if (configuredDirectory == null) Files.deleteIfExists(directory);
+		}
+		catch (final IOException exc) {
+			// NB: best effort; leftover files are in a temporary directory.
+		}
+		directory = null;
+	}
+
+	// -- Helper methods --
+
+	/**
+	 * Moves the data buffered so far into a new spool file and streams the rest
+	 * of the input after it.
+	 */
+	private Spool spoolToDisk(final BytesHandle bah, final byte[] buffer,
+		final int pending, final InputStream in, final String filename)
+		throws IOException
+	{
+		final FileSpool spool = new FileSpool(createFile(filename));
+		try (final OutputStream out = Files.newOutputStream(spool.file)) {
+			final byte[] head = new byte[BUFFER_SIZE];
+			bah.seek(0);
+			int n;
+			while ((n = bah.read(head)) > 0) {
+				spool.reserve(n);
+				out.write(head, 0, n);
+			}
+			spool.reserve(pending);
+			out.write(buffer, 0, pending);
+			while ((n = in.read(buffer)) != -1) {
+				spool.reserve(n);
+				out.write(buffer, 0, n);
+			}
+		}
+		catch (final IOException | RuntimeException exc) {
+			spool.close();
+			throw exc;
+		}
+		return spool;
+	}
+
+	private Path createFile(final String filename) throws IOException {
+		// NB: keep the file extension intact for format detection.
+		final String suffix = filename == null ? "" : "-" + filename.replaceAll(
+			"[^A-Za-z0-9._-]", "_");
+		return Files.createTempFile(directory(), FILE_PREFIX, suffix);
+	}
+
+	private synchronized Path directory() throws IOException {
+		if (directory == null) {
+			if (configuredDirectory == null) {
+				directory = Files.createTempDirectory("imagej-server-spool");
+			}
+			else {
+				directory = Files.createDirectories(Paths.get(configuredDirectory));
+			}
+		}
+		return directory;
+	}
+
+	// -- Helper classes --
+
+	/**
+	 * Reserves the growth of a file while an encoder writes it, and interrupts
+	 * the encoder once the file exceeds the budget. Encoders that do not stop
+	 * when interrupted still fail once they are done, but other spools are
+	 * refused while they write.
+	 */
+	private class Meter implements Runnable {
+
+		private final FileSpool spool;
+
+		private Thread writer;
+
+		private SpoolLimitExceededException exceeded;
+
+		private Meter(final FileSpool spool, final Thread writer) {
+			this.spool = spool;
+			this.writer = writer;
+		}
+
+		@Override
+		public synchronized void run() {
+			if (writer == null) return;
+			try {
+				final long size = Files.size(spool.file);
+				if (size > spool.length()) spool.resize(size);
+			}
+			catch (final SpoolLimitExceededException exc) {
+				exceeded = exc;
+				writer.interrupt();
+				writer = null;
+			}
+			catch (final IOException exc) {
+				// NB: the encoder has not created the file yet.
+			}
+		}
+
+		/**
+		 * Stops metering once the encoder is done.
+		 * 
+		 * @throws SpoolLimitExceededException if the file exceeded the budget
+		 */
+		private synchronized void stop() throws SpoolLimitExceededException {
+			writer = null;
+			if (exceeded == null) return;
+			// NB: clears the interruption of the encoder.
+			Thread.interrupted();
+			throw exceeded;
+		}
+	}
+
+	/** Spool whose bytes are reserved against both budgets. */
+	private abstract class BudgetedSpool implements Spool {
+
+		private long length;
+
+		private boolean closed;
+
+		/** Reserves space for {@code n} more bytes against both budgets. */
+		protected synchronized void reserve(final long n)
+			throws SpoolLimitExceededException
+		{
+			if (length + n > maxRequestBytes) {
+				throw new SpoolLimitExceededException(
+					"Payload exceeds the per-request spool limit of " +
+						maxRequestBytes + " bytes");
+			}
+			if (spooledBytes.addAndGet(n) > maxTotalBytes) {
+				spooledBytes.addAndGet(-n);
+				throw new SpoolLimitExceededException(
+					"Spool storage is full; try again later");
+			}
+			length += n;
+		}
+
+		/** Changes the reservation to {@code n} bytes in total. */
+		protected synchronized void resize(final long n)
+			throws SpoolLimitExceededException
+		{
+			if (n > length) {
+				reserve(n - length);
+			}
+			else {
+				spooledBytes.addAndGet(n - length);
+				length = n;
+			}
+		}
+
+		/**
+		 * Returns the reserved bytes to the global budget.
+		 * 
+		 * @return false if they had been returned already
+		 */
+		protected synchronized boolean release() {
+			if (closed) return false;
+			closed = true;
+			spooledBytes.addAndGet(-length);
+			return true;
+		}
+
+		@Override
+		public synchronized long length() {
+			return length;
+		}
+	}
+
+	private class MemorySpool extends BudgetedSpool {
+
+		private final BytesLocation location;
+
+		private MemorySpool(final BytesLocation location) {
+			this.location = location;
+		}
+
+		@Override
+		public Location getLocation() {
+			return location;
+		}
+
+		@Override
+		public boolean isOnDisk() {
+			return false;
+		}
+
+		@Override
+		public void writeTo(final OutputStream out) throws IOException {
+			writeTo(out, 0, length());
+		}
+
+		@Override
+		public void writeTo(final OutputStream out, final long offset,
+			final long count) throws IOException
+		{
+			// NB: copy through a small buffer rather than the whole byte bank.
+			long remaining = Math.min(length(), offset + count) - offset;
+			if (remaining <= 0) return;
+			final BytesHandle handle = new BytesHandle();
+			handle.set(location);
+			handle.seek(offset);
+			final byte[] buffer = new byte[BUFFER_SIZE];
+			while (remaining > 0) {
+				final int n = handle.read(buffer, 0, (int) Math.min(buffer.length,
+					remaining));
+				if (n <= 0) break;
+				out.write(buffer, 0, n);
+				remaining -= n;
+			}
+		}
+
+		@Override
+		public void close() {
+			// NB: memory is reclaimed by the garbage collector.
+			release();
+		}
+	}
+
+	private class FileSpool extends BudgetedSpool {
+
+		private final Path file;
+
+		private FileSpool(final Path file) {
+			this.file = file;
+		}
+
+		@Override
+		public Location getLocation() {
+			return new FileLocation(file.toFile());
+		}
+
+		@Override
+		public boolean isOnDisk() {
+			return true;
+		}
+
+		@Override
+		public void writeTo(final OutputStream out) throws IOException {
+			Files.copy(file, out);
+		}
+
+		@Override
+		public void writeTo(final OutputStream out, final long offset,
+			final long count) throws IOException
+		{
+			try (final FileChannel channel = FileChannel.open(file,
+				StandardOpenOption.READ))
+			{
+				final WritableByteChannel target = Channels.newChannel(out);
+				long position = offset;
+				final long end = Math.min(offset + count, channel.size());
+				while (position < end) {
+					final long n = channel.transferTo(position, end - position, target);
+					if (n <= 0) break;
+					position += n;
+				}
+			}
+		}
+
+		@Override
+		public void close() {
+			if (!release()) return;
+			try {
+				Files.deleteIfExists(file);
+			}
+			catch (final IOException exc) {
+				// NB: best effort; the file will be removed on dispose.
+			}
+		}
+	}
+}
@@ -0,0 +1,68 @@
+/*
+ * #%L
+ * ImageJ server for RESTful access to ImageJ.
+ * %%
+ * Copyright (C) 2013 - 2026 Board of Regents of the University of
+ * Wisconsin-Madison.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package net.imagej.server.services;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Policy deciding which Objects an {@link ObjectService} evicts to bound its
+ * memory use.
+ */
+public interface EvictionPolicy {
+
+	/** Reason of evictions because there are too many Objects. */
+	String COUNT = "count";
+
+	/** Reason of evictions because the Objects take too much memory. */
+	String SIZE = "size";
+
+	/** Reason of evictions because an Object is too old. */
+	String AGE = "age";
+
+	/** Reason of evictions because an Object has not been used for too long. */
+	String IDLE = "idle";
+
+	/**
+	 * Checks quickly whether Objects need to be evicted because of their number
+	 * or size. This is called on every registration; evictions because of time
+	 * are only made by periodic calls of {@link ObjectService#evict()}.
+	 * 
+	 * @param count number of all Objects
+	 * @param size estimated size of all Objects in bytes
+	 * @return true if {@link #select} should be called
+	 */
+	boolean exceeds(final int count, final long size);
+
+	/**
+	 * Chooses the Objects to evict.
+	 * 
+	 * @param candidates Objects that may be evicted, i.e. that are neither
+	 *          pinned, pending nor in use, least recently accessed first
+	 * @param count number of all Objects
+	 * @param size estimated size of all Objects in bytes
+	 * @param now current time in milliseconds since the epoch
+	 * @return the reason of eviction by ID, for each Object to evict
+	 */
+	Map<String, String> select(final List<ObjectInfo> candidates,
+		final int count, final long size, final long now);
+}
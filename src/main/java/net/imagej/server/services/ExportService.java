@@ -0,0 +1,72 @@
+/*
+ * #%L
+ * ImageJ server for RESTful access to ImageJ.
+ * %%
+ * Copyright (C) 2013 - 2026 Board of Regents of the University of
+ * Wisconsin-Madison.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package net.imagej.server.services;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.scijava.io.location.Location;
+
+/**
+ * Service that writes objects to the server's file system in the background.
+ */
+public interface ExportService {
+
+	/**
+	 * Queues an export. The file is written under a temporary name next to the
+	 * target and moved into place once complete, so that readers never see a
+	 * partial file.
+	 * 
+	 * @param objectId ID of the exported object
+	 * @param target canonical path of the file to write
+	 * @param overwrite whether to replace the target if it exists once the file
+	 *          is complete; otherwise the export fails
+	 * @param writer writes the object in the format given by the file extension
+	 * @return the status of the export
+	 * @throws RejectedExecutionException if too many exports are queued
+	 */
+	ExportStatus submit(final String objectId, final Path target,
+		final boolean overwrite, final Writer writer);
+
+	/**
+	 * Gets the progress of an export.
+	 * 
+	 * @param id export ID
+	 * @return the status, or null if there is no such export
+	 */
+	ExportStatus getStatus(final String id);
+
+	/**
+	 * Stops exporting and drops all statuses.
+	 */
+	void dispose();
+
+	/**
+	 * Writes an object to a location.
+	 */
+	@FunctionalInterface
+	interface Writer {
+
+		void write(Location destination) throws IOException;
+	}
+}
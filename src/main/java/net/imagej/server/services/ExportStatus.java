@@ -0,0 +1,116 @@
+/*
+ * #%L
+ * ImageJ server for RESTful access to ImageJ.
+ * %%
+ * Copyright (C) 2013 - 2026 Board of Regents of the University of
+ * Wisconsin-Madison.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package net.imagej.server.services;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Progress of an export of an object to the server's file system.
+ */
+@JsonInclude(Include.NON_NULL)
+public class ExportStatus {
+
+	public static final String PENDING = "pending";
+
+	public static final String DONE = "done";
+
+	public static final String FAILED = "failed";
+
+	private final String id;
+
+	private final String objectId;
+
+	private final String path;
+
+	private volatile String status = PENDING;
+
+	private volatile Long bytesWritten;
+
+	private volatile Long writeTime;
+
+	private volatile String error;
+
+	public ExportStatus(final String id, final String objectId,
+		final String path)
+	{
+		this.id = id;
+		this.objectId = objectId;
+		this.path = path;
+	}
+
+	@JsonProperty
+	public String getId() {
+		return id;
+	}
+
+	@JsonProperty("object")
+	public String getObjectId() {
+		return objectId;
+	}
+
+	@JsonProperty
+	public String getPath() {
+		return path;
+	}
+
+	/** Gets one of {@link #PENDING}, {@link #DONE} and {@link #FAILED}. */
+	@JsonProperty
+	public String getStatus() {
+		return status;
+	}
+
+	/** Gets the size of the written file, once done. */
+	@JsonProperty("bytes_written")
+	public Long getBytesWritten() {
+		return bytesWritten;
+	}
+
+	/** Gets the writing time in milliseconds, once finished. */
+	@JsonProperty("write_time")
+	public Long getWriteTime() {
+		return writeTime;
+	}
+
+	/** Gets the reason of a failure. */
+	@JsonProperty
+	public String getError() {
+		return error;
+	}
+
+	/**
+	 * Records the end of the export.
+	 * 
+	 * @param millis writing time in milliseconds
+	 * @param bytes size of the written file, or null on failure
+	 * @param failure reason of a failure, or null on success
+	 */
+	public void finish(final long millis, final Long bytes,
+		final String failure)
+	{
+		writeTime = millis;
+		bytesWritten = bytes;
+		error = failure;
+		status = failure == null ? DONE : FAILED;
+	}
+}
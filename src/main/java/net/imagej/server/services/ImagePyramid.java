@@ -0,0 +1,254 @@
+/*
+ * #%L
+ * ImageJ server for RESTful access to ImageJ.
+ * %%
+ * Copyright (C) 2013 - 2026 Board of Regents of the University of
+ * Wisconsin-Madison.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package net.imagej.server.services;
+
+import java.lang.ref.SoftReference;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.LongStream;
+
+import net.imagej.ImgPlus;
+import net.imagej.axis.Axes;
+import net.imagej.axis.AxisType;
+import net.imglib2.RandomAccess;
+import net.imglib2.RandomAccessibleInterval;
+import net.imglib2.img.Img;
+import net.imglib2.img.ImgView;
+import net.imglib2.img.array.ArrayImgFactory;
+import net.imglib2.img.planar.PlanarImgFactory;
+import net.imglib2.type.NativeType;
+import net.imglib2.type.numeric.RealType;
+import net.imglib2.util.IntervalIndexer;
+import net.imglib2.util.Intervals;
+import net.imglib2.util.Util;
+import net.imglib2.view.Views;
+
+/**
+ * Multi-resolution pyramid of an image, split into square tiles.
+ * <p>
+ * Level 0 is the image itself; every further level halves the X and Y
+ * dimensions by averaging 2x2 blocks, until a level fits into a single tile.
+ * Levels are computed lazily for each XY plane on its first request, from the
+ * same plane of the level above and in parallel across rows. Each level of a
+ * plane is computed once even when requested concurrently, and is only softly
+ * referenced so that the garbage collector can drop it under memory pressure;
+ * a dropped level is recomputed on its next use.
+ * </p>
+ */
+public class ImagePyramid {
+
+	private final ImgPlus<?> source;
+
+	private final int tileSize;
+
+	private final int numLevels;
+
+	/** Computed levels of each plane, keyed by {@link #key}. */
+	private final Map<Long, Level> levels = new ConcurrentHashMap<>();
+
+	/**
+	 * Creates the pyramid of an image whose first two dimensions are X and Y.
+	 * 
+	 * @param source image at full resolution
+	 * @param tileSize width and height of tiles
+	 * @throws IllegalArgumentException if the image has no leading X and Y axes,
+	 *           or needs downsampling but does not have real-valued pixels
+	 */
+	public ImagePyramid(final ImgPlus<?> source, final int tileSize) {
+		if (source.numDimensions() < 2 || source.axis(0).type() != Axes.X ||
+			source.axis(1).type() != Axes.Y)
+		{
+			throw new IllegalArgumentException(
+				"Tiles require an image with X and Y as first dimensions");
+		}
+		this.source = source;
+		this.tileSize = tileSize;
+		int n = 1;
+		for (long w = source.dimension(0), h = source.dimension(1); Math.max(w,
+			h) > tileSize; w = (w + 1) / 2, h = (h + 1) / 2)
+		{
+			n++;
+		}
+		if (n > 1 && !(Util.getTypeFromInterval(source) instanceof RealType)) {
+			throw new IllegalArgumentException(
+				"Only images with real-valued pixels can be downsampled");
+		}
+		numLevels = n;
+	}
+
+	public ImgPlus<?> getSource() {
+		return source;
+	}
+
+	public int getTileSize() {
+		return tileSize;
+	}
+
+	public int numLevels() {
+		return numLevels;
+	}
+
+	/** Gets the number of XY planes, i.e. the product of all other dimensions. */
+	public long numPlanes() {
+		return Intervals.numElements(source) / (source.dimension(0) * source
+			.dimension(1));
+	}
+
+	/**
+	 * Gets the dimensions of a level.
+	 * 
+	 * @param level pyramid level, 0 being the full resolution
+	 * @return dimensions of the level
+	 */
+	public long[] dimensions(final int level) {
+		final long[] dims = Intervals.dimensionsAsLongArray(source);
+		for (int l = 0; l < level; l++) {
+			dims[0] = (dims[0] + 1) / 2;
+			dims[1] = (dims[1] + 1) / 2;
+		}
+		return dims;
+	}
+
+	/**
+	 * Gets one tile of the pyramid as a two-dimensional image.
+	 * 
+	 * @param level pyramid level, 0 being the full resolution
+	 * @param plane linear index of the XY plane
+	 * @param x column of the tile
+	 * @param y row of the tile
+	 * @return the tile, or null if there is no such tile
+	 */
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	public ImgPlus<?> tile(final int level, final long plane, final long x,
+		final long y)
+	{
+		if (level < 0 || level >= numLevels) return null;
+		if (plane < 0 || plane >= numPlanes() || x < 0 || y < 0) return null;
+		final long[] dims = dimensions(level);
+		if (x * tileSize >= dims[0] || y * tileSize >= dims[1]) return null;
+
+		final long[] min = { x * tileSize, y * tileSize };
+		final long[] max = { Math.min(min[0] + tileSize, dims[0]) - 1, Math.min(
+			min[1] + tileSize, dims[1]) - 1 };
+		final RandomAccessibleInterval view = Views.zeroMin(Views.interval(level(
+			level, plane), min, max));
+		return new ImgPlus(wrap(view), source.getName(), new AxisType[] { Axes.X,
+			Axes.Y });
+	}
+
+	// -- Helper methods --
+
+	/**
+	 * Gets one plane of a level, computing it (and the same plane of the levels
+	 * above it) if necessary.
+	 */
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	private RandomAccessibleInterval<?> level(final int level, final long plane) {
+		if (level == 0) return plane(plane);
+		final Level cached = levels.computeIfAbsent(key(level, plane),
+			k -> new Level());
+		// NB: concurrent requests for the same level wait for one computation.
+		synchronized (cached) {
+			Img<?> img = cached.ref == null ? null : cached.ref.get();
+			if (img == null) {
+				img = downsample((RandomAccessibleInterval) level(level - 1, plane));
+				cached.ref = new SoftReference<>(img);
+			}
+			return img;
+		}
+	}
+
+	private long key(final int level, final long plane) {
+		return plane * numLevels + level;
+	}
+
+	/** Gets one XY plane of the source. */
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	private RandomAccessibleInterval<?> plane(final long plane) {
+		final int n = source.numDimensions();
+		RandomAccessibleInterval view = source;
+		if (n > 2) {
+			final long[] planeDims = new long[n - 2];
+			final long[] planePos = new long[n - 2];
+			for (int d = 2; d < n; d++) {
+				planeDims[d - 2] = source.dimension(d);
+			}
+			IntervalIndexer.indexToPosition(plane, planeDims, planePos);
+			for (int d = n - 1; d >= 2; d--) {
+				view = Views.hyperSlice(view, d, source.min(d) + planePos[d - 2]);
+			}
+		}
+		return Views.zeroMin(view);
+	}
+
+	/** Halves both dimensions of a plane by averaging 2x2 blocks. */
+	private static <T extends RealType<T> & NativeType<T>> Img<T> downsample(
+		final RandomAccessibleInterval<T> src)
+	{
+		final long srcWidth = src.dimension(0);
+		final long srcHeight = src.dimension(1);
+		final long[] dims = { (srcWidth + 1) / 2, (srcHeight + 1) / 2 };
+		final T type = Util.getTypeFromInterval(src).createVariable();
+		final Img<T> dst = Intervals.numElements(dims) < Integer.MAX_VALUE
+			? new ArrayImgFactory<>(type).create(dims) : new PlanarImgFactory<>(type)
+				.create(dims);
+
+		// NB: rows are independent, so compute them in parallel.
+		LongStream.range(0, dims[1]).parallel().forEach(y -> {
+			final RandomAccess<T> in = src.randomAccess();
+			final RandomAccess<T> out = dst.randomAccess();
+			final long[] pos = new long[2];
+			final int ny = 2 * y + 1 < srcHeight ? 2 : 1;
+			for (long x = 0; x < dims[0]; x++) {
+				final int nx = 2 * x + 1 < srcWidth ? 2 : 1;
+				double sum = 0;
+				for (int dy = 0; dy < ny; dy++) {
+					for (int dx = 0; dx < nx; dx++) {
+						pos[0] = 2 * x + dx;
+						pos[1] = 2 * y + dy;
+						in.setPosition(pos);
+						sum += in.get().getRealDouble();
+					}
+				}
+				pos[0] = x;
+				pos[1] = y;
+				out.setPosition(pos);
+				out.get().setReal(sum / (nx * ny));
+			}
+		});
+		return dst;
+	}
+
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	private static Img<?> wrap(final RandomAccessibleInterval view) {
+		final NativeType type = (NativeType) Util.getTypeFromInterval(view);
+		return ImgView.wrap(view, new ArrayImgFactory(type));
+	}
+
+	// -- Helper classes --
+
+	/** One level of one plane, computed on demand. */
+	private static class Level {
+
+		private SoftReference<Img<?>> ref;
+	}
+}
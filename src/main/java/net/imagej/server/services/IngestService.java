@@ -0,0 +1,81 @@
+/*
+ * #%L
+ * ImageJ server for RESTful access to ImageJ.
+ * %%
+ * Copyright (C) 2013 - 2026 Board of Regents of the University of
+ * Wisconsin-Madison.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package net.imagej.server.services;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Service that decodes uploads in the background. Each upload gets an
+ * {@link ObjectService#reserve reserved} ID right away, which is fulfilled
+ * once decoding has finished.
+ */
+public interface IngestService {
+
+	/**
+	 * Queues an upload for decoding.
+	 * 
+	 * @param createdBy information about where the object is created
+	 * @param bytesRead size of the uploaded data
+	 * @param decoder creates the object
+	 * @return the reserved object ID
+	 * @throws RejectedExecutionException if too many uploads are queued
+	 */
+	String submit(final String createdBy, final long bytesRead,
+		final Decoder decoder);
+
+	/**
+	 * Gets the progress of an upload. Only a bounded number of finished uploads
+	 * is remembered.
+	 * 
+	 * @param id object ID
+	 * @return the status, or null if the ID was not submitted here or its
+	 *         status has been dropped
+	 */
+	IngestStatus getStatus(final String id);
+
+	/**
+	 * Drops the status of an upload whose object has been removed. Failures are
+	 * kept, so that clients can still learn why decoding failed.
+	 * 
+	 * @param id object ID
+	 */
+	void forget(final String id);
+
+	/**
+	 * Stops decoding and drops all statuses.
+	 */
+	void dispose();
+
+	/**
+	 * Decodes an upload.
+	 */
+	@FunctionalInterface
+	interface Decoder {
+
+		/**
+		 * @param id reserved ID of the object
+		 * @return the decoded object
+		 * @throws Exception if decoding fails
+		 */
+		Object decode(String id) throws Exception;
+	}
+}
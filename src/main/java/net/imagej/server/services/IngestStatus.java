@@ -0,0 +1,109 @@
+/*
+ * #%L
+ * ImageJ server for RESTful access to ImageJ.
+ * %%
+ * Copyright (C) 2013 - 2026 Board of Regents of the University of
+ * Wisconsin-Madison.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package net.imagej.server.services;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Progress of an asynchronously decoded upload.
+ */
+@JsonInclude(Include.NON_NULL)
+public class IngestStatus {
+
+	public static final String PENDING = "pending";
+
+	public static final String READY = "ready";
+
+	public static final String FAILED = "failed";
+
+	private final String id;
+
+	private volatile String status = PENDING;
+
+	private final long bytesRead;
+
+	private volatile Long decodeTime;
+
+	private volatile String error;
+
+	private final CountDownLatch finished = new CountDownLatch(1);
+
+	public IngestStatus(final String id, final long bytesRead) {
+		this.id = id;
+		this.bytesRead = bytesRead;
+	}
+
+	@JsonProperty
+	public String getId() {
+		return id;
+	}
+
+	/** Gets one of {@link #PENDING}, {@link #READY} and {@link #FAILED}. */
+	@JsonProperty
+	public String getStatus() {
+		return status;
+	}
+
+	/** Gets the size of the uploaded data. */
+	@JsonProperty("bytes_read")
+	public long getBytesRead() {
+		return bytesRead;
+	}
+
+	/** Gets the decoding time in milliseconds, once decoding has finished. */
+	@JsonProperty("decode_time")
+	public Long getDecodeTime() {
+		return decodeTime;
+	}
+
+	/** Gets the reason of a failure. */
+	@JsonProperty
+	public String getError() {
+		return error;
+	}
+
+	/**
+	 * Waits until decoding has finished.
+	 * 
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public void await() throws InterruptedException {
+		finished.await();
+	}
+
+	/**
+	 * Records the end of decoding.
+	 * 
+	 * @param millis decoding time in milliseconds
+	 * @param failure reason of a failure, or null on success
+	 */
+	public void finish(final long millis, final String failure) {
+		decodeTime = millis;
+		error = failure;
+		status = failure == null ? READY : FAILED;
+		finished.countDown();
+	}
+}
@@ -0,0 +1,69 @@
+/*
+ * #%L
+ * ImageJ server for RESTful access to ImageJ.
+ * %%
+ * Copyright (C) 2013 - 2026 Board of Regents of the University of
+ * Wisconsin-Madison.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package net.imagej.server.services;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Service that runs module executions as background jobs, so that requests
+ * need not wait for them.
+ */
+public interface JobService {
+
+	/**
+	 * Starts a job.
+	 * 
+	 * @param module ID of the executed module
+	 * @param task runs the module and returns its outputs serialized as JSON;
+	 *          it is interrupted if the job is cancelled
+	 * @param cleanup runs once the task has returned, before the job shows as
+	 *          finished, or once the job has been cancelled before the task
+	 *          started, e.g. to release the inputs; it does not run if the job
+	 *          is rejected
+	 * @return the status of the job
+	 * @throws RejectedExecutionException if too many jobs are unfinished
+	 */
+	JobStatus submit(final String module, final Callable<String> task,
+		final Runnable cleanup);
+
+	/**
+	 * Gets the progress of a job.
+	 * 
+	 * @param id job ID
+	 * @return the status, or null if there is no such job or it has expired
+	 */
+	JobStatus getStatus(final String id);
+
+	/**
+	 * Cancels a job unless it has finished.
+	 * 
+	 * @param id job ID
+	 * @return the status, or null if there is no such job or it has expired
+	 */
+	JobStatus cancel(final String id);
+
+	/**
+	 * Cancels all jobs and drops all statuses.
+	 */
+	void dispose();
+}
@@ -0,0 +1,178 @@
+/*
+ * #%L
+ * ImageJ server for RESTful access to ImageJ.
+ * %%
+ * Copyright (C) 2013 - 2026 Board of Regents of the University of
+ * Wisconsin-Madison.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package net.imagej.server.services;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+
+import java.util.Date;
+
+/**
+ * Progress of a module execution run as a background job.
+ */
+@JsonInclude(Include.NON_NULL)
+public class JobStatus {
+
+	public static final String PENDING = "pending";
+
+	public static final String RUNNING = "running";
+
+	public static final String DONE = "done";
+
+	public static final String FAILED = "failed";
+
+	public static final String CANCELLED = "cancelled";
+
+	private final String id;
+
+	private final String module;
+
+	private final String createdAt;
+
+	private final long submitted;
+
+	private volatile long started;
+
+	private volatile long finished;
+
+	private volatile String status = PENDING;
+
+	private volatile String outputs;
+
+	private volatile String error;
+
+	public JobStatus(final String id, final String module) {
+		final Date now = new Date();
+		this.id = id;
+		this.module = module;
+		createdAt = now.toString();
+		submitted = now.getTime();
+	}
+
+	@JsonProperty
+	public String getId() {
+		return id;
+	}
+
+	@JsonProperty
+	public String getModule() {
+		return module;
+	}
+
+	@JsonProperty("created_at")
+	public String getCreatedAt() {
+		return createdAt;
+	}
+
+	/**
+	 * Gets one of {@link #PENDING}, {@link #RUNNING}, {@link #DONE},
+	 * {@link #FAILED} and {@link #CANCELLED}.
+	 */
+	@JsonProperty
+	public String getStatus() {
+		return status;
+	}
+
+	/** Gets the time waited for a thread in milliseconds, once started. */
+	@JsonProperty("queue_time")
+	public Long getQueueTime() {
+		return started == 0 ? null : started - submitted;
+	}
+
+	/** Gets the running time in milliseconds, once finished. */
+	@JsonProperty("run_time")
+	public Long getRunTime() {
+		return started == 0 || finished == 0 ? null : finished - started;
+	}
+
+	/** Gets the outputs serialized as JSON, once done. */
+	@JsonProperty
+	@JsonRawValue
+	public String getOutputs() {
+		return outputs;
+	}
+
+	/** Gets the reason of a failure. */
+	@JsonProperty
+	public String getError() {
+		return error;
+	}
+
+	/** Checks whether the job is done, has failed or has been cancelled. */
+	@JsonIgnore
+	public boolean isFinished() {
+		return finished != 0;
+	}
+
+	/** Checks whether the job has started, even if it has finished since. */
+	@JsonIgnore
+	public synchronized boolean isStarted() {
+		return started != 0;
+	}
+
+	/** Gets the time the job finished in milliseconds since the epoch. */
+	@JsonIgnore
+	public long getFinishedTime() {
+		return finished;
+	}
+
+	/**
+	 * Records the start of the job.
+	 * 
+	 * @return false if the job has been cancelled before
+	 */
+	public synchronized boolean start() {
+		if (!PENDING.equals(status)) return false;
+		started = System.currentTimeMillis();
+		status = RUNNING;
+		return true;
+	}
+
+	/**
+	 * Records the end of the job, unless it has been cancelled.
+	 * 
+	 * @param result outputs serialized as JSON, or null on failure
+	 * @param failure reason of a failure, or null on success
+	 */
+	public synchronized void finish(final String result, final String failure) {
+		if (isFinished()) return;
+		outputs = result;
+		error = failure;
+		status = failure == null ? DONE : FAILED;
+		finished = System.currentTimeMillis();
+	}
+
+	/**
+	 * Records the cancellation of the job.
+	 * 
+	 * @return false if the job had finished already
+	 */
+	public synchronized boolean cancel() {
+		if (isFinished()) return false;
+		status = CANCELLED;
+		finished = System.currentTimeMillis();
+		return true;
+	}
+}
@@ -24,6 +24,8 @@ package net.imagej.server.services;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import javax.ws.rs.ext.ReaderInterceptor;
+
 /**
  * @author Leon Yang
  */
@@ -37,6 +39,25 @@ public interface JsonService {
 	 */
 	void addDeserializerTo(final ObjectMapper objectMapper);
 
+	/**
+	 * Gets an interceptor of request bodies to register along with the
+	 * deserializer. Objects deserialized from their IDs within request bodies
+	 * are {@link ObjectService#acquire acquired}, and must be released by
+	 * whoever receives them; if a body cannot be read as a whole, the
+	 * interceptor releases the Objects acquired so far instead.
+	 * 
+	 * @return the interceptor
+	 */
+	ReaderInterceptor getReaderInterceptor();
+
+	/**
+	 * Sets how long deserialization waits for an Object whose ID is still
+	 * {@link ObjectInfo#isPending() pending}. Zero fails right away.
+	 * 
+	 * @param millis maximum waiting time in milliseconds
+	 */
+	void setPendingTimeout(final long millis);
+
 	/**
 	 * Parses the given Object.
 	 * 
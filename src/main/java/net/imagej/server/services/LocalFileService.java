@@ -0,0 +1,59 @@
+/*
+ * #%L
+ * ImageJ server for RESTful access to ImageJ.
+ * %%
+ * Copyright (C) 2013 - 2026 Board of Regents of the University of
+ * Wisconsin-Madison.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package net.imagej.server.services;
+
+import java.io.IOException;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+
+/**
+ * Service that gives access to files on the server's file system, restricted
+ * to configured root directories.
+ */
+public interface LocalFileService {
+
+	/**
+	 * Resolves a path of a file to read. Symbolic links and relative segments
+	 * are resolved before the path is checked against the allowed roots.
+	 * 
+	 * @param path absolute path of an existing file
+	 * @return the canonical path
+	 * @throws NoSuchFileException if there is no such file
+	 * @throws AccessDeniedException if the file is outside the allowed roots
+	 * @throws IOException if the path cannot be resolved
+	 */
+	Path resolveReadable(final String path) throws IOException;
+
+	/**
+	 * Resolves a path of a file to write. The parent directory must exist and
+	 * is resolved like {@link #resolveReadable}; an existing file at the path
+	 * must not be a symbolic link.
+	 * 
+	 * @param path absolute path of the file
+	 * @return the canonical path
+	 * @throws NoSuchFileException if the parent directory does not exist
+	 * @throws AccessDeniedException if the file is outside the allowed roots
+	 * @throws IOException if the path cannot be resolved
+	 */
+	Path resolveWritable(final String path) throws IOException;
+}
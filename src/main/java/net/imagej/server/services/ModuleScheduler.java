@@ -0,0 +1,93 @@
+/*
+ * #%L
+ * ImageJ server for RESTful access to ImageJ.
+ * %%
+ * Copyright (C) 2013 - 2026 Board of Regents of the University of
+ * Wisconsin-Madison.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package net.imagej.server.services;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Admission control for module executions, limiting how many run at a time.
+ */
+public interface ModuleScheduler {
+
+	/**
+	 * Waits until an execution of a module may run.
+	 * 
+	 * @param module ID of the module
+	 * @return the permit to run, to be closed once the execution has finished
+	 * @throws RejectedExecutionException if too many executions are waiting, or
+	 *           if waiting timed out
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	Permit acquire(final String module) throws InterruptedException;
+
+	/**
+	 * Waits until an execution of a module may run, however long that takes.
+	 * Unlike {@link #acquire}, this is neither bounded by the number of waiting
+	 * executions nor by a timeout; it is meant for jobs, which are admitted
+	 * before they wait.
+	 * 
+	 * @param module ID of the module
+	 * @return the permit to run, to be closed once the execution has finished
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	Permit await(final String module) throws InterruptedException;
+
+	/**
+	 * Gets how long rejected clients should wait before they retry.
+	 * 
+	 * @return the delay in seconds
+	 */
+	long getRetryAfter();
+
+	/**
+	 * Gets how many executions of one batch should run at a time.
+	 * 
+	 * @return the number of executions, at least one
+	 */
+	int getBatchParallelism();
+
+	/**
+	 * Gets the executor which runs the items of all batches, with
+	 * {@link #getBatchParallelism()} threads. Items are still admitted like
+	 * single executions; callers should cancel the items they no longer need
+	 * rather than shut the executor down.
+	 * 
+	 * @return the shared batch executor
+	 */
+	ExecutorService getBatchExecutor();
+
+	/**
+	 * Stops the batch executor. Should be called when the server stops.
+	 */
+	void dispose();
+
+	/**
+	 * Permit to run a module execution.
+	 */
+	interface Permit extends AutoCloseable {
+
+		/** Releases the permit; releasing it again has no effect. */
+		@Override
+		void close();
+	}
+}
@@ -25,6 +25,9 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
 /**
  * Wrapper for an Object with some metadata.
  * 
@@ -41,7 +44,32 @@ public interface ObjectInfo {
 
 	@JsonProperty("class")
 	default String getObjectClass() {
-		return getObject().getClass().getName();
+		final Object object = getObject();
+		return object == null ? null : object.getClass().getName();
+	}
+
+	/**
+	 * Checks whether the Object is still being created; see
+	 * {@link ObjectService#reserve}.
+	 */
+	@JsonIgnore
+	default boolean isPending() {
+		return false;
+	}
+
+	/**
+	 * Waits until the Object has been created.
+	 * 
+	 * @param timeout maximum time to wait
+	 * @param unit unit of the timeout
+	 * @return the Object, or null if its creation failed
+	 * @throws InterruptedException if interrupted while waiting
+	 * @throws TimeoutException if the Object is still pending after the timeout
+	 */
+	default Object awaitObject(final long timeout, final TimeUnit unit)
+		throws InterruptedException, TimeoutException
+	{
+		return getObject();
 	}
 
 	@JsonProperty("created_at")
@@ -56,4 +84,65 @@ public interface ObjectInfo {
 
 	void updateLastUsed();
 
+	/**
+	 * Checks whether the Object is pinned, i.e. exempt from eviction; see
+	 * {@link ObjectService#pin}.
+	 */
+	@JsonProperty("pinned")
+	default boolean isPinned() {
+		return false;
+	}
+
+	/** Gets the creation time in milliseconds since the epoch. */
+	@JsonIgnore
+	default long getCreatedTime() {
+		return 0;
+	}
+
+	/**
+	 * Gets the time the Object was last looked up or used, in milliseconds
+	 * since the epoch.
+	 */
+	@JsonIgnore
+	default long getLastAccessed() {
+		return getCreatedTime();
+	}
+
+	/**
+	 * Gets the estimated memory footprint of the Object in bytes, as recorded
+	 * at registration, or 0 once it has been spilled; see {@link SizeEstimator}.
+	 */
+	@JsonProperty("size")
+	default long getSize() {
+		return 0;
+	}
+
+	/**
+	 * Gets the version of the Object, which increases whenever it may have been
+	 * modified in place; see {@link ObjectService#modified}.
+	 */
+	@JsonIgnore
+	default long getVersion() {
+		return 0;
+	}
+
+	/**
+	 * Checks whether the Object is in use, e.g. by a running module, and thus
+	 * exempt from spilling and eviction; see {@link ObjectService#acquire}.
+	 */
+	@JsonIgnore
+	default boolean isInUse() {
+		return false;
+	}
+
+	/**
+	 * Checks whether the Object has been spilled to disk; see
+	 * {@link ObjectService#setSpillService}. A spilled Object takes no memory
+	 * and is restored when it is retrieved.
+	 */
+	@JsonProperty("spilled")
+	default boolean isSpilled() {
+		return false;
+	}
+
 }
@@ -21,7 +21,11 @@
 
 package net.imagej.server.services;
 
+import java.io.Closeable;
+import java.util.Collection;
 import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 /**
  * @author Leon Yang
@@ -44,6 +48,26 @@ public interface ObjectService {
 	 */
 	String register(final Object object, final String createdBy);
 
+	/**
+	 * Reserves an ID for an Object that is still being created. Until
+	 * {@link #fulfil} is called, the ID is listed and found, but its
+	 * {@link ObjectInfo#isPending() information is pending} and holds no Object.
+	 * Removing a pending ID cancels the reservation.
+	 * 
+	 * @param createdBy information about where the object is created
+	 * @return the reserved ID
+	 */
+	String reserve(final String createdBy);
+
+	/**
+	 * Sets the Object of a reserved ID.
+	 * 
+	 * @param id ID returned by {@link #reserve}
+	 * @param object the created Object
+	 * @return false if the reservation has been removed in the meantime
+	 */
+	boolean fulfil(final String id, final Object object);
+
 	/**
 	 * Removes an Object with the given ID.
 	 * 
@@ -60,6 +84,35 @@ public interface ObjectService {
 	 */
 	ObjectInfo find(final String id);
 
+	/**
+	 * Marks a registered Object as in use until it is {@link #release
+	 * released}, e.g. while a module that may change it in place is running.
+	 * Objects in use are neither spilled nor evicted. Each successful
+	 * acquisition must be released once.
+	 * 
+	 * @param object the Object, as retrieved from its information
+	 * @return false if the Object is not registered, e.g. because it has been
+	 *         spilled or removed since it was retrieved
+	 */
+	boolean acquire(final Object object);
+
+	/**
+	 * Releases an Object {@link #acquire acquired} before.
+	 * 
+	 * @param object the acquired Object
+	 * @return false if the Object is not registered, e.g. because it has been
+	 *         removed in the meantime
+	 */
+	boolean release(final Object object);
+
+	/**
+	 * Gets the information of all Objects. Unlike {@link #find}, this does not
+	 * count as an access of the Objects.
+	 * 
+	 * @return a view of the information of all Objects
+	 */
+	Collection<ObjectInfo> getInfos();
+
 	/**
 	 * Checks if exists an Object with the given ID.
 	 * 
@@ -67,4 +120,109 @@ public interface ObjectService {
 	 * @return true if such Object exists.
 	 */
 	boolean contains(final String id);
+
+	/**
+	 * Ties a resource to the lifetime of an Object, e.g. the file that a lazily
+	 * loaded image reads from. The resource is closed when the Object is
+	 * removed, or right away if there is no Object with the given ID.
+	 * 
+	 * @param id ID of the Object using the resource
+	 * @param resource resource to close once the Object is gone
+	 */
+	void attach(final String id, final Closeable resource);
+
+	/**
+	 * Adds a listener that is notified after an Object has been removed.
+	 * 
+	 * @param listener callback receiving the removed Object's information
+	 */
+	void addRemovalListener(final Consumer<ObjectInfo> listener);
+
+	/**
+	 * Pins or unpins an Object. Pinned Objects are never evicted.
+	 * 
+	 * @param id ID of the Object
+	 * @param pinned whether to pin the Object
+	 * @return false if there is no Object with the given ID
+	 */
+	boolean pin(final String id, final boolean pinned);
+
+	/**
+	 * Gets the estimated size of all Objects.
+	 * 
+	 * @return the sum of {@link ObjectInfo#getSize()} in bytes
+	 */
+	long getTotalSize();
+
+	/**
+	 * Sets the policy choosing Objects to evict. Without a policy, which is the
+	 * default, Objects are only removed explicitly.
+	 * 
+	 * @param policy the eviction policy, or null
+	 */
+	void setEvictionPolicy(final EvictionPolicy policy);
+
+	/**
+	 * Evicts the Objects chosen by the eviction policy. This happens
+	 * automatically on registration when the policy's count or size limits are
+	 * exceeded; limits in time are only enforced by calling this method, e.g.
+	 * periodically.
+	 * 
+	 * @return the number of evicted Objects
+	 */
+	int evict();
+
+	/**
+	 * Adds a listener that is notified after an Object has been evicted, in
+	 * addition to the {@link #addRemovalListener removal listeners}.
+	 * 
+	 * @param listener callback receiving the evicted Object's information and
+	 *          the reason of eviction
+	 */
+	void addEvictionListener(final BiConsumer<ObjectInfo, String> listener);
+
+	/**
+	 * Sets the service spilling Objects to disk. With a spill service, images
+	 * that have not been accessed for its idle time are spilled, and when the
+	 * eviction policy's size limit is exceeded, images are spilled before any
+	 * Objects are evicted. Spilled Objects keep their IDs and are restored when
+	 * they are retrieved. Without a spill service, which is the default,
+	 * Objects stay in memory.
+	 * 
+	 * @param spillService the spill service, or null
+	 */
+	void setSpillService(final SpillService spillService);
+
+	/**
+	 * Spills the Objects that have not been accessed for the spill service's
+	 * idle time. This happens as part of {@link #evict()} as well.
+	 * 
+	 * @return the number of spilled Objects
+	 */
+	int spill();
+
+	/**
+	 * Adds a listener that is notified after an Object has been spilled.
+	 * 
+	 * @param listener callback receiving the spilled Object's information
+	 */
+	void addSpillListener(final Consumer<ObjectInfo> listener);
+
+	/**
+	 * Records that a registered Object may have been modified in place, e.g. by
+	 * a module it was passed to, so that anything derived from it is stale. This
+	 * increases the {@link ObjectInfo#getVersion() version} of the Object and
+	 * notifies the modification listeners.
+	 * 
+	 * @param object the possibly modified Object
+	 * @return the ID of the Object, or null if it is not registered
+	 */
+	String modified(final Object object);
+
+	/**
+	 * Adds a listener that is notified after an Object may have been modified.
+	 * 
+	 * @param listener callback receiving the modified Object's information
+	 */
+	void addModificationListener(final Consumer<ObjectInfo> listener);
 }
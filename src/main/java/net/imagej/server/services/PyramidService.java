@@ -0,0 +1,53 @@
+/*
+ * #%L
+ * ImageJ server for RESTful access to ImageJ.
+ * %%
+ * Copyright (C) 2013 - 2026 Board of Regents of the University of
+ * Wisconsin-Madison.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package net.imagej.server.services;
+
+import net.imagej.ImgPlus;
+
+/**
+ * Service that keeps the {@link ImagePyramid multi-resolution pyramids} of
+ * objects.
+ */
+public interface PyramidService {
+
+	/**
+	 * Gets the pyramid of an object, creating it on first use.
+	 * 
+	 * @param id object ID
+	 * @param img image of the object
+	 * @return the pyramid of the image
+	 * @throws IllegalArgumentException if the image cannot be tiled
+	 */
+	ImagePyramid get(final String id, final ImgPlus<?> img);
+
+	/**
+	 * Drops the pyramid of an object.
+	 * 
+	 * @param id object ID
+	 */
+	void invalidate(final String id);
+
+	/**
+	 * Drops all pyramids.
+	 */
+	void clear();
+}
@@ -0,0 +1,88 @@
+/*
+ * #%L
+ * ImageJ server for RESTful access to ImageJ.
+ * %%
+ * Copyright (C) 2013 - 2026 Board of Regents of the University of
+ * Wisconsin-Madison.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package net.imagej.server.services;
+
+import java.io.IOException;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.NoSuchFileException;
+
+import net.imagej.ImgPlus;
+import net.imagej.server.io.SharedImageHeader;
+
+/**
+ * Service that exchanges images with clients on the same host through
+ * memory-mapped files in a shared directory.
+ */
+public interface SharedMemoryService {
+
+	/**
+	 * Shares an image object. An object that was mapped from a shared file is
+	 * described as is; any other image is copied into a shared file owned by
+	 * the server, which is replaced on each call and deleted by
+	 * {@link #release}.
+	 * 
+	 * @param id object ID
+	 * @param imgPlus pixels of the object
+	 * @return description of the shared file, in native byte order
+	 * @throws AccessDeniedException if sharing is disabled
+	 * @throws IllegalArgumentException if the pixel type is not supported
+	 * @throws IOException if the file cannot be written
+	 */
+	SharedImageHeader share(final String id, final ImgPlus<?> imgPlus)
+		throws IOException;
+
+	/**
+	 * Maps an image from a file in the shared directory, without copying its
+	 * pixels.
+	 * 
+	 * @param header description of the image, naming a file in the shared
+	 *          directory
+	 * @return the image, writing through to the file
+	 * @throws AccessDeniedException if sharing is disabled or the file is not a
+	 *           plain file in the shared directory
+	 * @throws NoSuchFileException if there is no such file
+	 * @throws IOException if the file does not match the description
+	 */
+	ImgPlus<?> map(final SharedImageHeader header) throws IOException;
+
+	/**
+	 * Records that an object is backed by a mapped file, so that sharing it
+	 * again does not copy it.
+	 * 
+	 * @param id object ID
+	 * @param header description the object was mapped from
+	 */
+	void attach(final String id, final SharedImageHeader header);
+
+	/**
+	 * Forgets an object, deleting the file it was copied to, if any. Files
+	 * mapped by clients are left alone.
+	 * 
+	 * @param id object ID
+	 */
+	void release(final String id);
+
+	/**
+	 * Deletes all files owned by the server.
+	 */
+	void dispose();
+}
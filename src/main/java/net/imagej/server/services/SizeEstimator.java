@@ -0,0 +1,186 @@
+/*
+ * #%L
+ * ImageJ server for RESTful access to ImageJ.
+ * %%
+ * Copyright (C) 2013 - 2026 Board of Regents of the University of
+ * Wisconsin-Madison.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+package net.imagej.server.services;
+
+import java.lang.reflect.Array;
+import java.util.List;
+
+import net.imagej.Dataset;
+import net.imagej.ImgPlus;
+import net.imglib2.IterableInterval;
+import net.imglib2.img.array.ArrayImg;
+import net.imglib2.img.basictypeaccess.array.ArrayDataAccess;
+import net.imglib2.img.cell.AbstractCellImg;
+import net.imglib2.img.cell.Cell;
+import net.imglib2.img.cell.CellImg;
+import net.imglib2.img.planar.PlanarImg;
+import net.imglib2.type.numeric.RealType;
+
+import org.scijava.table.PrimitiveColumn;
+import org.scijava.table.Table;
+
+/**
+ * Estimates the memory footprint of registered Objects, i.e. the bytes of
+ * their data.
+ * <p>
+ * Images backed by {@link ArrayImg}, {@link PlanarImg} or {@link CellImg} are
+ * measured exactly from their storage arrays, as are primitive {@link Table}
+ * columns. Other images are estimated from their number of pixels and the bits
+ * per pixel of their type, and other columns from a sample of their values.
+ * Lazily loaded cell images count as empty, since their cells live in a
+ * bounded cache. Estimating is cheap enough to be done on every registration:
+ * it never reads pixels, and only touches as many values as there are planes,
+ * cells or sampled table rows.
+ * </p>
+ */
+public final class SizeEstimator {
+
+	/** Bytes assumed per pixel of a type of unknown size. */
+	private static final int DEFAULT_PIXEL_BYTES = 8;
+
+	/** Bytes of a reference, and of an Object of unknown size. */
+	private static final int REFERENCE_BYTES = 8;
+
+	/** Bytes of the header of an Object, e.g. a boxed number. */
+	private static final int OBJECT_BYTES = 16;
+
+	/** Number of values sampled from a column of Objects. */
+	private static final int SAMPLE_SIZE = 64;
+
+	private SizeEstimator() {
+		// NB: prevent instantiation of utility class.
+	}
+
+	/**
+	 * Estimates the size of an Object.
+	 * 
+	 * @param object the Object, or null
+	 * @return the estimated size in bytes
+	 */
+	public static long estimate(final Object object) {
+		if (object instanceof Dataset) {
+			return estimate(((Dataset) object).getImgPlus());
+		}
+		if (object instanceof ImgPlus) return estimate(((ImgPlus<?>) object)
+			.getImg());
+		if (object instanceof ArrayImg) {
+			return accessSize(((ArrayImg<?, ?>) object).update(null));
+		}
+		if (object instanceof PlanarImg) {
+			final PlanarImg<?, ?> planar = (PlanarImg<?, ?>) object;
+			long size = 0;
+			for (int i = 0; i < planar.numSlices(); i++) {
+				size += accessSize(planar.getPlane(i));
+			}
+			return size;
+		}
+		if (object instanceof CellImg) {
+			long size = 0;
+			for (final Cell<?> cell : ((CellImg<?, ?>) object).getCells()) {
+				size += accessSize(cell.getData());
+			}
+			return size;
+		}
+		if (object instanceof AbstractCellImg) return 0;
+		if (object instanceof IterableInterval) {
+			return pixelSize((IterableInterval<?>) object);
+		}
+		if (object instanceof Table) return tableSize((Table<?, ?>) object);
+		if (object != null && object.getClass().isArray()) {
+			return arraySize(object);
+		}
+		return valueSize(object);
+	}
+
+	// -- Helper methods --
+
+	private static long pixelSize(final IterableInterval<?> image) {
+		if (image.size() == 0) return 0;
+		final Object type = image.firstElement();
+		if (type instanceof RealType) {
+			final int bits = ((RealType<?>) type).getBitsPerPixel();
+			return (image.size() * bits + 7) / 8;
+		}
+		return image.size() * DEFAULT_PIXEL_BYTES;
+	}
+
+	private static long accessSize(final Object access) {
+		if (access instanceof ArrayDataAccess) {
+			return arraySize(((ArrayDataAccess<?>) access)
+				.getCurrentStorageArray());
+		}
+		return 0;
+	}
+
+	/** Gets the size of the elements of an array. */
+	private static long arraySize(final Object array) {
+		final long length = Array.getLength(array);
+		final Class<?> type = array.getClass().getComponentType();
+		if (type == byte.class || type == boolean.class) return length;
+		if (type == short.class || type == char.class) return 2 * length;
+		if (type == int.class || type == float.class) return 4 * length;
+		if (type == long.class || type == double.class) return 8 * length;
+		return REFERENCE_BYTES * length;
+	}
+
+	private static long tableSize(final Table<?, ?> table) {
+		long size = 0;
+		for (final Object column : table) {
+			if (column instanceof PrimitiveColumn) {
+				size += arraySize(((PrimitiveColumn<?, ?>) column).getArray());
+			}
+			else if (column instanceof List) {
+				size += sampleSize((List<?>) column);
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * Estimates the size of a list of Objects from an even sample of its
+	 * values.
+	 */
+	private static long sampleSize(final List<?> values) {
+		final int n = values.size();
+		if (n == 0) return 0;
+		final int samples = Math.min(n, SAMPLE_SIZE);
+		long sampled = 0;
+		for (int i = 0; i < samples; i++) {
+			sampled += valueSize(values.get((int) ((long) i * n / samples)));
+		}
+		return REFERENCE_BYTES * (long) n + sampled * n / samples;
+	}
+
+	private static long valueSize(final Object value) {
+		if (value == null) return 0;
+		if (value instanceof String) {
+			return OBJECT_BYTES + 2L * ((String) value).length();
+		}
+		if (value instanceof Number || value instanceof Boolean ||
+			value instanceof Character)
+		{
+			return OBJECT_BYTES;
+		}
+		return REFERENCE_BYTES;
+	}
+}
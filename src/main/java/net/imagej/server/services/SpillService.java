@@ -0,0 +1,83 @@
+/*
+ * #%L
+ * ImageJ server for RESTful access to ImageJ.
+ * %%
+ * Copyright (C) 2013 - 2026 Board of Regents of the University of
+ * Wisconsin-Madison.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package net.imagej.server.services;
+
+import java.io.IOException;
+
+/**
+ * Service that moves images out of memory into files, from which they are
+ * restored on demand; see {@link ObjectService#setSpillService}.
+ */
+public interface SpillService {
+
+	/**
+	 * Checks whether an Object can be spilled, i.e. whether it is an image of a
+	 * supported pixel type that is large enough to be worth spilling.
+	 * 
+	 * @param object the Object
+	 * @param size estimated size of the Object in bytes
+	 * @return true if {@link #spill} may be called with the Object
+	 */
+	boolean accepts(final Object object, final long size);
+
+	/**
+	 * Gets how long an Object may stay in memory without being accessed before
+	 * it is spilled.
+	 * 
+	 * @return idle time in milliseconds, or 0 to only spill instead of evicting
+	 */
+	long getIdleTime();
+
+	/**
+	 * Writes an Object to disk. Afterwards the Object can be dropped from
+	 * memory. An Object that was {@link #restore restored} is not written
+	 * again, since its pixels are mapped from its file.
+	 * 
+	 * @param id ID of the Object
+	 * @param object an Object {@link #accepts accepted} for spilling
+	 * @throws IOException if the Object cannot be written
+	 */
+	void spill(final String id, final Object object) throws IOException;
+
+	/**
+	 * Restores a spilled Object. The restored Object is of the same kind as
+	 * the spilled one, but its pixels are mapped from the file rather than
+	 * read into memory.
+	 * 
+	 * @param id ID of the spilled Object
+	 * @return the restored Object
+	 * @throws IOException if the file cannot be mapped
+	 */
+	Object restore(final String id) throws IOException;
+
+	/**
+	 * Deletes the file of a spilled Object, e.g. once it has been removed. The
+	 * file of a restored Object is kept until then, since its pixels are mapped
+	 * from it; unknown IDs are ignored.
+	 * 
+	 * @param id ID of the Object
+	 */
+	void release(final String id);
+
+	/** Deletes all files. */
+	void dispose();
+}
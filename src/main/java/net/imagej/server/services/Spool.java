@@ -0,0 +1,78 @@
+/*
+ * #%L
+ * ImageJ server for RESTful access to ImageJ.
+ * %%
+ * Copyright (C) 2013 - 2026 Board of Regents of the University of
+ * Wisconsin-Madison.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package net.imagej.server.services;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.scijava.io.location.Location;
+
+/**
+ * Data held by a {@link SpoolService}, either in memory or in a temporary
+ * file. Closing the spool releases its storage.
+ */
+public interface Spool extends Closeable {
+
+	/**
+	 * Gets the {@link Location} from which the spooled data can be read.
+	 * 
+	 * @return location of the spooled data
+	 */
+	Location getLocation();
+
+	/**
+	 * Gets the number of spooled bytes.
+	 * 
+	 * @return length of the spooled data
+	 */
+	long length();
+
+	/**
+	 * Checks if the data was spooled to a file.
+	 * 
+	 * @return true if the data lives on disk
+	 */
+	boolean isOnDisk();
+
+	/**
+	 * Copies the spooled data to the given stream.
+	 * 
+	 * @param out stream to write to
+	 * @throws IOException if reading or writing fails
+	 */
+	void writeTo(final OutputStream out) throws IOException;
+
+	/**
+	 * Copies part of the spooled data to the given stream.
+	 * 
+	 * @param out stream to write to
+	 * @param offset position of the first byte to copy
+	 * @param length number of bytes to copy
+	 * @throws IOException if reading or writing fails
+	 */
+	void writeTo(final OutputStream out, final long offset, final long length)
+		throws IOException;
+
+	@Override
+	void close();
+}
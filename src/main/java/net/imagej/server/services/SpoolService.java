@@ -0,0 +1,93 @@
+/*
+ * #%L
+ * ImageJ server for RESTful access to ImageJ.
+ * %%
+ * Copyright (C) 2013 - 2026 Board of Regents of the University of
+ * Wisconsin-Madison.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package net.imagej.server.services;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.scijava.io.location.Location;
+
+/**
+ * Service that buffers incoming data, keeping small payloads in memory and
+ * spooling large ones to temporary files under a bounded disk budget.
+ */
+public interface SpoolService {
+
+	/**
+	 * Reads the given stream fully into a new {@link Spool}.
+	 * 
+	 * @param in stream to read
+	 * @param filename name of the data, used for format detection
+	 * @return the spooled data
+	 * @throws SpoolLimitExceededException if the data exceeds the spool budget
+	 * @throws IOException if reading or writing fails
+	 */
+	Spool spool(final InputStream in, final String filename) throws IOException;
+
+	/**
+	 * Spools the data produced by the given writer to a temporary file. Used for
+	 * encoders that can only write to a {@link Location}, through handles of
+	 * their own; the expected size is therefore reserved before the writer
+	 * starts, the reservation grows along with the file while it is written,
+	 * and it is corrected to the actual size afterwards. The writer is
+	 * interrupted once the file exceeds the spool budget.
+	 * 
+	 * @param filename name of the data, used for format detection
+	 * @param expectedSize estimated number of bytes the writer produces
+	 * @param writer writes the data to the given location
+	 * @return the spooled data
+	 * @throws SpoolLimitExceededException if the expected or the actual size
+	 *           exceeds the spool budget
+	 * @throws IOException if writing fails
+	 */
+	Spool spool(final String filename, final long expectedSize,
+		final Writer writer) throws IOException;
+
+	/**
+	 * Gets the maximum number of bytes a single request may spool.
+	 * 
+	 * @return per-request limit in bytes
+	 */
+	long getMaxRequestSize();
+
+	/**
+	 * Gets the number of bytes currently spooled, in memory or on disk.
+	 * 
+	 * @return bytes held in spools
+	 */
+	long getSpooledBytes();
+
+	/**
+	 * Deletes all spool files created by this service, leaving other files in
+	 * the spool directory alone. Should be called when the server stops.
+	 */
+	void dispose();
+
+	/**
+	 * Produces data at a {@link Location}.
+	 */
+	@FunctionalInterface
+	interface Writer {
+
+		void write(final Location destination) throws IOException;
+	}
+}
@@ -0,0 +1,191 @@
+/*
+ * #%L
+ * ImageJ server for RESTful access to ImageJ.
+ * %%
+ * Copyright (C) 2013 - 2026 Board of Regents of the University of
+ * Wisconsin-Madison.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package net.imagej.server.services;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Concurrent map whose keys are compared by identity, optionally holding its
+ * keys weakly.
+ * <p>
+ * Unlike a {@link ConcurrentHashMap} of the keys themselves, looking up a key
+ * never calls its {@link Object#hashCode()} or {@link Object#equals(Object)},
+ * which may be expensive for data structures such as images and tables, and
+ * which changes as mutable keys are modified. Entries of weak keys are removed
+ * by a background thread once their keys have been garbage collected.
+ * </p>
+ * 
+ * @param <K> type of the keys
+ * @param <V> type of the values
+ */
+public class WeakIdentityMap<K, V> {
+
+	/** Queue of all maps' cleared keys, drained by the cleaner thread. */
+	private static final ReferenceQueue<Object> queue = new ReferenceQueue<>();
+
+	static {
+		final Thread cleaner = new Thread(WeakIdentityMap::clean,
+			"imagej-server-reference-cleaner");
+		cleaner.setDaemon(true);
+		cleaner.start();
+	}
+
+	private final ConcurrentHashMap<Key, V> map = new ConcurrentHashMap<>();
+
+	private final boolean weak;
+
+	/**
+	 * Creates a map.
+	 * 
+	 * @param weak whether to hold the keys weakly, so that entries do not keep
+	 *          their keys from being garbage collected
+	 */
+	public WeakIdentityMap(final boolean weak) {
+		this.weak = weak;
+	}
+
+	/** Creates a map holding its keys weakly. */
+	public WeakIdentityMap() {
+		this(true);
+	}
+
+	/**
+	 * Maps a key to a value unless it is mapped already.
+	 * 
+	 * @return the previous value of the key, or null if it has been added
+	 */
+	public V putIfAbsent(final K key, final V value) {
+		if (key == null) throw new NullPointerException();
+		return map.putIfAbsent(weak ? new WeakKey(key, this) : new StrongKey(key),
+			value);
+	}
+
+	/** Gets the value of a key, or null if it is not mapped. */
+	public V get(final K key) {
+		return map.get(new StrongKey(key));
+	}
+
+	/**
+	 * Removes a key if it is mapped to the given value.
+	 * 
+	 * @return true if the key has been removed
+	 */
+	public boolean remove(final K key, final V value) {
+		return map.remove(new StrongKey(key), value);
+	}
+
+	/**
+	 * Gets the number of entries, including those of keys collected but not
+	 * removed yet.
+	 */
+	public int size() {
+		return map.size();
+	}
+
+	// -- Helper methods --
+
+	private static void clean() {
+		while (true) {
+			try {
+				final Reference<?> ref = queue.remove();
+				((WeakKey) ref).owner.map.remove(ref);
+			}
+			catch (final InterruptedException exc) {
+				// NB: the cleaner runs as long as the JVM does.
+			}
+		}
+	}
+
+	// -- Helper classes --
+
+	/** Key wrapper with identity semantics. */
+	private interface Key {
+
+		Object referent();
+	}
+
+	/**
+	 * Weak key, as stored in the map. Once cleared, it is only equal to
+	 * itself, so that the cleaner can remove it.
+	 */
+	private static final class WeakKey extends WeakReference<Object> implements
+		Key
+	{
+
+		private final int hash;
+
+		private final WeakIdentityMap<?, ?> owner;
+
+		private WeakKey(final Object referent, final WeakIdentityMap<?, ?> owner) {
+			super(referent, queue);
+			hash = System.identityHashCode(referent);
+			this.owner = owner;
+		}
+
+		@Override
+		public Object referent() {
+			return get();
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(final Object obj) {
+			if (obj == this) return true;
+			if (!(obj instanceof Key)) return false;
+			final Object referent = get();
+			return referent != null && referent == ((Key) obj).referent();
+		}
+	}
+
+	/** Strong key, as stored in non-weak maps and used for lookups. */
+	private static final class StrongKey implements Key {
+
+		private final Object referent;
+
+		private StrongKey(final Object referent) {
+			this.referent = referent;
+		}
+
+		@Override
+		public Object referent() {
+			return referent;
+		}
+
+		@Override
+		public int hashCode() {
+			return System.identityHashCode(referent);
+		}
+
+		@Override
+		public boolean equals(final Object obj) {
+			return obj instanceof Key && referent != null && referent == ((Key) obj)
+				.referent();
+		}
+	}
+}
@@ -21,15 +21,46 @@
 
 package net.imagej.server;
 
+import com.codahale.metrics.MetricRegistry;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import io.dropwizard.testing.junit.ResourceTestRule;
 import io.dropwizard.testing.junit.ResourceTestRule.Builder;
+import io.dropwizard.util.DataSize;
 
+import java.io.File;
+
+import net.imagej.server.config.ArtifactCacheConfiguration;
+import net.imagej.server.config.IngestConfiguration;
+import net.imagej.server.config.JobConfiguration;
+import net.imagej.server.config.LocalFilesConfiguration;
+import net.imagej.server.config.SchedulerConfiguration;
+import net.imagej.server.config.SharedMemoryConfiguration;
+import net.imagej.server.config.SpoolConfiguration;
+import net.imagej.server.config.TileConfiguration;
+import net.imagej.server.config.UploadConfiguration;
+import net.imagej.server.services.ArtifactCache;
+import net.imagej.server.services.DefaultArtifactCache;
+import net.imagej.server.services.DefaultExportService;
+import net.imagej.server.services.DefaultIngestService;
+import net.imagej.server.services.DefaultJobService;
 import net.imagej.server.services.DefaultJsonService;
+import net.imagej.server.services.DefaultLocalFileService;
+import net.imagej.server.services.DefaultModuleScheduler;
 import net.imagej.server.services.DefaultObjectService;
+import net.imagej.server.services.DefaultPyramidService;
+import net.imagej.server.services.DefaultSharedMemoryService;
+import net.imagej.server.services.DefaultSpoolService;
+import net.imagej.server.services.ExportService;
+import net.imagej.server.services.IngestService;
+import net.imagej.server.services.JobService;
 import net.imagej.server.services.JsonService;
+import net.imagej.server.services.LocalFileService;
+import net.imagej.server.services.ModuleScheduler;
 import net.imagej.server.services.ObjectService;
+import net.imagej.server.services.PyramidService;
+import net.imagej.server.services.SharedMemoryService;
+import net.imagej.server.services.SpoolService;
 
 import org.glassfish.hk2.utilities.binding.AbstractBinder;
 import org.scijava.Context;
@@ -49,10 +80,48 @@ public abstract class AbstractResourceTest {
 	protected static final JsonService jsonService = new DefaultJsonService(ctx,
 		objectService);
 
+	protected static final SpoolService spoolService = new DefaultSpoolService(
+		spoolConfiguration());
+
+	protected static final ArtifactCache artifactCache = new DefaultArtifactCache(
+		new ArtifactCacheConfiguration());
+
+	protected static final PyramidService pyramidService =
+		new DefaultPyramidService(tileConfiguration());
+
+	protected static final IngestService ingestService =
+		new DefaultIngestService(new IngestConfiguration(), objectService);
+
+	protected static final LocalFileService localFileService =
+		new DefaultLocalFileService(localFilesConfiguration());
+
+	protected static final ExportService exportService =
+		new DefaultExportService(localFilesConfiguration());
+
+	protected static final SharedMemoryService sharedMemoryService =
+		new DefaultSharedMemoryService(sharedMemoryConfiguration());
+
+	protected static final JobService jobService = new DefaultJobService(
+		new JobConfiguration());
+
+	protected static final ModuleScheduler moduleScheduler =
+		new DefaultModuleScheduler(new SchedulerConfiguration(),
+			new MetricRegistry());
+
 	protected static final ObjectMapper objectMapper = new ObjectMapper();
 
 	static {
 		jsonService.addDeserializerTo(objectMapper);
+		objectService.addRemovalListener(info -> {
+			artifactCache.invalidate(info.getId());
+			pyramidService.invalidate(info.getId());
+			ingestService.forget(info.getId());
+			sharedMemoryService.release(info.getId());
+		});
+		objectService.addModificationListener(info -> {
+			artifactCache.invalidate(info.getId());
+			pyramidService.invalidate(info.getId());
+		});
 	}
 
 	protected static final AbstractBinder binder = new AbstractBinder() {
@@ -60,12 +129,65 @@ public abstract class AbstractResourceTest {
 		@Override
 		protected void configure() {
 			bind(ctx).to(Context.class);
+			bind(new UploadConfiguration()).to(UploadConfiguration.class);
 			bind(objectService).to(ObjectService.class);
 			bind(jsonService).to(JsonService.class);
+			bind(spoolService).to(SpoolService.class);
+			bind(artifactCache).to(ArtifactCache.class);
+			bind(pyramidService).to(PyramidService.class);
+			bind(ingestService).to(IngestService.class);
+			bind(localFileService).to(LocalFileService.class);
+			bind(exportService).to(ExportService.class);
+			bind(sharedMemoryService).to(SharedMemoryService.class);
+			bind(jobService).to(JobService.class);
+			bind(moduleScheduler).to(ModuleScheduler.class);
 		}
 	};
 
 	protected static final Builder resourcesBuilder = ResourceTestRule.builder()
-		.addProvider(binder).setMapper(objectMapper);
+		.addProvider(binder).addProvider(jsonService.getReaderInterceptor())
+		.setMapper(objectMapper);
+
+	/**
+	 * Creates a spool configuration with a small threshold, so that the test
+	 * images exercise the disk-backed code paths.
+	 */
+	private static SpoolConfiguration spoolConfiguration() {
+		final SpoolConfiguration config = new SpoolConfiguration();
+		config.setThreshold(DataSize.kilobytes(64));
+		return config;
+	}
+
+	/**
+	 * Creates a tile configuration with small tiles, so that the test images
+	 * span several pyramid levels.
+	 */
+	private static TileConfiguration tileConfiguration() {
+		final TileConfiguration config = new TileConfiguration();
+		config.setSize(32);
+		return config;
+	}
+
+	/**
+	 * Creates a local files configuration that allows reading the test images,
+	 * but not the other test resources, and writing to the temporary directory.
+	 */
+	private static LocalFilesConfiguration localFilesConfiguration() {
+		final LocalFilesConfiguration config = new LocalFilesConfiguration();
+		config.getReadRoots().add(new File(AbstractResourceTest.class
+			.getResource("/imgs/about4.tif").getPath()).getParent());
+		config.getWriteRoots().add(System.getProperty("java.io.tmpdir"));
+		return config;
+	}
 
+	/**
+	 * Creates a shared memory configuration with a directory in the temporary
+	 * directory.
+	 */
+	private static SharedMemoryConfiguration sharedMemoryConfiguration() {
+		final SharedMemoryConfiguration config = new SharedMemoryConfiguration();
+		config.setDirectory(new File(System.getProperty("java.io.tmpdir"),
+			"imagej-server-shm").getPath());
+		return config;
+	}
 }
@@ -0,0 +1,101 @@
+/*
+ * #%L
+ * ImageJ server for RESTful access to ImageJ.
+ * %%
+ * Copyright (C) 2013 - 2026 Board of Regents of the University of
+ * Wisconsin-Madison.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package net.imagej.server;
+
+import static org.junit.Assert.assertEquals;
+
+import io.dropwizard.util.DataSize;
+import io.dropwizard.util.Duration;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import net.imagej.server.config.ArtifactCacheConfiguration;
+import net.imagej.server.config.SpoolConfiguration;
+import net.imagej.server.services.ArtifactCache;
+import net.imagej.server.services.DefaultArtifactCache;
+import net.imagej.server.services.DefaultSpoolService;
+import net.imagej.server.services.SpoolService;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test for {@link DefaultArtifactCache}.
+ */
+public class DefaultArtifactCacheTest {
+
+	private SpoolService spoolService;
+
+	private ArtifactCache artifactCache;
+
+	@Before
+	public void setUp() {
+		final SpoolConfiguration spoolConfig = new SpoolConfiguration();
+		spoolConfig.setThreshold(DataSize.bytes(1000));
+		spoolService = new DefaultSpoolService(spoolConfig);
+		final ArtifactCacheConfiguration config = new ArtifactCacheConfiguration();
+		config.setExpireAfter(Duration.milliseconds(50));
+		artifactCache = new DefaultArtifactCache(config);
+	}
+
+	@After
+	public void tearDown() {
+		artifactCache.clear();
+		spoolService.dispose();
+	}
+
+	@Test
+	public void expiredArtifactsAreSwept() throws IOException,
+		InterruptedException
+	{
+		encode("object:first", 2000);
+		assertEquals(2000, artifactCache.size());
+		assertEquals(2000, spoolService.getSpooledBytes());
+
+		// NB: expired artifacts free their spool files without being looked up.
+		Thread.sleep(100);
+		assertEquals(1, artifactCache.expire());
+		assertEquals(0, artifactCache.size());
+		assertEquals(0, spoolService.getSpooledBytes());
+	}
+
+	@Test
+	public void insertSweepsExpiredArtifacts() throws IOException,
+		InterruptedException
+	{
+		encode("object:first", 2000);
+		Thread.sleep(100);
+		encode("object:second", 500);
+		assertEquals(500, artifactCache.size());
+		assertEquals(500, spoolService.getSpooledBytes());
+	}
+
+	// -- Helper methods --
+
+	/** Caches an encoding of the given length, and releases it. */
+	private void encode(final String id, final int length) throws IOException {
+		artifactCache.get(id, "csv", () -> spoolService.spool(
+			new ByteArrayInputStream(new byte[length]), "encoded.csv")).release();
+	}
+}
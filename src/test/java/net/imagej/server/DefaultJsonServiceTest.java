@@ -24,22 +24,29 @@ package net.imagej.server;
 import static io.dropwizard.testing.FixtureHelpers.fixture;
 import static org.junit.Assert.assertEquals;
 
+import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import io.dropwizard.jackson.Jackson;
 
+import java.io.Closeable;
 import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 import net.imagej.ops.create.img.Imgs;
 import net.imagej.server.services.DefaultJsonService;
+import net.imagej.server.services.EvictionPolicy;
 import net.imagej.server.services.ObjectInfo;
 import net.imagej.server.services.ObjectService;
+import net.imagej.server.services.SpillService;
 import net.imglib2.img.Img;
 import net.imglib2.img.array.ArrayImgFactory;
 import net.imglib2.img.planar.PlanarImgFactory;
@@ -117,6 +124,12 @@ public class DefaultJsonServiceTest {
 		assertEquals(deserialized, inputs);
 	}
 
+	@Test(expected = JsonMappingException.class)
+	public void deserializeMissingObject() throws Exception {
+		objectService.register(new Foo("test string"), "");
+		modifiedMapper.readValue("{\"foo\":\"object:1\"}", Map.class);
+	}
+
 	@Test
 	public void serializeBasicTypes() throws Exception {
 		final LinkedHashMap<String, Object> outputs = new LinkedHashMap<>();
@@ -197,6 +210,16 @@ public class DefaultJsonServiceTest {
 			return id;
 		}
 
+		@Override
+		public String reserve(final String createdBy) {
+			return null;
+		}
+
+		@Override
+		public boolean fulfil(final String id, final Object object) {
+			return false;
+		}
+
 		@Override
 		public boolean remove(final String id) {
 			return false;
@@ -204,7 +227,23 @@ public class DefaultJsonServiceTest {
 
 		@Override
 		public ObjectInfo find(String id) {
-			return list.get(Integer.valueOf(id.substring("object:".length())));
+			final int index = Integer.valueOf(id.substring("object:".length()));
+			return index < list.size() ? list.get(index) : null;
+		}
+
+		@Override
+		public boolean acquire(final Object object) {
+			return true;
+		}
+
+		@Override
+		public boolean release(final Object object) {
+			return true;
+		}
+
+		@Override
+		public Collection<ObjectInfo> getInfos() {
+			return list;
 		}
 
 		@Override
@@ -212,6 +251,70 @@ public class DefaultJsonServiceTest {
 			return Integer.valueOf(id.substring("object:".length())) < list.size();
 		}
 
+		@Override
+		public void attach(final String id, final Closeable resource) {
+			// No implementation needed
+		}
+
+		@Override
+		public void addRemovalListener(final Consumer<ObjectInfo> listener) {
+			// No implementation needed
+		}
+
+		@Override
+		public boolean pin(final String id, final boolean pinned) {
+			return false;
+		}
+
+		@Override
+		public long getTotalSize() {
+			return 0;
+		}
+
+		@Override
+		public void setEvictionPolicy(final EvictionPolicy policy) {
+			// No implementation needed
+		}
+
+		@Override
+		public int evict() {
+			return 0;
+		}
+
+		@Override
+		public void addEvictionListener(
+			final BiConsumer<ObjectInfo, String> listener)
+		{
+			// No implementation needed
+		}
+
+		@Override
+		public void setSpillService(final SpillService spillService) {
+			// No implementation needed
+		}
+
+		@Override
+		public int spill() {
+			return 0;
+		}
+
+		@Override
+		public void addSpillListener(final Consumer<ObjectInfo> listener) {
+			// No implementation needed
+		}
+
+		@Override
+		public String modified(final Object object) {
+			return null;
+		}
+
+		@Override
+		public void addModificationListener(
+			final Consumer<ObjectInfo> listener)
+		{
+			// No implementation needed
+		}
+
 	}
 
 	public static class Foo {
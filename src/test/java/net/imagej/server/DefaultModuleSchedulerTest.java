@@ -0,0 +1,244 @@
+/*
+ * #%L
+ * ImageJ server for RESTful access to ImageJ.
+ * %%
+ * Copyright (C) 2013 - 2026 Board of Regents of the University of
+ * Wisconsin-Madison.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package net.imagej.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.codahale.metrics.MetricRegistry;
+
+import io.dropwizard.util.Duration;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.imagej.server.config.SchedulerConfiguration;
+import net.imagej.server.services.DefaultModuleScheduler;
+import net.imagej.server.services.ModuleScheduler;
+import net.imagej.server.services.ModuleScheduler.Permit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test for {@link DefaultModuleScheduler}.
+ */
+public class DefaultModuleSchedulerTest {
+
+	private SchedulerConfiguration config;
+
+	private MetricRegistry metrics;
+
+	@Before
+	public void setUp() {
+		config = new SchedulerConfiguration();
+		config.setMaxRunning(1);
+		config.setMaxQueued(1);
+		config.setQueueTimeout(Duration.seconds(10));
+		metrics = new MetricRegistry();
+	}
+
+	@Test
+	public void queuesAndRejectsBeyondLimits() throws Exception {
+		final ModuleScheduler scheduler = new DefaultModuleScheduler(config,
+			metrics);
+		final Permit first = scheduler.acquire("a");
+		final CompletableFuture<Permit> second = CompletableFuture.supplyAsync(
+			() -> acquire(scheduler, "b"));
+		while (gauge("queued") == 0) {
+			Thread.sleep(1);
+		}
+
+		// NB: one execution runs and one waits, so a third one is rejected.
+		assertRejected(scheduler, "c");
+		assertEquals(1, metrics.meter(
+			"net.imagej.server.services.ModuleScheduler.rejected.queue-full")
+			.getCount());
+
+		first.close();
+		// NB: releasing twice has no effect.
+		first.close();
+		second.get(10, TimeUnit.SECONDS).close();
+		assertEquals(0, gauge("running"));
+		scheduler.acquire("c").close();
+	}
+
+	@Test
+	public void rejectsAfterTimeout() throws Exception {
+		config.setQueueTimeout(Duration.milliseconds(50));
+		final ModuleScheduler scheduler = new DefaultModuleScheduler(config,
+			metrics);
+		try (final Permit permit = scheduler.acquire("a")) {
+			assertRejected(scheduler, "b");
+		}
+		assertEquals(1, metrics.meter(
+			"net.imagej.server.services.ModuleScheduler.rejected.queue-timeout")
+			.getCount());
+		assertEquals(0, gauge("queued"));
+	}
+
+	@Test
+	public void limitsEachModule() throws Exception {
+		config.setMaxRunning(2);
+		config.setMaxRunningPerModule(1);
+		config.setQueueTimeout(Duration.milliseconds(50));
+		final ModuleScheduler scheduler = new DefaultModuleScheduler(config,
+			metrics);
+		try (final Permit a = scheduler.acquire("a");
+				final Permit b = scheduler.acquire("b"))
+		{
+			assertEquals(2, gauge("running"));
+			assertRejected(scheduler, "a");
+		}
+		scheduler.acquire("a").close();
+	}
+
+	@Test
+	public void jobsWaitBeyondLimits() throws Exception {
+		config.setQueueTimeout(Duration.milliseconds(50));
+		final ModuleScheduler scheduler = new DefaultModuleScheduler(config,
+			metrics);
+		final Permit first = scheduler.acquire("a");
+		final CompletableFuture<Permit> second = CompletableFuture.supplyAsync(
+			() -> await(scheduler, "b"));
+		final CompletableFuture<Permit> third = CompletableFuture.supplyAsync(
+			() -> await(scheduler, "c"));
+		while (gauge("queued-jobs") < 2) {
+			Thread.sleep(1);
+		}
+
+		// NB: jobs wait past the timeout, and do not fill the queue.
+		Thread.sleep(100);
+		assertEquals(0, gauge("queued"));
+		assertEquals(2, gauge("queued-jobs"));
+		first.close();
+		second.get(10, TimeUnit.SECONDS).close();
+		third.get(10, TimeUnit.SECONDS).close();
+		assertEquals(0, gauge("running"));
+		assertEquals(0, gauge("queued-jobs"));
+	}
+
+	@Test
+	public void batchesShareExecutor() throws Exception {
+		config.setMaxRunning(0);
+		config.setBatchParallelism(2);
+		final ModuleScheduler scheduler = new DefaultModuleScheduler(config,
+			metrics);
+		final ExecutorService executor = scheduler.getBatchExecutor();
+		final CountDownLatch release = new CountDownLatch(1);
+		final AtomicInteger started = new AtomicInteger();
+		final List<Future<?>> items = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			items.add(executor.submit(() -> {
+				started.incrementAndGet();
+				release.await();
+				return null;
+			}));
+		}
+		while (started.get() < 2) {
+			Thread.sleep(1);
+		}
+
+		// NB: the third item waits for a thread of the first two.
+		Thread.sleep(50);
+		assertEquals(2, started.get());
+		release.countDown();
+		for (final Future<?> item : items) {
+			item.get(10, TimeUnit.SECONDS);
+		}
+		assertEquals(3, started.get());
+		scheduler.dispose();
+		assertTrue(executor.isShutdown());
+	}
+
+	@Test
+	public void defaultConfigurationBoundsRunning() throws Exception {
+		config = new SchedulerConfiguration();
+		final int processors = Runtime.getRuntime().availableProcessors();
+		assertEquals(processors, config.getMaxRunning());
+
+		// NB: only shortened so that the test does not wait for long.
+		config.setQueueTimeout(Duration.milliseconds(50));
+		final ModuleScheduler scheduler = new DefaultModuleScheduler(config,
+			metrics);
+		final List<Permit> permits = new ArrayList<>();
+		for (int i = 0; i < processors; i++) {
+			permits.add(scheduler.acquire("m" + i));
+		}
+		assertEquals(processors, gauge("running"));
+		assertRejected(scheduler, "extra");
+		for (final Permit permit : permits) {
+			permit.close();
+		}
+		scheduler.acquire("extra").close();
+		assertTrue(scheduler.getBatchParallelism() <= processors);
+	}
+
+	// -- Helper methods --
+
+	private int gauge(final String name) {
+		return (Integer) metrics.getGauges().get(
+			"net.imagej.server.services.ModuleScheduler." + name).getValue();
+	}
+
+	private static Permit acquire(final ModuleScheduler scheduler,
+		final String module)
+	{
+		try {
+			return scheduler.acquire(module);
+		}
+		catch (final InterruptedException exc) {
+			throw new IllegalStateException(exc);
+		}
+	}
+
+	private static Permit await(final ModuleScheduler scheduler,
+		final String module)
+	{
+		try {
+			return scheduler.await(module);
+		}
+		catch (final InterruptedException exc) {
+			throw new IllegalStateException(exc);
+		}
+	}
+
+	private static void assertRejected(final ModuleScheduler scheduler,
+		final String module) throws InterruptedException
+	{
+		try {
+			scheduler.acquire(module).close();
+			fail("Execution of " + module + " was admitted");
+		}
+		catch (final RejectedExecutionException exc) {
+			assertTrue(exc.getMessage() != null);
+		}
+	}
+}
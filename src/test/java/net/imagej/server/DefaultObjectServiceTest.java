@@ -0,0 +1,311 @@
+/*
+ * #%L
+ * ImageJ server for RESTful access to ImageJ.
+ * %%
+ * Copyright (C) 2013 - 2026 Board of Regents of the University of
+ * Wisconsin-Madison.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package net.imagej.server;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import io.dropwizard.util.DataSize;
+import io.dropwizard.util.Duration;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import net.imagej.ImgPlus;
+import net.imagej.server.config.EvictionConfiguration;
+import net.imagej.server.config.SpillConfiguration;
+import net.imagej.server.services.DefaultEvictionPolicy;
+import net.imagej.server.services.DefaultObjectService;
+import net.imagej.server.services.DefaultSpillService;
+import net.imagej.server.services.EvictionPolicy;
+import net.imagej.server.services.ObjectInfo;
+import net.imagej.server.services.ObjectService;
+import net.imglib2.img.Img;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.img.cell.CellImgFactory;
+import net.imglib2.img.planar.PlanarImgs;
+import net.imglib2.type.numeric.integer.IntType;
+import net.imglib2.type.numeric.real.FloatType;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.scijava.table.DefaultGenericTable;
+
+/**
+ * Test for size estimation, eviction and spilling in
+ * {@link DefaultObjectService}.
+ */
+public class DefaultObjectServiceTest {
+
+	private ObjectService objectService;
+
+	private List<String> evictions;
+
+	@Before
+	public void setUp() {
+		objectService = new DefaultObjectService();
+		evictions = new ArrayList<>();
+		objectService.addEvictionListener((info, reason) -> evictions.add(info
+			.getId() + "=" + reason));
+	}
+
+	@Test
+	public void estimatesStorageSizes() {
+		assertEquals(400, size(ArrayImgs.ints(10, 10)));
+		assertEquals(600, size(PlanarImgs.unsignedShorts(10, 10, 3)));
+		assertEquals(400, size(new CellImgFactory<>(new FloatType(), 4).create(10,
+			10)));
+		assertEquals(100, size(new ImgPlus<>(ArrayImgs.unsignedBytes(10, 10))));
+
+		final DefaultGenericTable table = new DefaultGenericTable(2, 100);
+		for (int row = 0; row < 100; row++) {
+			table.set(0, row, "value");
+			table.set(1, row, row);
+		}
+		assertTrue(size(table) > 0);
+	}
+
+	@Test
+	public void registersByIdentity() {
+		final List<Integer> list = new ArrayList<>();
+		final String id = objectService.register(list, "test");
+		assertEquals(id, objectService.register(list, "test"));
+		// NB: equal but distinct Objects are distinct.
+		final String other = objectService.register(new ArrayList<>(), "test");
+		assertFalse(id.equals(other));
+		// NB: modifying an Object does not change its ID.
+		list.add(1);
+		assertEquals(id, objectService.register(list, "test"));
+	}
+
+	@Test
+	public void noPolicyKeepsEverything() {
+		for (int i = 0; i < 10; i++) {
+			objectService.register(ArrayImgs.bytes(1000), "test");
+		}
+		assertEquals(0, objectService.evict());
+		assertEquals(10, objectService.getIds().size());
+		assertEquals(10000, objectService.getTotalSize());
+	}
+
+	@Test
+	public void evictsLeastRecentlyUsedBeyondCount() throws InterruptedException {
+		final EvictionConfiguration config = configuration();
+		config.setMaxCount(2);
+		objectService.setEvictionPolicy(new DefaultEvictionPolicy(config));
+
+		final String first = register(ArrayImgs.bytes(10));
+		final String second = register(ArrayImgs.bytes(10));
+		Thread.sleep(2);
+		objectService.find(first);
+		final String third = register(ArrayImgs.bytes(10));
+
+		assertFalse(objectService.contains(second));
+		assertTrue(objectService.contains(first));
+		assertTrue(objectService.contains(third));
+		assertEquals(1, evictions.size());
+		assertEquals(second + "=" + EvictionPolicy.COUNT, evictions.get(0));
+	}
+
+	@Test
+	public void evictsBeyondSizeButKeepsPinned() throws InterruptedException {
+		final EvictionConfiguration config = configuration();
+		config.setMaxSize(DataSize.bytes(2500));
+		objectService.setEvictionPolicy(new DefaultEvictionPolicy(config));
+
+		final String pinned = register(ArrayImgs.unsignedShorts(500));
+		assertTrue(objectService.pin(pinned, true));
+		final String first = register(ArrayImgs.unsignedShorts(500));
+		final String second = register(ArrayImgs.floats(500));
+
+		assertTrue(objectService.contains(pinned));
+		assertFalse(objectService.contains(first));
+		assertTrue(objectService.contains(second));
+		assertEquals(3000, objectService.getTotalSize());
+		assertEquals(first + "=" + EvictionPolicy.SIZE, evictions.get(0));
+
+		// NB: a new object is never evicted by its own registration.
+		final String large = register(ArrayImgs.doubles(1000));
+		assertTrue(objectService.contains(large));
+		assertTrue(objectService.contains(pinned));
+		assertFalse(objectService.contains(second));
+	}
+
+	@Test
+	public void evictsIdleObjectsOnSweep() throws InterruptedException {
+		final EvictionConfiguration config = configuration();
+		config.setMaxIdle(Duration.milliseconds(50));
+		objectService.setEvictionPolicy(new DefaultEvictionPolicy(config));
+
+		final String idle = register(ArrayImgs.bytes(10));
+		final String pinned = register(ArrayImgs.bytes(10));
+		objectService.pin(pinned, true);
+		Thread.sleep(100);
+		final String fresh = register(ArrayImgs.bytes(10));
+
+		assertEquals(1, objectService.evict());
+		assertFalse(objectService.contains(idle));
+		assertTrue(objectService.contains(pinned));
+		assertTrue(objectService.contains(fresh));
+		assertEquals(idle + "=" + EvictionPolicy.IDLE, evictions.get(0));
+	}
+
+	@Test
+	public void spillsIdleImagesAndRestoresThem() throws Exception {
+		final File directory = spillDirectory();
+		final SpillConfiguration config = new SpillConfiguration();
+		config.setDirectory(directory.getPath());
+		config.setMinSize(DataSize.bytes(100));
+		config.setIdleTime(Duration.milliseconds(50));
+		objectService.setSpillService(new DefaultSpillService(config, null));
+
+		final Img<IntType> img = ArrayImgs.ints(10, 10);
+		int i = 0;
+		for (final IntType t : img) {
+			t.set(i++);
+		}
+		final String cold = register(img);
+		final String small = register(ArrayImgs.bytes(10));
+		Thread.sleep(100);
+		final String fresh = register(ArrayImgs.ints(10, 10));
+
+		assertEquals(1, objectService.spill());
+		final ObjectInfo info = objectService.find(cold);
+		assertTrue(info.isSpilled());
+		assertEquals(0, info.getSize());
+		assertEquals(410, objectService.getTotalSize());
+		assertFalse(objectService.find(small).isSpilled());
+		assertFalse(objectService.find(fresh).isSpilled());
+		final File file = new File(directory, cold.replace(':', '-') + ".raw");
+		assertTrue(file.exists());
+
+		@SuppressWarnings("unchecked")
+		final Img<IntType> restored = (Img<IntType>) info.getObject();
+		i = 0;
+		for (final IntType t : restored) {
+			assertEquals(i++, t.get());
+		}
+		// NB: the restored image keeps its ID and counts again.
+		assertEquals(cold, objectService.register(restored, "test"));
+		assertFalse(info.isSpilled());
+		assertEquals(400, info.getSize());
+		assertEquals(810, objectService.getTotalSize());
+
+		// NB: a restored image can be spilled again, without rewriting its file.
+		Thread.sleep(100);
+		assertEquals(2, objectService.spill());
+		assertTrue(info.isSpilled());
+		assertEquals(0, info.getSize());
+		i = 0;
+		for (final Object t : (Img<?>) info.getObject()) {
+			assertEquals(i++, ((IntType) t).get());
+		}
+
+		assertTrue(objectService.remove(cold));
+		assertFalse(file.exists());
+	}
+
+	@Test
+	public void spillsInsteadOfEvicting() throws Exception {
+		final EvictionConfiguration eviction = configuration();
+		eviction.setMaxSize(DataSize.bytes(1000));
+		objectService.setEvictionPolicy(new DefaultEvictionPolicy(eviction));
+		final SpillConfiguration config = new SpillConfiguration();
+		config.setDirectory(spillDirectory().getPath());
+		config.setMinSize(DataSize.bytes(100));
+		config.setIdleTime(Duration.seconds(0));
+		objectService.setSpillService(new DefaultSpillService(config, null));
+
+		final String first = register(ArrayImgs.ints(10, 10));
+		final String second = register(ArrayImgs.ints(10, 10));
+		final String third = register(ArrayImgs.ints(10, 10));
+
+		assertTrue(evictions.isEmpty());
+		assertTrue(objectService.find(first).isSpilled());
+		assertFalse(objectService.find(second).isSpilled());
+		assertFalse(objectService.find(third).isSpilled());
+		assertEquals(800, objectService.getTotalSize());
+	}
+
+	@Test
+	public void keepsObjectsInUse() throws Exception {
+		final EvictionConfiguration eviction = configuration();
+		eviction.setMaxIdle(Duration.milliseconds(50));
+		objectService.setEvictionPolicy(new DefaultEvictionPolicy(eviction));
+		final SpillConfiguration config = new SpillConfiguration();
+		config.setDirectory(spillDirectory().getPath());
+		config.setMinSize(DataSize.bytes(100));
+		config.setIdleTime(Duration.seconds(0));
+		objectService.setSpillService(new DefaultSpillService(config, null));
+
+		final Img<IntType> img = ArrayImgs.ints(10, 10);
+		final String id = register(img);
+		assertTrue(objectService.acquire(img));
+		assertTrue(objectService.find(id).isInUse());
+		Thread.sleep(100);
+
+		assertEquals(0, objectService.spill());
+		assertEquals(0, objectService.evict());
+		assertFalse(objectService.find(id).isSpilled());
+		assertTrue(objectService.contains(id));
+
+		assertTrue(objectService.release(img));
+		assertFalse(objectService.find(id).isInUse());
+		assertEquals(1, objectService.spill());
+		assertTrue(objectService.find(id).isSpilled());
+		// NB: the instance is no longer registered once it has been spilled.
+		assertFalse(objectService.acquire(img));
+		assertFalse(objectService.release(new Object()));
+	}
+
+	// -- Helper methods --
+
+	private static File spillDirectory() throws IOException {
+		final File directory = Files.createTempDirectory("imagej-server-spill")
+			.toFile();
+		directory.deleteOnExit();
+		return directory;
+	}
+
+	private long size(final Object object) {
+		return objectService.find(objectService.register(object, "test"))
+			.getSize();
+	}
+
+	/** Creates a configuration without limits. */
+	private static EvictionConfiguration configuration() {
+		return new EvictionConfiguration();
+	}
+
+	/**
+	 * Registers an Object, making sure that access times of successive Objects
+	 * differ.
+	 */
+	private String register(final Object object) throws InterruptedException {
+		Thread.sleep(2);
+		return objectService.register(object, "test");
+	}
+}
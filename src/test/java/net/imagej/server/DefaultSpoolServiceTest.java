@@ -0,0 +1,267 @@
+/*
+ * #%L
+ * ImageJ server for RESTful access to ImageJ.
+ * %%
+ * Copyright (C) 2013 - 2026 Board of Regents of the University of
+ * Wisconsin-Madison.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package net.imagej.server;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import io.dropwizard.util.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import net.imagej.server.config.SpoolConfiguration;
+import net.imagej.server.services.DefaultSpoolService;
+import net.imagej.server.services.Spool;
+import net.imagej.server.services.SpoolLimitExceededException;
+import net.imagej.server.services.SpoolService;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.scijava.io.location.FileLocation;
+
+/**
+ * Test for {@link DefaultSpoolService}.
+ */
+public class DefaultSpoolServiceTest {
+
+	private SpoolService spoolService;
+
+	@Before
+	public void setUp() {
+		final SpoolConfiguration config = new SpoolConfiguration();
+		config.setThreshold(DataSize.bytes(1000));
+		config.setMaxRequestSize(DataSize.bytes(10000));
+		config.setMaxTotalSize(DataSize.bytes(15000));
+		spoolService = new DefaultSpoolService(config);
+	}
+
+	@After
+	public void tearDown() {
+		spoolService.dispose();
+	}
+
+	@Test
+	public void smallPayloadStaysInMemory() throws IOException {
+		try (final Spool spool = spool(500, "small.csv")) {
+			assertFalse(spool.isOnDisk());
+			assertEquals(500, spool.length());
+			assertEquals(500, spoolService.getSpooledBytes());
+			final ByteArrayOutputStream out = new ByteArrayOutputStream();
+			spool.writeTo(out, 100, 50);
+			assertArrayEquals(Arrays.copyOfRange(bytes(500), 100, 150), out
+				.toByteArray());
+		}
+		assertEquals(0, spoolService.getSpooledBytes());
+	}
+
+	@Test
+	public void largePayloadIsSpooledToDisk() throws IOException {
+		final byte[] data = bytes(5000);
+		final File file;
+		try (final Spool spool = spoolService.spool(new ByteArrayInputStream(
+			data), "large.tif"))
+		{
+			assertTrue(spool.isOnDisk());
+			assertEquals(5000, spool.length());
+			assertEquals(5000, spoolService.getSpooledBytes());
+			file = ((FileLocation) spool.getLocation()).getFile();
+			assertTrue(file.getName().endsWith(".tif"));
+			assertArrayEquals(data, Files.readAllBytes(file.toPath()));
+		}
+		assertFalse(file.exists());
+		assertEquals(0, spoolService.getSpooledBytes());
+	}
+
+	@Test
+	public void perRequestLimit() throws IOException {
+		try (final Spool spool = spool(12000, "huge.tif")) {
+			fail("Expected the per-request limit to be exceeded");
+		}
+		catch (final SpoolLimitExceededException exc) {
+			assertEquals(0, spoolService.getSpooledBytes());
+		}
+	}
+
+	@Test
+	public void globalLimit() throws IOException {
+		try (final Spool first = spool(9000, "first.tif")) {
+			try (final Spool second = spool(9000, "second.tif")) {
+				fail("Expected the global limit to be exceeded");
+			}
+			catch (final SpoolLimitExceededException exc) {
+				assertEquals(9000, spoolService.getSpooledBytes());
+			}
+		}
+		assertEquals(0, spoolService.getSpooledBytes());
+	}
+
+	@Test
+	public void globalLimitCountsMemory() throws IOException {
+		final List<Spool> spools = new ArrayList<>();
+		try {
+			spools.add(spool(9000, "first.tif"));
+			for (int i = 0; i < 6; i++) {
+				spools.add(spool(900, "small" + i + ".csv"));
+			}
+			assertEquals(14400, spoolService.getSpooledBytes());
+			try (final Spool spool = spool(900, "last.csv")) {
+				fail("Expected the global limit to be exceeded");
+			}
+			catch (final SpoolLimitExceededException exc) {
+				assertEquals(14400, spoolService.getSpooledBytes());
+			}
+		}
+		finally {
+			for (final Spool spool : spools) {
+				spool.close();
+			}
+		}
+		assertEquals(0, spoolService.getSpooledBytes());
+	}
+
+	@Test
+	public void encodeReservesExpectedSize() throws IOException {
+		final byte[] data = bytes(2000);
+		try (final Spool spool = spoolService.spool("encoded.tif", 9000,
+			location -> {
+				// NB: the expected size is reserved before anything is written.
+				assertEquals(9000, spoolService.getSpooledBytes());
+				try (final Spool other = spoolService.spool("other.tif", 9000,
+					otherLocation -> fail("Expected no room for a second encode")))
+				{
+					fail("Expected the global limit to be exceeded");
+				}
+				catch (final SpoolLimitExceededException exc) {
+					assertEquals(9000, spoolService.getSpooledBytes());
+				}
+				Files.write(((FileLocation) location).getFile().toPath(), data);
+			}))
+		{
+			assertTrue(spool.isOnDisk());
+			assertEquals(2000, spool.length());
+			assertEquals(2000, spoolService.getSpooledBytes());
+			final ByteArrayOutputStream out = new ByteArrayOutputStream();
+			spool.writeTo(out);
+			assertArrayEquals(data, out.toByteArray());
+		}
+		assertEquals(0, spoolService.getSpooledBytes());
+	}
+
+	@Test
+	public void encodeBeyondLimit() throws IOException {
+		final File[] file = new File[1];
+		try (final Spool spool = spoolService.spool("huge.tif", 100,
+			location -> {
+				file[0] = ((FileLocation) location).getFile();
+				Files.write(file[0].toPath(), bytes(12000));
+			}))
+		{
+			fail("Expected the per-request limit to be exceeded");
+		}
+		catch (final SpoolLimitExceededException exc) {
+			assertEquals(0, spoolService.getSpooledBytes());
+			assertFalse(file[0].exists());
+		}
+	}
+
+	@Test
+	public void encodeIsMeteredWhileWriting() throws IOException {
+		final int[] written = new int[1];
+		try (final Spool spool = spoolService.spool("growing.tif", 100,
+			location -> {
+				final Path file = ((FileLocation) location).getFile().toPath();
+				Files.write(file, bytes(0));
+				// NB: writes far beyond the limit, unless stopped early.
+				for (int i = 0; i < 100; i++) {
+					Files.write(file, bytes(500), StandardOpenOption.APPEND);
+					written[0] += 500;
+					try {
+						Thread.sleep(20);
+					}
+					catch (final InterruptedException exc) {
+						throw new InterruptedIOException();
+					}
+				}
+			}))
+		{
+			fail("Expected the per-request limit to be exceeded");
+		}
+		catch (final SpoolLimitExceededException exc) {
+			assertTrue(written[0] < 50000);
+			assertFalse(Thread.currentThread().isInterrupted());
+			assertEquals(0, spoolService.getSpooledBytes());
+		}
+	}
+
+	@Test
+	public void disposeKeepsOtherFiles() throws IOException {
+		final Path directory = Files.createTempDirectory("spool-test");
+		final Path other = Files.write(directory.resolve("other.txt"), bytes(10));
+		final SpoolConfiguration config = new SpoolConfiguration();
+		config.setDirectory(directory.toString());
+		config.setThreshold(DataSize.bytes(100));
+		final SpoolService service = new DefaultSpoolService(config);
+		try {
+			final Spool spool = service.spool(new ByteArrayInputStream(bytes(1000)),
+				"leftover.tif");
+			final File file = ((FileLocation) spool.getLocation()).getFile();
+			service.dispose();
+			assertFalse(file.exists());
+			assertTrue(Files.exists(other));
+		}
+		finally {
+			Files.deleteIfExists(other);
+			Files.deleteIfExists(directory);
+		}
+	}
+
+	// -- Helper methods --
+
+	private Spool spool(final int length, final String filename)
+		throws IOException
+	{
+		return spoolService.spool(new ByteArrayInputStream(bytes(length)),
+			filename);
+	}
+
+	private static byte[] bytes(final int length) {
+		final byte[] data = new byte[length];
+		for (int i = 0; i < length; i++) {
+			data[i] = (byte) i;
+		}
+		return data;
+	}
+}
@@ -0,0 +1,98 @@
+/*
+ * #%L
+ * ImageJ server for RESTful access to ImageJ.
+ * %%
+ * Copyright (C) 2013 - 2026 Board of Regents of the University of
+ * Wisconsin-Madison.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package net.imagej.server;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import net.imagej.ImgPlus;
+import net.imagej.axis.Axes;
+import net.imagej.axis.AxisType;
+import net.imagej.server.services.ImagePyramid;
+import net.imglib2.RandomAccess;
+import net.imglib2.img.array.ArrayImgs;
+import net.imglib2.type.numeric.real.FloatType;
+import net.imglib2.util.Intervals;
+
+import org.junit.Test;
+
+/**
+ * Test for {@link ImagePyramid}.
+ */
+public class ImagePyramidTest {
+
+	@Test
+	public void tilesOfStack() throws Exception {
+		// pixel values equal to the X coordinate plus 1000 times the Z coordinate
+		final float[] pixels = new float[100 * 70 * 3];
+		for (int i = 0; i < pixels.length; i++) {
+			pixels[i] = i % 100 + 1000 * (i / (100 * 70));
+		}
+		final ImagePyramid pyramid = new ImagePyramid(new ImgPlus<>(ArrayImgs
+			.floats(pixels, 100, 70, 3), "stack", new AxisType[] { Axes.X, Axes.Y,
+				Axes.Z }), 32);
+		assertEquals(3, pyramid.numLevels());
+		assertEquals(3, pyramid.numPlanes());
+
+		// NB: concurrent requests for the same tile see the same pixels.
+		final List<CompletableFuture<ImgPlus<?>>> tiles = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			tiles.add(CompletableFuture.supplyAsync(() -> pyramid.tile(1, 2, 1, 0)));
+		}
+		for (final CompletableFuture<ImgPlus<?>> future : tiles) {
+			final ImgPlus<?> tile = future.get(10, TimeUnit.SECONDS);
+			assertArrayEquals(new long[] { 18, 32 }, Intervals
+				.dimensionsAsLongArray(tile));
+			@SuppressWarnings("unchecked")
+			final RandomAccess<FloatType> ra = ((ImgPlus<FloatType>) tile)
+				.randomAccess();
+			for (int x = 0; x < 18; x++) {
+				ra.setPosition(new long[] { x, 0 });
+				assertEquals(2 * (32 + x) + 0.5f + 2000, ra.get().get(), 0);
+			}
+		}
+
+		final ImgPlus<?> top = pyramid.tile(2, 0, 0, 0);
+		assertArrayEquals(new long[] { 25, 18 }, Intervals.dimensionsAsLongArray(
+			top));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsDownsamplingColors() {
+		new ImagePyramid(new ImgPlus<>(ArrayImgs.argbs(100, 70), "colors",
+			new AxisType[] { Axes.X, Axes.Y }), 32);
+	}
+
+	@Test
+	public void keepsSmallColors() {
+		final ImagePyramid pyramid = new ImagePyramid(new ImgPlus<>(ArrayImgs
+			.argbs(20, 10), "colors", new AxisType[] { Axes.X, Axes.Y }), 32);
+		assertEquals(1, pyramid.numLevels());
+		assertArrayEquals(new long[] { 20, 10 }, Intervals.dimensionsAsLongArray(
+			pyramid.tile(0, 0, 0, 0)));
+	}
+}
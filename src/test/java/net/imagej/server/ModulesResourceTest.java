@@ -22,40 +22,66 @@
 package net.imagej.server;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import io.dropwizard.testing.junit.ResourceTestRule;
+import io.dropwizard.util.DataSize;
+import io.dropwizard.util.Duration;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import javax.ws.rs.client.Entity;
+import javax.ws.rs.client.Invocation;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
 
 import net.imagej.ops.Op;
 import net.imagej.ops.OpService;
 import net.imagej.ops.special.hybrid.AbstractUnaryHybridCI;
 import net.imagej.ops.stats.DefaultSum;
+import net.imagej.server.resources.JobsResource;
 import net.imagej.server.resources.ModulesResource;
+import net.imagej.server.config.SpillConfiguration;
+import net.imagej.server.resources.ObjectsResource;
+import net.imagej.server.services.DefaultSpillService;
+import net.imagej.server.services.JobStatus;
+import net.imagej.server.services.ObjectInfo;
+import net.imglib2.img.Img;
 import net.imglib2.img.array.ArrayImg;
 import net.imglib2.img.array.ArrayImgs;
 import net.imglib2.img.basictypeaccess.array.FloatArray;
 import net.imglib2.type.numeric.real.DoubleType;
 import net.imglib2.type.numeric.real.FloatType;
 
+import org.glassfish.jersey.media.multipart.MultiPartFeature;
 import org.junit.ClassRule;
 import org.junit.Test;
 import org.scijava.Identifiable;
 import org.scijava.ItemIO;
+import org.scijava.command.Command;
+import org.scijava.command.CommandInfo;
 import org.scijava.module.ModuleInfo;
 import org.scijava.module.ModuleService;
 import org.scijava.plugin.Parameter;
@@ -70,7 +96,8 @@ public class ModulesResourceTest extends AbstractResourceTest {
 
 	@ClassRule
 	public static final ResourceTestRule resources = resourcesBuilder.addProvider(
-		ModulesResource.class).build();
+		ModulesResource.class).addProvider(JobsResource.class).addProvider(
+			MultiPartFeature.class).addProvider(ObjectsResource.class).build();
 
 	@Test
 	public void retrieveModules() {
@@ -89,6 +116,37 @@ public class ModulesResourceTest extends AbstractResourceTest {
 		assertTrue(ids.isEmpty());
 	}
 
+	@Test
+	public void retrieveModulesByVersion() {
+		final Response first = resources.client().target("/modules").request()
+			.get();
+		assertEquals(200, first.getStatus());
+		final EntityTag tag = first.getEntityTag();
+		first.close();
+
+		// NB: an unchanged list is not sent again.
+		final Response unchanged = resources.client().target("/modules").request()
+			.header(HttpHeaders.IF_NONE_MATCH, tag).get();
+		assertEquals(304, unchanged.getStatus());
+		unchanged.close();
+
+		final ModuleService moduleService = ctx.getService(ModuleService.class);
+		final CommandInfo info = new CommandInfo(Baz.class);
+		moduleService.addModule(info);
+		try {
+			final Response added = resources.client().target("/modules").request()
+				.header(HttpHeaders.IF_NONE_MATCH, tag).get();
+			assertEquals(200, added.getStatus());
+			assertNotEquals(tag, added.getEntityTag());
+			assertTrue(added.readEntity(List.class).contains(info.getIdentifier()));
+		}
+		finally {
+			moduleService.removeModule(info);
+		}
+		assertFalse(resources.client().target("/modules").request().get(List.class)
+			.contains(info.getIdentifier()));
+	}
+
 	@Test
 	public void getWidget() throws JsonProcessingException {
 		final String[] ids = { "command:net.imagej.server.external.ScriptEval",
@@ -123,6 +181,56 @@ public class ModulesResourceTest extends AbstractResourceTest {
 		}
 	}
 
+	@Test
+	public void getWidgetCached() {
+		final ModuleService moduleService = ctx.getService(ModuleService.class);
+		final CommandInfo info = new CommandInfo(Qux.class);
+		moduleService.addModule(info);
+		try {
+			final String id = info.getIdentifier();
+			final String first = getWidget(id);
+			// NB: a new instance would have a different starting value.
+			assertEquals(first, getWidget(id));
+
+			final Map<String, Object> inputs = new HashMap<>();
+			inputs.put("count", 0);
+			runModule(id, inputs);
+			assertNotEquals(first, getWidget(id));
+		}
+		finally {
+			moduleService.removeModule(info);
+		}
+	}
+
+	@Test
+	public void mapModule() {
+		final ModuleService moduleService = ctx.getService(ModuleService.class);
+		final CommandInfo info = new CommandInfo(Qux.class);
+		moduleService.addModule(info);
+		try {
+			final List<Map<String, Object>> items = new ArrayList<>();
+			for (int i = 0; i < 20; i++) {
+				items.add(Collections.singletonMap("count", i));
+			}
+			final Map<String, Object> batch = new HashMap<>();
+			batch.put("items", items);
+			final String response = resources.client().target("/modules/" + info
+				.getIdentifier() + "/map").queryParam("ordered", true).request().post(
+					Entity.entity(batch, MediaType.APPLICATION_JSON), String.class);
+
+			final String[] lines = response.split("\n");
+			assertEquals(items.size(), lines.length);
+			for (int i = 0; i < lines.length; i++) {
+				final Map<?, ?> line = jsonToMap(lines[i]);
+				assertEquals(i, line.get("index"));
+				assertEquals(i, ((Map<?, ?>) line.get("outputs")).get("result"));
+			}
+		}
+		finally {
+			moduleService.removeModule(info);
+		}
+	}
+
 	@Test
 	public void runModule() {
 		final String imgId;
@@ -185,8 +293,159 @@ public class ModulesResourceTest extends AbstractResourceTest {
 		assertEquals(expectedSum, sum, 1e-8);
 	}
 
+	@Test
+	public void readOnlyModuleKeepsETag() {
+		final ModuleService moduleService = ctx.getService(ModuleService.class);
+		final CommandInfo info = new CommandInfo(Increment.class);
+		moduleService.addModule(info);
+		final String imgId = objectService.register(ArrayImgs.floats(new float[] {
+			1, 2, 3, 4 }, 2, 2), "ModulesResourceTest");
+		try {
+			final Response first = download(imgId, null);
+			final EntityTag etag = first.getEntityTag();
+			first.close();
+
+			// A module only reading the image leaves its encodings alone.
+			final HashMap<String, Object> inputs = new HashMap<>();
+			inputs.put("in", imgId);
+			runModule("command:net.imagej.ops.stats.DefaultSum", inputs);
+			final Response notModified = download(imgId, etag);
+			assertEquals(304, notModified.getStatus());
+			notModified.close();
+
+			// A module changing the image in place has it encoded again.
+			inputs.clear();
+			inputs.put("img", imgId);
+			runModule(info.getIdentifier(), inputs);
+			final Response modified = download(imgId, etag);
+			assertEquals(200, modified.getStatus());
+			assertNotEquals(etag, modified.getEntityTag());
+			modified.close();
+		}
+		finally {
+			objectService.remove(imgId);
+			moduleService.removeModule(info);
+		}
+	}
+
+	@Test
+	public void keepsInputsFromSpillingWhileRunning() throws Exception {
+		final ModuleService moduleService = ctx.getService(ModuleService.class);
+		final CommandInfo info = new CommandInfo(Hold.class);
+		moduleService.addModule(info);
+		final SpillConfiguration config = new SpillConfiguration();
+		config.setDirectory(Files.createTempDirectory("imagej-server-spill")
+			.toString());
+		config.setMinSize(DataSize.bytes(1));
+		config.setIdleTime(Duration.seconds(0));
+		objectService.setSpillService(new DefaultSpillService(config, null));
+		final String imgId = objectService.register(ArrayImgs.floats(new float[] {
+			1, 2, 3, 4 }, 2, 2), "ModulesResourceTest");
+		Hold.started = new CountDownLatch(1);
+		Hold.proceed = new CountDownLatch(1);
+		try {
+			final HashMap<String, Object> inputs = new HashMap<>();
+			inputs.put("img", imgId);
+			final String jobId = resources.client().target("/modules/" + info
+				.getIdentifier()).queryParam("async", true).request().post(Entity
+					.entity(inputs, MediaType.APPLICATION_JSON), JsonNode.class).get(
+						"id").asText();
+			assertTrue(Hold.started.await(60, TimeUnit.SECONDS));
+
+			// The image is being changed in place, so it stays in memory.
+			final ObjectInfo imgInfo = objectService.find(imgId);
+			assertTrue(imgInfo.isInUse());
+			objectService.spill();
+			assertFalse(imgInfo.isSpilled());
+
+			Hold.proceed.countDown();
+			assertEquals(JobStatus.DONE, awaitJob(jobId).get("status").asText());
+			assertFalse(imgInfo.isInUse());
+			objectService.spill();
+			assertTrue(imgInfo.isSpilled());
+
+			// The spilled image has all the changes of the module.
+			float expected = 2;
+			for (final Object t : (Img<?>) imgInfo.getObject()) {
+				assertEquals(expected++, ((FloatType) t).get(), 0);
+			}
+		}
+		finally {
+			Hold.proceed.countDown();
+			objectService.setSpillService(null);
+			objectService.remove(imgId);
+			moduleService.removeModule(info);
+		}
+	}
+
+	@Test
+	public void runModuleAsync() throws InterruptedException {
+		final HashMap<String, Object> inputs = new HashMap<>();
+		inputs.put("language", "python");
+		inputs.put("script", "#@output int out\nout = 6 * 7\n");
+
+		final Response response = resources.client().target(
+			"/modules/command:net.imagej.server.external.ScriptEval").queryParam(
+				"async", true).request().post(Entity.entity(inputs,
+					MediaType.APPLICATION_JSON));
+		assertEquals(202, response.getStatus());
+		final String jobId = response.readEntity(JsonNode.class).get("id")
+			.asText();
+		assertTrue(response.getLocation().getPath().endsWith("jobs/" + jobId));
+
+		final JsonNode job = awaitJob(jobId);
+		assertEquals(JobStatus.DONE, job.get("status").asText());
+		assertEquals(42, job.get("outputs").get("outputs").get("out").asInt());
+		assertTrue(job.get("run_time").asLong() >= 0);
+		assertNull(job.get("error"));
+	}
+
+	@Test
+	public void cancelJob() throws InterruptedException {
+		final HashMap<String, Object> inputs = new HashMap<>();
+		inputs.put("language", "python");
+		inputs.put("script", "import time\ntime.sleep(60)\n");
+
+		final String jobId = resources.client().target(
+			"/modules/command:net.imagej.server.external.ScriptEval").queryParam(
+				"async", true).request().post(Entity.entity(inputs,
+					MediaType.APPLICATION_JSON), JsonNode.class).get("id").asText();
+		final JsonNode cancelled = resources.client().target("/jobs/" + jobId)
+			.request().delete(JsonNode.class);
+		assertEquals(JobStatus.CANCELLED, cancelled.get("status").asText());
+		assertEquals(JobStatus.CANCELLED, awaitJob(jobId).get("status").asText());
+
+		assertEquals(404, resources.client().target("/jobs/job:missing").request()
+			.get().getStatus());
+	}
+
 	// -- helper methods --
 
+	/** Polls a job until it has finished. */
+	private JsonNode awaitJob(final String jobId) throws InterruptedException {
+		final long deadline = System.currentTimeMillis() + 60000;
+		while (true) {
+			final JsonNode job = resources.client().target("/jobs/" + jobId)
+				.request().get(JsonNode.class);
+			final String status = job.get("status").asText();
+			if (!JobStatus.PENDING.equals(status) && !JobStatus.RUNNING.equals(
+				status) || System.currentTimeMillis() > deadline) return job;
+			Thread.sleep(50);
+		}
+	}
+
+	private String getWidget(final String id) {
+		return resources.client().target("/modules/" + id).request().get(
+			String.class);
+	}
+
+	private Response download(final String id, final EntityTag etag) {
+		final Invocation.Builder request = resources.client().target("/objects/" +
+			id + "/tif").request();
+		if (etag != null) request.header(HttpHeaders.IF_NONE_MATCH, etag);
+		return request.get();
+	}
+
 	private String runModule(final String id, final Map<String, Object> inputs) {
 		return resources.client().target("/modules/" + id).request().post(Entity
 			.entity(inputs, MediaType.APPLICATION_JSON), String.class);
@@ -207,6 +466,72 @@ public class ModulesResourceTest extends AbstractResourceTest {
 		// NB: Marker interface.
 	}
 
+	/** Command that is only registered while testing the module list. */
+	public static class Baz implements Command {
+
+		@Override
+		public void run() {
+			// NB: nothing to do.
+		}
+	}
+
+	/** Command whose starting value differs for each instance. */
+	public static class Qux implements Command {
+
+		private static final AtomicInteger instances = new AtomicInteger();
+
+		@Parameter(persist = false)
+		private int count = instances.incrementAndGet();
+
+		@Parameter(type = ItemIO.OUTPUT)
+		private int result;
+
+		@Override
+		public void run() {
+			result = count;
+		}
+	}
+
+	/** Command that changes its image in place. */
+	public static class Increment implements Command {
+
+		@Parameter(type = ItemIO.BOTH)
+		private Img<FloatType> img;
+
+		@Override
+		public void run() {
+			for (final FloatType t : img) {
+				t.inc();
+			}
+		}
+	}
+
+	/** Command that holds on to its image while changing it in place. */
+	public static class Hold implements Command {
+
+		private static volatile CountDownLatch started;
+
+		private static volatile CountDownLatch proceed;
+
+		@Parameter(type = ItemIO.BOTH)
+		private Img<FloatType> img;
+
+		@Override
+		public void run() {
+			started.countDown();
+			try {
+				proceed.await();
+			}
+			catch (final InterruptedException exc) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+			for (final FloatType t : img) {
+				t.inc();
+			}
+		}
+	}
+
 	@Plugin(type = Foo.class, name = "test.bar")
 	public static class Bar<I, O extends I> extends AbstractUnaryHybridCI<I, O> {
 
@@ -0,0 +1,114 @@
+/*
+ * #%L
+ * ImageJ server for RESTful access to ImageJ.
+ * %%
+ * Copyright (C) 2013 - 2026 Board of Regents of the University of
+ * Wisconsin-Madison.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package net.imagej.server;
+
+import com.carrotsearch.junitbenchmarks.BenchmarkOptions;
+import com.carrotsearch.junitbenchmarks.BenchmarkRule;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import net.imagej.server.services.DefaultObjectService;
+import net.imagej.server.services.ObjectService;
+import net.imglib2.img.array.ArrayImgs;
+
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Benchmark of {@link ObjectService#register} under contention, as when many
+ * concurrent module executions serialize their outputs: threads register new
+ * Objects and register again Objects that are registered already.
+ */
+@BenchmarkOptions(benchmarkRounds = 20, warmupRounds = 1)
+public class ObjectServiceBenchmark {
+
+	private static final int THREADS = 16;
+
+	private static final int REGISTRATIONS = 20000;
+
+	private boolean benchmarkTestsEnabled = "enabled".equals(System.getProperty(
+		"imagej.server.benchmark.tests"));
+
+	@Before
+	public void skipBenchmarksByDefault() {
+		assumeTrue(benchmarkTestsEnabled);
+	}
+
+	private static ExecutorService executor;
+
+	/** Shared Objects, with hash codes that are expensive to compute. */
+	private static List<Object> shared;
+
+	@BeforeClass
+	public static void prepare() {
+		executor = Executors.newFixedThreadPool(THREADS);
+		shared = new ArrayList<>();
+		for (int i = 0; i < 64; i++) {
+			final List<Integer> list = new ArrayList<>();
+			for (int j = 0; j < 10000; j++) {
+				list.add(i * j);
+			}
+			shared.add(list);
+		}
+	}
+
+	@AfterClass
+	public static void cleanup() {
+		executor.shutdown();
+	}
+
+	/** Needed for JUnit-Benchmarks */
+	@Rule
+	public TestRule benchmarkRun = new BenchmarkRule();
+
+	@Test
+	public void registerConcurrently() throws InterruptedException,
+		ExecutionException
+	{
+		final ObjectService objectService = new DefaultObjectService();
+		final List<Future<?>> futures = new ArrayList<>();
+		for (int t = 0; t < THREADS; t++) {
+			futures.add(executor.submit(() -> {
+				for (int i = 0; i < REGISTRATIONS; i++) {
+					// NB: every fourth Object is new; the others are shared.
+					final Object object = i % 4 == 0 ? ArrayImgs.bytes(16) : shared.get(
+						i % shared.size());
+					objectService.register(object, "benchmark");
+				}
+			}));
+		}
+		for (final Future<?> future : futures) {
+			future.get();
+		}
+	}
+}
@@ -21,30 +21,60 @@
 
 package net.imagej.server;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
+import com.codahale.metrics.MetricRegistry;
+import com.fasterxml.jackson.databind.JsonNode;
+
 import io.dropwizard.testing.junit.ResourceTestRule;
+import io.dropwizard.util.DataSize;
 import io.scif.services.DatasetIOService;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.RandomAccessFile;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.ShortBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import javax.ws.rs.client.Entity;
+import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
 
 import net.imagej.Dataset;
+import net.imagej.server.compression.CompressionInterceptor;
+import net.imagej.server.config.CompressionConfiguration;
+import net.imagej.server.io.RawImageCodec;
+import net.imagej.server.io.RawImageHeader;
 import net.imagej.server.resources.ObjectsResource;
+import net.imagej.server.services.ExportStatus;
+import net.imglib2.img.array.ArrayImgs;
 
 import org.glassfish.jersey.media.multipart.BodyPart;
 import org.glassfish.jersey.media.multipart.FormDataContentDisposition;
@@ -52,6 +82,7 @@ import org.glassfish.jersey.media.multipart.FormDataMultiPart;
 import org.glassfish.jersey.media.multipart.MultiPartFeature;
 import org.junit.ClassRule;
 import org.junit.Test;
+import org.scijava.io.location.FileLocation;
 
 /**
  * Test for {@link ObjectsResource}.
@@ -62,7 +93,9 @@ public class ObjectsResourceTest extends AbstractResourceTest {
 
 	@ClassRule
 	public static final ResourceTestRule resources = resourcesBuilder.addProvider(
-		MultiPartFeature.class).addProvider(ObjectsResource.class).build();
+		MultiPartFeature.class).addProvider(ObjectsResource.class).addProvider(
+			new CompressionInterceptor(compressionConfiguration(),
+				new MetricRegistry())).build();
 
 	/**
 	 * A integrated test for the workflow using IOResource:<br/>
@@ -124,8 +157,595 @@ public class ObjectsResourceTest extends AbstractResourceTest {
 			secondTable).getObject());
 	}
 
+	@Test
+	public void conditionalDownload() throws IOException {
+		final String tableID = uploadFile("texts/table.csv");
+
+		final Response first = retrieveFile(tableID, "csv");
+		assertEquals(Status.OK, first.getStatusInfo());
+		final EntityTag etag = first.getEntityTag();
+		assertNotNull(etag);
+		final String content = first.readEntity(String.class);
+
+		// The cached encoding is served again, with the same tag.
+		final Response second = retrieveFile(tableID, "csv");
+		assertEquals(etag, second.getEntityTag());
+		assertEquals(content, second.readEntity(String.class));
+
+		// Revalidating with a matching tag transfers no content.
+		final Response notModified = resources.client().target("/objects/" +
+			tableID + "/csv").request().header(HttpHeaders.IF_NONE_MATCH, etag)
+			.get();
+		assertEquals(Status.NOT_MODIFIED, notModified.getStatusInfo());
+
+		// A modified object is encoded again, under another tag.
+		objectService.modified(objectService.find(tableID).getObject());
+		final Response modified = resources.client().target("/objects/" +
+			tableID + "/csv").request().header(HttpHeaders.IF_NONE_MATCH, etag)
+			.get();
+		assertEquals(Status.OK, modified.getStatusInfo());
+		assertNotEquals(etag, modified.getEntityTag());
+		modified.close();
+
+		// Removing the object drops its cached encodings.
+		final long cached = artifactCache.size();
+		assertTrue(cached > 0);
+		assertEquals(Status.OK, removeID(tableID).getStatusInfo());
+		assertTrue(artifactCache.size() < cached);
+	}
+
+	@Test
+	public void rangeDownload() throws IOException {
+		final String tableID = uploadFile("texts/table.csv");
+		final String content = retrieveFile(tableID, "csv").readEntity(
+			String.class);
+		final String target = "/objects/" + tableID + "/csv";
+
+		final Response partial = resources.client().target(target).request()
+			.header("Range", "bytes=0-9").get();
+		assertEquals(Status.PARTIAL_CONTENT, partial.getStatusInfo());
+		assertEquals("bytes 0-9/" + content.length(), partial.getHeaderString(
+			"Content-Range"));
+		assertEquals(content.substring(0, 10), partial.readEntity(String.class));
+
+		final Response suffix = resources.client().target(target).request()
+			.header("Range", "bytes=-5").get();
+		assertEquals(content.substring(content.length() - 5), suffix.readEntity(
+			String.class));
+
+		final Response multi = resources.client().target(target).request()
+			.header("Range", "bytes=0-1,4-5").get();
+		assertEquals(Status.PARTIAL_CONTENT, multi.getStatusInfo());
+		assertTrue(multi.getMediaType().toString().startsWith(
+			"multipart/byteranges"));
+
+		final Response unsatisfiable = resources.client().target(target).request()
+			.header("Range", "bytes=" + content.length() + "-").get();
+		assertEquals(Status.REQUESTED_RANGE_NOT_SATISFIABLE, unsatisfiable
+			.getStatusInfo());
+
+		// A stale If-Range validator yields the full representation.
+		final Response stale = resources.client().target(target).request()
+			.header("Range", "bytes=0-9").header("If-Range", "\"stale\"").get();
+		assertEquals(Status.OK, stale.getStatusInfo());
+		assertEquals(content, stale.readEntity(String.class));
+	}
+
+	@Test
+	public void writerOptions() throws IOException {
+		final String tableID = uploadFile("texts/table.csv");
+		final String table = resources.client().target("/objects/" + tableID +
+			"/csv").queryParam("columnDelimiter", "tab").queryParam("precision", "2")
+			.request().get(String.class);
+		assertTrue(table.contains("\t"));
+		assertTrue(table.contains("-1.00"));
+
+		final Response invalid = resources.client().target("/objects/" +
+			tableID + "/csv").queryParam("precision", "many").request().get();
+		assertEquals(Status.BAD_REQUEST, invalid.getStatusInfo());
+
+		final String imgID = uploadFile("imgs/about4.tif");
+		final Response uncompressed = resources.client().target("/objects/" +
+			imgID + "/tiff").queryParam("compression", "Uncompressed").request()
+			.get();
+		final Response lzw = resources.client().target("/objects/" + imgID +
+			"/tiff").queryParam("compression", "LZW").request().get();
+		assertEquals(Status.OK, uncompressed.getStatusInfo());
+		assertEquals(Status.OK, lzw.getStatusInfo());
+		assertTrue(!uncompressed.getEntityTag().equals(lzw.getEntityTag()));
+	}
+
+	@Test
+	public void lazyUpload() throws IOException {
+		final String eagerID = uploadFile("imgs/about4.tif");
+		final long before = spoolService.getSpooledBytes();
+		final String lazyID = uploadFile("about4.tif", getClass().getClassLoader()
+			.getResourceAsStream("imgs/about4.tif"), "cell");
+
+		// the spool file stays around as the backing store of the image
+		final long spooled = spoolService.getSpooledBytes();
+		assertTrue(spooled > before);
+		final Dataset eager = (Dataset) objectService.find(eagerID).getObject();
+		final Dataset lazy = (Dataset) objectService.find(lazyID).getObject();
+		final Iterator<?> expectedItr = eager.iterator();
+		final Iterator<?> actualItr = lazy.iterator();
+		while (expectedItr.hasNext()) {
+			assertEquals(expectedItr.next(), actualItr.next());
+		}
+
+		assertEquals(Status.OK, removeID(lazyID).getStatusInfo());
+		assertTrue(spoolService.getSpooledBytes() < spooled);
+	}
+
+	@Test
+	public void asyncUpload() throws Exception {
+		final URL url = getClass().getClassLoader().getResource("imgs/about4.tif");
+		final Response accepted = postFile("about4.tif", url.openStream(), "async",
+			"true");
+		assertEquals(Status.ACCEPTED, accepted.getStatusInfo());
+		final String id = objectMapper.readTree(accepted.readEntity(String.class))
+			.get("id").asText();
+		assertTrue(objectService.contains(id));
+
+		final JsonNode status = awaitStatus(id);
+		assertEquals("ready", status.get("status").asText());
+		assertEquals(new File(url.toURI()).length(), status.get("bytes_read")
+			.asLong());
+		assertTrue(status.has("decode_time"));
+		assertTrue(objectService.find(id).getObject() instanceof Dataset);
+
+		// a broken upload fails, and its ID goes away
+		final Response broken = postFile("broken.tif", new ByteArrayInputStream(
+			new byte[] { 1, 2, 3 }), "async", "true");
+		assertEquals(Status.ACCEPTED, broken.getStatusInfo());
+		final String brokenID = objectMapper.readTree(broken.readEntity(
+			String.class)).get("id").asText();
+		assertEquals("failed", awaitStatus(brokenID).get("status").asText());
+		assertTrue(!objectService.contains(brokenID));
+		assertEquals(Status.NOT_FOUND, resources.client().target("/objects/" +
+			brokenID + "/tif").request().get().getStatusInfo());
+	}
+
+	@Test
+	public void pendingDownload() {
+		final String id = objectService.reserve("pendingDownload");
+		try {
+			for (final String path : new String[] { "/tif", "/raw", "/region/tif",
+				"/tiles" })
+			{
+				final Response response = resources.client().target("/objects/" + id +
+					path).request().get();
+				assertEquals(path, Status.CONFLICT, response.getStatusInfo());
+				assertTrue(response.getLocation().getPath().endsWith("/objects/" + id +
+					"/status"));
+			}
+		}
+		finally {
+			objectService.remove(id);
+		}
+	}
+
+	@Test
+	public void batchUpload() throws IOException {
+		final ByteArrayOutputStream zip = new ByteArrayOutputStream();
+		try (final ZipOutputStream out = new ZipOutputStream(zip)) {
+			out.putNextEntry(new ZipEntry("zipped.csv"));
+			out.write("a,b\n1,2\n".getBytes(StandardCharsets.UTF_8));
+			out.closeEntry();
+		}
+		final ClassLoader loader = getClass().getClassLoader();
+		try (final FormDataMultiPart multiPart = new FormDataMultiPart()) {
+			multiPart.bodyPart(filePart("about4.tif", loader.getResourceAsStream(
+				"imgs/about4.tif")));
+			multiPart.bodyPart(filePart("table.csv", loader.getResourceAsStream(
+				"texts/table.csv")));
+			multiPart.bodyPart(filePart("notes.xyz", new ByteArrayInputStream(
+				new byte[] { 1, 2, 3 })));
+			multiPart.bodyPart(filePart("tables.zip", new ByteArrayInputStream(zip
+				.toByteArray())));
+			final Response response = resources.client().register(
+				MultiPartFeature.class).target("/objects/upload/batch").request()
+				.post(Entity.entity(multiPart, multiPart.getMediaType()));
+			assertEquals(Status.OK, response.getStatusInfo());
+			final JsonNode result = objectMapper.readTree(response.readEntity(
+				String.class));
+			final JsonNode ids = result.get("ids");
+			assertEquals(3, ids.size());
+			assertTrue(objectService.find(ids.get("about4.tif").asText())
+				.getObject() instanceof Dataset);
+			assertNotNull(objectService.find(ids.get("table.csv").asText())
+				.getObject());
+			assertNotNull(objectService.find(ids.get("zipped.csv").asText())
+				.getObject());
+			assertTrue(result.get("errors").has("notes.xyz"));
+		}
+	}
+
+	@Test
+	public void openByPath() throws Exception {
+		final ClassLoader loader = getClass().getClassLoader();
+		final String image = new File(loader.getResource("imgs/about4.tif")
+			.toURI()).getAbsolutePath();
+		final Response opened = resources.client().target("/objects/open")
+			.queryParam("path", image).request().post(null);
+		assertEquals(Status.OK, opened.getStatusInfo());
+		final String id = objectMapper.readTree(opened.readEntity(String.class))
+			.get("id").asText();
+		assertTrue(objectService.find(id).getObject() instanceof Dataset);
+
+		// outside of the allowed roots, also when reached through ".."
+		final String table = new File(loader.getResource("texts/table.csv")
+			.toURI()).getAbsolutePath();
+		assertEquals(Status.FORBIDDEN, resources.client().target("/objects/open")
+			.queryParam("path", table).request().post(null).getStatusInfo());
+		final String sneaky = new File(image).getParent() + "/../texts/table.csv";
+		assertEquals(Status.FORBIDDEN, resources.client().target("/objects/open")
+			.queryParam("path", sneaky).request().post(null).getStatusInfo());
+		assertEquals(Status.NOT_FOUND, resources.client().target("/objects/open")
+			.queryParam("path", image + ".missing").request().post(null)
+			.getStatusInfo());
+	}
+
+	@Test
+	public void exportToPath() throws Exception {
+		final String tableID = uploadFile("texts/table.csv");
+		final File target = new File(System.getProperty("java.io.tmpdir"),
+			"export-" + System.nanoTime() + ".csv");
+		try {
+			final Response accepted = resources.client().target("/objects/" +
+				tableID + "/export").queryParam("path", target.getAbsolutePath())
+				.queryParam("columnDelimiter", "tab").request().post(null);
+			assertEquals(Status.ACCEPTED, accepted.getStatusInfo());
+			final String exportID = objectMapper.readTree(accepted.readEntity(
+				String.class)).get("id").asText();
+
+			JsonNode status = null;
+			for (int i = 0; i < 600; i++) {
+				status = objectMapper.readTree(resources.client().target(
+					"/objects/exports/" + exportID).request().get(String.class));
+				if (!"pending".equals(status.get("status").asText())) break;
+				Thread.sleep(50);
+			}
+			assertEquals("done", status.get("status").asText());
+			assertEquals(target.length(), status.get("bytes_written").asLong());
+			assertTrue(new String(Files.readAllBytes(target.toPath()),
+				StandardCharsets.UTF_8).contains("\t"));
+
+			// no silent overwrites, and nothing outside the allowed roots
+			assertEquals(Status.CONFLICT, resources.client().target("/objects/" +
+				tableID + "/export").queryParam("path", target.getAbsolutePath())
+				.request().post(null).getStatusInfo());
+			final File forbidden = new File(new File(getClass().getClassLoader()
+				.getResource("texts/table.csv").toURI()).getParent(), "copy.csv");
+			assertEquals(Status.FORBIDDEN, resources.client().target("/objects/" +
+				tableID + "/export").queryParam("path", forbidden.getAbsolutePath())
+				.request().post(null).getStatusInfo());
+		}
+		finally {
+			target.delete();
+		}
+	}
+
+	@Test
+	public void exportKeepsNewerFiles() throws Exception {
+		final File target = new File(System.getProperty("java.io.tmpdir"),
+			"export-" + System.nanoTime() + ".csv");
+		try {
+			// NB: the target appears while the export is being written.
+			final ExportStatus status = exportService.submit("object:test", target
+				.toPath(), false, location -> {
+					Files.write(target.toPath(), "newer".getBytes(
+						StandardCharsets.UTF_8));
+					Files.write(((FileLocation) location).getFile().toPath(), "export"
+						.getBytes(StandardCharsets.UTF_8));
+				});
+			for (int i = 0; i < 600 && ExportStatus.PENDING.equals(status
+				.getStatus()); i++)
+			{
+				Thread.sleep(50);
+			}
+			assertEquals(ExportStatus.FAILED, status.getStatus());
+			assertEquals("newer", new String(Files.readAllBytes(target.toPath()),
+				StandardCharsets.UTF_8));
+			assertEquals(1, target.getParentFile().list((dir, name) -> name
+				.endsWith(target.getName())).length);
+		}
+		finally {
+			target.delete();
+		}
+	}
+
+	@Test
+	public void compressedDownload() throws IOException {
+		final String tableID = uploadFile("texts/table.csv");
+		final String target = "/objects/" + tableID + "/csv";
+		final Response identity = resources.client().target(target).request()
+			.get();
+		assertEquals(null, identity.getHeaderString(HttpHeaders.CONTENT_ENCODING));
+		final String content = identity.readEntity(String.class);
+
+		final Response gzip = resources.client().target(target).request().header(
+			HttpHeaders.ACCEPT_ENCODING, "deflate;q=0.5, gzip").get();
+		assertEquals("gzip", gzip.getHeaderString(HttpHeaders.CONTENT_ENCODING));
+		assertTrue(gzip.getEntityTag().isWeak());
+		try (final InputStream in = new GZIPInputStream(gzip.readEntity(
+			InputStream.class)))
+		{
+			final ByteArrayOutputStream out = new ByteArrayOutputStream();
+			final byte[] buffer = new byte[4096];
+			for (int n; (n = in.read(buffer)) > 0;) {
+				out.write(buffer, 0, n);
+			}
+			assertEquals(content, new String(out.toByteArray(),
+				StandardCharsets.UTF_8));
+		}
+
+		// already compressed formats are left alone
+		final String imgID = uploadFile("imgs/about4.tif");
+		final Response tif = resources.client().target("/objects/" + imgID +
+			"/tif").request().header(HttpHeaders.ACCEPT_ENCODING, "gzip").get();
+		assertEquals(null, tif.getHeaderString(HttpHeaders.CONTENT_ENCODING));
+	}
+
+	@Test
+	public void objectStats() throws IOException {
+		final String imgID = objectService.register(ArrayImgs.floats(1000),
+			"objectStats:test");
+		final JsonNode info = objectMapper.readTree(resources.client().target(
+			"/objects/" + imgID).request().get(String.class));
+		assertEquals(4000, info.get("size").asLong());
+		assertFalse(info.get("pinned").asBoolean());
+
+		final JsonNode stats = objectMapper.readTree(resources.client().target(
+			"/objects/stats").request().get(String.class));
+		assertTrue(stats.get("count").asInt() >= 1);
+		assertTrue(stats.get("size").asLong() >= 4000);
+		final JsonNode creator = stats.get("byCreator").get("objectStats");
+		assertEquals(1, creator.get("count").asInt());
+		assertEquals(4000, creator.get("size").asLong());
+		assertTrue(stats.get("byClass").has(ArrayImgs.floats(1).getClass()
+			.getName()));
+		assertTrue(stats.get("largest").size() >= 1);
+		removeID(imgID);
+	}
+
+	@Test
+	public void regionDownload() throws IOException {
+		final String imgID = uploadFile("imgs/about4.tif");
+		final Dataset source = (Dataset) objectService.find(imgID).getObject();
+
+		final Response response = resources.client().target("/objects/" + imgID +
+			"/region/tiff").queryParam("min", "10,20").queryParam("max", "29,59")
+			.queryParam("step", "2,4").request().get();
+		assertEquals(Status.OK, response.getStatusInfo());
+		final Dataset region = ctx.service(DatasetIOService.class).open(response
+			.readEntity(File.class).getAbsolutePath());
+		assertEquals(10, region.dimension(0));
+		assertEquals(10, region.dimension(1));
+		for (int d = 2; d < source.numDimensions(); d++) {
+			assertEquals(source.dimension(d), region.dimension(d));
+		}
+
+		final Response outOfBounds = resources.client().target("/objects/" +
+			imgID + "/region/tiff").queryParam("offset", "0,0").queryParam("size",
+				"100000,1").request().get();
+		assertEquals(Status.BAD_REQUEST, outOfBounds.getStatusInfo());
+
+		// Explicit values are checked rather than replaced with defaults.
+		final String[][] invalid = { { "min", "-1,0" }, { "max", "-1,-1" }, {
+			"size", "0,1" }, { "size", "-5,1" }, { "step", "0,1" }, { "step",
+				"-2,1" } };
+		for (final String[] param : invalid) {
+			final Response rejected = resources.client().target("/objects/" +
+				imgID + "/region/tiff").queryParam(param[0], param[1]).request().get();
+			assertEquals(param[0] + "=" + param[1], Status.BAD_REQUEST, rejected
+				.getStatusInfo());
+		}
+	}
+
+	@Test
+	public void rawRoundTrip() throws IOException {
+		// an ArrayImg, written straight from its storage array
+		final float[] pixels = { 0.5f, -1f, 2.25f, 3f, 4f, 5.5f };
+		final String arrayID = objectService.register(ArrayImgs.floats(pixels, 3,
+			2), "rawRoundTrip");
+		final Response response = resources.client().target("/objects/" +
+			arrayID + "/raw").queryParam("byteOrder", "big").request().get();
+		assertEquals(Status.OK, response.getStatusInfo());
+		final DataInputStream in = new DataInputStream(response.readEntity(
+			InputStream.class));
+		final RawImageHeader header = RawImageCodec.readHeader(in);
+		assertArrayEquals(new long[] { 3, 2 }, header.getDims());
+		assertEquals("float32", header.getDtype());
+		assertEquals("big", header.getByteOrder());
+		for (final float pixel : pixels) {
+			assertEquals(pixel, in.readFloat(), 0);
+		}
+		assertEquals(-1, in.read());
+
+		// an uploaded image, sent back through the raw upload path
+		final String imgID = uploadFile("imgs/about4.tif");
+		final byte[] raw = resources.client().target("/objects/" + imgID + "/raw")
+			.request().get(byte[].class);
+		final String copyID = resources.client().target("/objects/raw").request()
+			.post(Entity.entity(raw, MediaType.APPLICATION_OCTET_STREAM),
+				String.class).replaceAll(".*\"(object:[^\"]+)\".*", "$1");
+		final Dataset original = (Dataset) objectService.find(imgID).getObject();
+		final Dataset copy = (Dataset) objectService.find(copyID).getObject();
+		assertEquals(original.numDimensions(), copy.numDimensions());
+		for (int d = 0; d < original.numDimensions(); d++) {
+			assertEquals(original.dimension(d), copy.dimension(d));
+			assertEquals(original.axis(d).type(), copy.axis(d).type());
+		}
+		final Iterator<?> expectedItr = original.iterator();
+		final Iterator<?> actualItr = copy.iterator();
+		while (expectedItr.hasNext()) {
+			assertEquals(expectedItr.next(), actualItr.next());
+		}
+	}
+
+	@Test
+	public void rawRejectsInvalidHeaders() {
+		final String[] headers = { //
+			"{\"dims\":[3,-2],\"dtype\":\"uint8\"}", // negative dims
+			"{\"dims\":[3,0],\"dtype\":\"uint8\"}", // empty dims
+			"{\"dims\":[4294967296,4294967296],\"dtype\":\"uint8\"}", // overflow
+			"{\"dims\":[65536,65536],\"dtype\":\"uint8\"}", // too many pixels
+			"{\"dims\":[40000,40000],\"dtype\":\"float64\"}", // over the limit
+			"{\"dims\":[1000,1000],\"dtype\":\"float32\"}", // longer than body
+			"{\"dims\":[3,2],\"dtype\":\"uint8\",\"byteOrder\":\"middle\"}" };
+		for (final String header : headers) {
+			final byte[] body = (header + "\n123456").getBytes(
+				StandardCharsets.UTF_8);
+			final Response response = resources.client().target("/objects/raw")
+				.request().post(Entity.entity(body,
+					MediaType.APPLICATION_OCTET_STREAM));
+			assertEquals(header, Status.BAD_REQUEST.getStatusCode(), response
+				.getStatus());
+		}
+
+		final String id = objectService.register(ArrayImgs.bytes(3, 2),
+			"rawRejectsInvalidHeaders");
+		final Response response = resources.client().target("/objects/" + id +
+			"/raw").queryParam("byteOrder", "middle").request().get();
+		assertEquals(Status.BAD_REQUEST.getStatusCode(), response.getStatus());
+	}
+
+	@Test
+	public void sharedMemory() throws IOException {
+		// an image copied into a shared file
+		final short[] pixels = { 1, 2, 3, 4, 5, 6 };
+		final String arrayID = objectService.register(ArrayImgs.shorts(pixels, 3,
+			2), "sharedMemory");
+		final JsonNode shared = objectMapper.readTree(resources.client().target(
+			"/objects/" + arrayID + "/shared").request().post(null, String.class));
+		assertEquals("int16", shared.get("dtype").asText());
+		assertEquals(2, shared.get("strides").get(0).asLong());
+		assertEquals(6, shared.get("strides").get(1).asLong());
+		final File file = new File(shared.get("path").asText());
+		final ShortBuffer copy = ByteBuffer.wrap(Files.readAllBytes(file.toPath()))
+			.order(ByteOrder.nativeOrder()).asShortBuffer();
+		for (final short pixel : pixels) {
+			assertEquals(pixel, copy.get());
+		}
+		removeID(arrayID);
+		assertFalse(file.exists());
+
+		// an image mapped from a shared file, seeing later changes to the file
+		final File mappedFile = new File(file.getParentFile(), "mapped.raw");
+		final ByteBuffer data = ByteBuffer.allocate(4 + 12).order(
+			ByteOrder.LITTLE_ENDIAN);
+		data.position(4);
+		for (int i = 0; i < 3; i++) {
+			data.putFloat(i + 0.5f);
+		}
+		Files.write(mappedFile.toPath(), data.array());
+		final String mappedID = resources.client().target("/objects/shared")
+			.request().post(Entity.json("{\"file\":\"mapped.raw\",\"dims\":[3]," +
+				"\"dtype\":\"float32\",\"offset\":4}"), String.class).replaceAll(
+					".*\"(object:[^\"]+)\".*", "$1");
+		final Dataset mapped = (Dataset) objectService.find(mappedID).getObject();
+		assertEquals(0.5, mapped.getImgPlus().firstElement().getRealDouble(), 0);
+		try (final RandomAccessFile raf = new RandomAccessFile(mappedFile, "rw")) {
+			raf.seek(4);
+			raf.writeInt(Integer.reverseBytes(Float.floatToIntBits(7f)));
+		}
+		assertEquals(7, mapped.getImgPlus().firstElement().getRealDouble(), 0);
+		final JsonNode same = objectMapper.readTree(resources.client().target(
+			"/objects/" + mappedID + "/shared").request().post(null, String.class));
+		assertEquals("mapped.raw", same.get("file").asText());
+		assertEquals(4, same.get("offset").asLong());
+		removeID(mappedID);
+		assertTrue(mappedFile.delete());
+
+		final Response outside = resources.client().target("/objects/shared")
+			.request().post(Entity.json("{\"file\":\"../mapped.raw\"," +
+				"\"dims\":[3],\"dtype\":\"float32\"}"));
+		assertEquals(Status.FORBIDDEN, outside.getStatusInfo());
+	}
+
+	@Test
+	public void tileDownload() throws IOException {
+		// pixel values equal to the X coordinate, so averages are predictable
+		final float[] pixels = new float[100 * 70];
+		for (int i = 0; i < pixels.length; i++) {
+			pixels[i] = i % 100;
+		}
+		final String imgID = objectService.register(ArrayImgs.floats(pixels, 100,
+			70), "tileDownload");
+
+		// 100x70, 50x35 and 25x18 with the 32 pixel tiles of the tests
+		final JsonNode info = objectMapper.readTree(resources.client().target(
+			"/objects/" + imgID + "/tiles").request().get(String.class));
+		assertEquals(32, info.get("tileSize").asInt());
+		assertEquals(1, info.get("planes").asLong());
+		assertEquals(3, info.get("levels").size());
+		assertEquals(2, info.get("levels").get(1).get("columns").asInt());
+		assertEquals(1, info.get("levels").get(2).get("rows").asInt());
+
+		final Response response = resources.client().target("/objects/" + imgID +
+			"/tiles/1/0/1/0").queryParam("format", "raw").request().get();
+		assertEquals(Status.OK, response.getStatusInfo());
+		final DataInputStream in = new DataInputStream(response.readEntity(
+			InputStream.class));
+		final RawImageHeader header = RawImageCodec.readHeader(in);
+		assertArrayEquals(new long[] { 18, 32 }, header.getDims());
+		final byte[] data = new byte[(int) header.dataLength()];
+		in.readFully(data);
+		final FloatBuffer values = ByteBuffer.wrap(data).order(
+			header.byteOrder()).asFloatBuffer();
+		for (int x = 0; x < 18; x++) {
+			assertEquals(2 * (32 + x) + 0.5f, values.get(x), 0);
+		}
+
+		final Response missing = resources.client().target("/objects/" + imgID +
+			"/tiles/1/0/2/0").request().get();
+		assertEquals(Status.NOT_FOUND, missing.getStatusInfo());
+	}
+
 	// -- helper methods --
 
+	/**
+	 * Creates a compression configuration that also compresses the small test
+	 * table.
+	 */
+	private static CompressionConfiguration compressionConfiguration() {
+		final CompressionConfiguration config = new CompressionConfiguration();
+		config.setMinimumSize(DataSize.bytes(16));
+		return config;
+	}
+
+	/**
+	 * Creates a file part for multipart uploads.
+	 * 
+	 * @param filename name of file
+	 * @param stream stream of file content
+	 * @return the body part
+	 */
+	private static BodyPart filePart(final String filename,
+		final InputStream stream)
+	{
+		return new BodyPart(stream, MediaType.MULTIPART_FORM_DATA_TYPE)
+			.contentDisposition(FormDataContentDisposition.name("file").fileName(
+				filename).build());
+	}
+
+	/**
+	 * Polls the status of an upload until it is no longer pending.
+	 * 
+	 * @param id object ID
+	 * @return the final status
+	 */
+	private JsonNode awaitStatus(final String id) throws Exception {
+		for (int i = 0; i < 600; i++) {
+			final JsonNode status = objectMapper.readTree(resources.client().target(
+				"/objects/" + id + "/status").request().get(String.class));
+			if (!"pending".equals(status.get("status").asText())) return status;
+			Thread.sleep(50);
+		}
+		throw new AssertionError("Upload still pending: " + id);
+	}
+
 	/**
 	 * Gets available IDs.
 	 * 
@@ -170,18 +790,54 @@ public class ObjectsResourceTest extends AbstractResourceTest {
 	 */
 	private String uploadFile(final String filename, final InputStream stream)
 		throws IOException
+	{
+		return uploadFile(filename, stream, null);
+	}
+
+	/**
+	 * Upload file to IOResource with the given image mode
+	 * 
+	 * @param filename name of file
+	 * @param stream stream of file content
+	 * @param imgMode image mode to open images with, or null for the default
+	 * @return the object ID of that file
+	 * @throws IOException
+	 */
+	private String uploadFile(final String filename, final InputStream stream,
+		final String imgMode) throws IOException
+	{
+		final String response = postFile(filename, stream, "imgMode", imgMode)
+			.readEntity(String.class);
+		final Matcher matcher = Pattern.compile("\\{\"id\":\"([^\"]+)\"\\}")
+			.matcher(response);
+		assertTrue(matcher.find());
+		return matcher.group(1);
+	}
+
+	/**
+	 * Posts a file to IOResource
+	 * 
+	 * @param filename name of file
+	 * @param stream stream of file content
+	 * @param param name of an optional query parameter
+	 * @param value value of the query parameter, or null to leave it out
+	 * @return the response
+	 * @throws IOException
+	 */
+	private Response postFile(final String filename, final InputStream stream,
+		final String param, final String value) throws IOException
 	{
 		try (final FormDataMultiPart multiPart = new FormDataMultiPart()) {
 			multiPart.bodyPart(new BodyPart(stream,
 				MediaType.MULTIPART_FORM_DATA_TYPE).contentDisposition(
 					FormDataContentDisposition.name("file").fileName(filename).build()));
-			final String response = resources.client().register(
-				MultiPartFeature.class).target("/objects/upload").request().post(Entity
-					.entity(multiPart, multiPart.getMediaType()), String.class);
-			final Matcher matcher = Pattern.compile("\\{\"id\":\"([^\"]+)\"\\}")
-				.matcher(response);
-			assertTrue(matcher.find());
-			return matcher.group(1);
+			WebTarget target = resources.client().register(MultiPartFeature.class)
+				.target("/objects/upload");
+			if (value != null) target = target.queryParam(param, value);
+			final Response response = target.request().post(Entity.entity(
+				multiPart, multiPart.getMediaType()));
+			response.bufferEntity();
+			return response;
 		}
 	}
 
@@ -0,0 +1,130 @@
+/*
+ * #%L
+ * ImageJ server for RESTful access to ImageJ.
+ * %%
+ * Copyright (C) 2013 - 2026 Board of Regents of the University of
+ * Wisconsin-Madison.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package net.imagej.server;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.codahale.metrics.MetricRegistry;
+
+import io.dropwizard.jetty.ConnectorFactory;
+import io.dropwizard.jetty.HttpConnectorFactory;
+import io.dropwizard.server.DefaultServerFactory;
+import io.dropwizard.server.SimpleServerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.util.List;
+
+import jnr.unixsocket.UnixServerSocketChannel;
+import jnr.unixsocket.UnixSocketAddress;
+
+import net.imagej.server.jetty.UnixSocketConnectorFactory;
+
+import org.eclipse.jetty.server.Server;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test for {@link UnixSocketConnectorFactory} and how it is configured.
+ */
+public class UnixSocketConnectorFactoryTest {
+
+	private Path directory;
+
+	private Path socket;
+
+	@Before
+	public void setUp() throws IOException {
+		directory = Files.createTempDirectory("imagej-server-socket");
+		socket = directory.resolve("imagej-server.sock");
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		Files.deleteIfExists(socket);
+		Files.deleteIfExists(directory);
+	}
+
+	@Test
+	public void removesStaleSocket() throws IOException {
+		// NB: a closed server socket leaves its file behind, as after a crash.
+		try (final UnixServerSocketChannel channel = UnixServerSocketChannel
+			.open())
+		{
+			channel.socket().bind(new UnixSocketAddress(socket.toFile()));
+		}
+		assertTrue(Files.exists(socket, LinkOption.NOFOLLOW_LINKS));
+		assertFalse(Files.isRegularFile(socket, LinkOption.NOFOLLOW_LINKS));
+
+		build();
+		assertFalse(Files.exists(socket, LinkOption.NOFOLLOW_LINKS));
+	}
+
+	@Test
+	public void keepsRegularFiles() throws IOException {
+		final byte[] data = { 1, 2, 3 };
+		Files.write(socket, data);
+
+		build();
+		assertArrayEquals(data, Files.readAllBytes(socket));
+	}
+
+	@Test
+	public void addsConfiguredSocket() {
+		final ImageJServerConfiguration configuration =
+			new ImageJServerConfiguration();
+		configuration.getUnixSocket().setPath(socket.toString());
+		ImageJServer.addUnixSocketConnector(configuration);
+
+		// NB: the socket comes in addition to the HTTP connector.
+		final List<ConnectorFactory> connectors =
+			((DefaultServerFactory) configuration.getServerFactory())
+				.getApplicationConnectors();
+		assertEquals(2, connectors.size());
+		assertTrue(connectors.get(0) instanceof HttpConnectorFactory);
+		assertTrue(connectors.get(1) instanceof UnixSocketConnectorFactory);
+		assertEquals(socket.toString(), ((UnixSocketConnectorFactory) connectors
+			.get(1)).getPath());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void needsDefaultServer() {
+		final ImageJServerConfiguration configuration =
+			new ImageJServerConfiguration();
+		configuration.setServerFactory(new SimpleServerFactory());
+		configuration.getUnixSocket().setPath(socket.toString());
+		ImageJServer.addUnixSocketConnector(configuration);
+	}
+
+	// -- Helper methods --
+
+	private void build() {
+		new UnixSocketConnectorFactory(socket.toString()).build(new Server(),
+			new MetricRegistry(), "unix", null);
+	}
+}
@@ -13,7 +13,10 @@ Validate uploaded image:
      "created_at" : ".*", (re)
      "created_by" : "uploadFile:filename=about4.tif",
      "id" : "THE_OBJECT_ID",
-     "last_used" : null
+     "last_used" : null,
+     "pinned" : false,
+     "size" : 1279200,
+     "spilled" : false
   }
 
 Download the image as a PNG: